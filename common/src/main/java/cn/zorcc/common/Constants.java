@@ -318,6 +318,7 @@ public final class Constants {
     public static final int EPOLL_ERR = 1 << 3;
     public static final int EPOLL_HUP = 1 << 4;
     public static final int EPOLL_RDHUP = 1 << 13;
+    public static final int EPOLL_ET = 1 << 31;
 
     public static final int EPOLL_CTL_ADD = 1;
     public static final int EPOLL_CTL_DEL = 2;
@@ -346,6 +347,7 @@ public final class Constants {
     public static final int NET_PC = 1 << 7;
     public static final int NET_WC = 1 << 8;
     public static final int NET_OTHER = 1 << 9;
+    public static final int NET_RS = 1 << 10; // read suspended by writer for backpressure
 
     /**
      *   Ssl library
@@ -40,9 +40,23 @@ public final class SslBinding {
     private static final MethodHandle sslGetErrMethod;
     private static final MethodHandle sslGetVerifyResult;
     private static final MethodHandle sslGetPeerCertificate;
+    private static final MethodHandle sslGetWbio;
+    private static final MethodHandle bioCtrl;
+    private static final MethodHandle sslSetSession;
+    private static final MethodHandle sslGetSession;
+    private static final MethodHandle sslGet1Session;
+    private static final MethodHandle sslSessionIsResumable;
+    private static final MethodHandle sslSessionFree;
     private static final MethodHandle x509Free;
     private static final MethodHandle errGet;
     private static final MethodHandle errString;
+    private static final MethodHandle sslCtxCallbackCtrl;
+    private static final MethodHandle randBytes;
+    private static final MethodHandle evpAes256Cbc;
+    private static final MethodHandle evpSha256;
+    private static final MethodHandle evpEncryptInit;
+    private static final MethodHandle evpDecryptInit;
+    private static final MethodHandle hmacInit;
 
     static {
         crypto = NativeUtil.loadLibrary(Constants.CRYPTO);
@@ -93,12 +107,40 @@ public final class SslBinding {
                 FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.ADDRESS));
         sslGetPeerCertificate = NativeUtil.methodHandle(ssl, List.of("SSL_get_peer_certificate", "SSL_get1_peer_certificate"),
                 FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        sslGetWbio = NativeUtil.methodHandle(ssl, "SSL_get_wbio",
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        bioCtrl = NativeUtil.methodHandle(crypto, "BIO_ctrl",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS));
+        sslSetSession = NativeUtil.methodHandle(ssl, "SSL_set_session",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        sslGetSession = NativeUtil.methodHandle(ssl, "SSL_get_session",
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        sslGet1Session = NativeUtil.methodHandle(ssl, "SSL_get1_session",
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        sslSessionIsResumable = NativeUtil.methodHandle(ssl, "SSL_SESSION_is_resumable",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS));
+        sslSessionFree = NativeUtil.methodHandle(ssl, "SSL_SESSION_free",
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
         x509Free = NativeUtil.methodHandle(crypto, "X509_free",
                 FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
         errGet = NativeUtil.methodHandle(crypto, "ERR_get_error",
                 FunctionDescriptor.of(ValueLayout.JAVA_LONG));
         errString = NativeUtil.methodHandle(crypto, "ERR_error_string_n",
                 FunctionDescriptor.ofVoid(ValueLayout.JAVA_LONG, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG), Linker.Option.critical(true));
+        sslCtxCallbackCtrl = NativeUtil.methodHandle(ssl, "SSL_CTX_callback_ctrl",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.ADDRESS));
+        randBytes = NativeUtil.methodHandle(crypto, "RAND_bytes",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        evpAes256Cbc = NativeUtil.methodHandle(crypto, "EVP_aes_256_cbc",
+                FunctionDescriptor.of(ValueLayout.ADDRESS));
+        evpSha256 = NativeUtil.methodHandle(crypto, "EVP_sha256",
+                FunctionDescriptor.of(ValueLayout.ADDRESS));
+        evpEncryptInit = NativeUtil.methodHandle(crypto, "EVP_EncryptInit_ex",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        evpDecryptInit = NativeUtil.methodHandle(crypto, "EVP_DecryptInit_ex",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+        hmacInit = NativeUtil.methodHandle(crypto, "HMAC_Init_ex",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
     }
 
     private SslBinding() {
@@ -288,6 +330,62 @@ public final class SslBinding {
         }
     }
 
+    public static MemorySegment sslGetWbio(MemorySegment ssl) {
+        try{
+            return (MemorySegment) sslGetWbio.invokeExact(ssl);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static long bioCtrl(MemorySegment bio, int cmd, long larg, MemorySegment parg) {
+        try{
+            return (long) bioCtrl.invokeExact(bio, cmd, larg, parg);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int sslSetSession(MemorySegment ssl, MemorySegment session) {
+        try{
+            return (int) sslSetSession.invokeExact(ssl, session);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static MemorySegment sslGetSession(MemorySegment ssl) {
+        try{
+            return (MemorySegment) sslGetSession.invokeExact(ssl);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static MemorySegment sslGet1Session(MemorySegment ssl) {
+        try{
+            return (MemorySegment) sslGet1Session.invokeExact(ssl);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int sslSessionIsResumable(MemorySegment session) {
+        try{
+            return (int) sslSessionIsResumable.invokeExact(session);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static void sslSessionFree(MemorySegment session) {
+        try{
+            sslSessionFree.invokeExact(session);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
     public static void x509Free(MemorySegment x509) {
         try{
             x509Free.invokeExact(x509);
@@ -311,4 +409,60 @@ public final class SslBinding {
             throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
         }
     }
+
+    public static long ctxCallbackCtrl(MemorySegment ctx, int cmd, MemorySegment callback) {
+        try{
+            return (long) sslCtxCallbackCtrl.invokeExact(ctx, cmd, callback);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int randBytes(MemorySegment buf, int len) {
+        try{
+            return (int) randBytes.invokeExact(buf, len);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static MemorySegment evpAes256Cbc() {
+        try{
+            return (MemorySegment) evpAes256Cbc.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static MemorySegment evpSha256() {
+        try{
+            return (MemorySegment) evpSha256.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int evpEncryptInit(MemorySegment cipherCtx, MemorySegment cipher, MemorySegment key, MemorySegment iv) {
+        try{
+            return (int) evpEncryptInit.invokeExact(cipherCtx, cipher, MemorySegment.NULL, key, iv);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int evpDecryptInit(MemorySegment cipherCtx, MemorySegment cipher, MemorySegment key, MemorySegment iv) {
+        try{
+            return (int) evpDecryptInit.invokeExact(cipherCtx, cipher, MemorySegment.NULL, key, iv);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int hmacInit(MemorySegment hmacCtx, MemorySegment key, int len, MemorySegment md) {
+        try{
+            return (int) hmacInit.invokeExact(hmacCtx, key, len, md, MemorySegment.NULL);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
 }
@@ -12,6 +12,7 @@ import java.lang.invoke.MethodHandle;
  *   Binding for Linux operating system, using epoll for IO multiplexing
  */
 public final class TenetLinuxBinding {
+    private static final SymbolLookup symbolLookup;
     private static final MethodHandle connectBlockCodeMethodHandle;
     private static final MethodHandle sendBlockCodeMethodHandle;
     private static final MethodHandle interruptCodeMethodHandle;
@@ -49,7 +50,7 @@ public final class TenetLinuxBinding {
 
 
     static {
-        SymbolLookup symbolLookup = NativeUtil.loadLibrary(Constants.TENET);
+        symbolLookup = NativeUtil.loadLibrary(Constants.TENET);
         connectBlockCodeMethodHandle = NativeUtil.methodHandle(symbolLookup, "l_connect_block_code",
                 FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
         sendBlockCodeMethodHandle = NativeUtil.methodHandle(symbolLookup, "l_send_block_code",
@@ -120,10 +121,169 @@ public final class TenetLinuxBinding {
                 FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
     }
 
+    /**
+     *   Optional SO_REUSEPORT function, resolved when first used, absent in older tenet libraries
+     */
+    private static final class ReusePort {
+        private static final MethodHandle setReusePortMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_reuse_port",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional gather write function, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Writev {
+        private static final MethodHandle writevMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_writev",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional eventfd functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Eventfd {
+        private static final MethodHandle eventfdMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_eventfd",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle eventfdWriteMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_eventfd_write",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle eventfdReadMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_eventfd_read",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional file transfer functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class FileTransfer {
+        private static final MethodHandle openFileMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_open_file",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS), Linker.Option.critical(false));
+        private static final MethodHandle sendFileMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_sendfile",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG), Linker.Option.critical(false));
+        private static final MethodHandle preadMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_pread",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional SO_BUSY_POLL function, resolved when first used, absent in older tenet libraries
+     */
+    private static final class BusyPoll {
+        private static final MethodHandle setBusyPollMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_busy_poll",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional CPU affinity functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Affinity {
+        private static final MethodHandle setAffinityMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_affinity",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle setIncomingCpuMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_incoming_cpu",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional datagram functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Datagram {
+        private static final MethodHandle ipv4UdpSocketCreateMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_ipv4_udp_socket_create",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(true));
+        private static final MethodHandle ipv6UdpSocketCreateMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_ipv6_udp_socket_create",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(true));
+        private static final MethodHandle setUdpSegmentMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_udp_segment",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle recvMmsgMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_recv_mmsg",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle sendMmsgMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_send_mmsg",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional unix domain socket functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Unix {
+        private static final MethodHandle unixAddressSizeMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_unix_address_size",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle unixAddressAlignMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_unix_address_align",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle unixSocketCreateMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_unix_socket_create",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(true));
+        private static final MethodHandle setUnixSockAddrMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_unix_sock_addr",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional TCP_CORK function, resolved when first used, absent in older tenet libraries
+     */
+    private static final class TcpCork {
+        private static final MethodHandle setTcpCorkMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "l_set_tcp_cork",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
     private TenetLinuxBinding() {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     *   Return if current tenet library exports l_set_tcp_cork
+     */
+    public static boolean tcpCorkSupported() {
+        return TcpCork.setTcpCorkMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_unix_address_size, l_unix_address_align, l_unix_socket_create and l_set_unix_sock_addr
+     */
+    public static boolean unixSupported() {
+        return Unix.unixAddressSizeMethodHandle != null && Unix.unixAddressAlignMethodHandle != null && Unix.unixSocketCreateMethodHandle != null && Unix.setUnixSockAddrMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_ipv4_udp_socket_create, l_ipv6_udp_socket_create, l_set_udp_segment, l_recv_mmsg and l_send_mmsg
+     */
+    public static boolean datagramSupported() {
+        return Datagram.ipv4UdpSocketCreateMethodHandle != null && Datagram.ipv6UdpSocketCreateMethodHandle != null && Datagram.setUdpSegmentMethodHandle != null && Datagram.recvMmsgMethodHandle != null && Datagram.sendMmsgMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_set_affinity and l_set_incoming_cpu
+     */
+    public static boolean affinitySupported() {
+        return Affinity.setAffinityMethodHandle != null && Affinity.setIncomingCpuMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_set_busy_poll
+     */
+    public static boolean busyPollSupported() {
+        return BusyPoll.setBusyPollMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_open_file, l_sendfile and l_pread
+     */
+    public static boolean fileTransferSupported() {
+        return FileTransfer.openFileMethodHandle != null && FileTransfer.sendFileMethodHandle != null && FileTransfer.preadMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_eventfd, l_eventfd_write and l_eventfd_read
+     */
+    public static boolean eventfdSupported() {
+        return Eventfd.eventfdMethodHandle != null && Eventfd.eventfdWriteMethodHandle != null && Eventfd.eventfdReadMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_writev
+     */
+    public static boolean writevSupported() {
+        return Writev.writevMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports l_set_reuse_port
+     */
+    public static boolean reusePortSupported() {
+        return ReusePort.setReusePortMethodHandle != null;
+    }
+
     public static int connectBlockCode() {
         try{
             return (int) connectBlockCodeMethodHandle.invokeExact();
@@ -394,4 +554,172 @@ public final class TenetLinuxBinding {
             throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
         }
     }
+
+    public static int setReusePort(int socket, int value) {
+        try{
+            return (int) ReusePort.setReusePortMethodHandle.invokeExact(socket, value);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static long writev(int socket, MemorySegment iov, int count) {
+        try{
+            return (long) Writev.writevMethodHandle.invokeExact(socket, iov, count);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int eventfd() {
+        try{
+            return (int) Eventfd.eventfdMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int eventfdWrite(int fd) {
+        try{
+            return (int) Eventfd.eventfdWriteMethodHandle.invokeExact(fd);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int eventfdRead(int fd) {
+        try{
+            return (int) Eventfd.eventfdReadMethodHandle.invokeExact(fd);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int openFile(MemorySegment path) {
+        try{
+            return (int) FileTransfer.openFileMethodHandle.invokeExact(path);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static long sendFile(int socket, int fd, long offset, long len) {
+        try{
+            return (long) FileTransfer.sendFileMethodHandle.invokeExact(socket, fd, offset, len);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static long pread(int fd, MemorySegment buf, long len, long offset) {
+        try{
+            return (long) FileTransfer.preadMethodHandle.invokeExact(fd, buf, len, offset);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setBusyPoll(int socket, int value) {
+        try{
+            return (int) BusyPoll.setBusyPollMethodHandle.invokeExact(socket, value);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setAffinity(int cpu) {
+        try{
+            return (int) Affinity.setAffinityMethodHandle.invokeExact(cpu);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setIncomingCpu(int socket, int cpu) {
+        try{
+            return (int) Affinity.setIncomingCpuMethodHandle.invokeExact(socket, cpu);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int ipv4UdpSocketCreate() {
+        try{
+            return (int) Datagram.ipv4UdpSocketCreateMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int ipv6UdpSocketCreate() {
+        try{
+            return (int) Datagram.ipv6UdpSocketCreateMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setUdpSegment(int socket, int value) {
+        try{
+            return (int) Datagram.setUdpSegmentMethodHandle.invokeExact(socket, value);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int recvMmsg(int socket, MemorySegment msgs, int count) {
+        try{
+            return (int) Datagram.recvMmsgMethodHandle.invokeExact(socket, msgs, count);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int sendMmsg(int socket, MemorySegment msgs, int count) {
+        try{
+            return (int) Datagram.sendMmsgMethodHandle.invokeExact(socket, msgs, count);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int unixAddressSize() {
+        try{
+            return (int) Unix.unixAddressSizeMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int unixAddressAlign() {
+        try{
+            return (int) Unix.unixAddressAlignMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int unixSocketCreate() {
+        try{
+            return (int) Unix.unixSocketCreateMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setUnixSockAddr(MemorySegment sockAddr, MemorySegment path) {
+        try{
+            return (int) Unix.setUnixSockAddrMethodHandle.invokeExact(sockAddr, path);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setTcpCork(int socket, int value) {
+        try{
+            return (int) TcpCork.setTcpCorkMethodHandle.invokeExact(socket, value);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
 }
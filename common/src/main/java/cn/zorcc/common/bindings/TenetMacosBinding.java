@@ -12,6 +12,7 @@ import java.lang.invoke.MethodHandle;
  *   Binding for macOS operating system, using kqueue for IO multiplexing
  */
 public final class TenetMacosBinding {
+    private static final SymbolLookup symbolLookup;
     private static final MethodHandle connectBlockCodeMethodHandle;
     private static final MethodHandle sendBlockCodeMethodHandle;
     private static final MethodHandle interruptCodeMethodHandle;
@@ -48,7 +49,7 @@ public final class TenetMacosBinding {
     private static final MethodHandle shutdownWriteMethodHandle;
 
     static {
-        SymbolLookup symbolLookup = NativeUtil.loadLibrary(Constants.TENET);
+        symbolLookup = NativeUtil.loadLibrary(Constants.TENET);
         connectBlockCodeMethodHandle = NativeUtil.methodHandle(symbolLookup, "m_connect_block_code",
                 FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
         sendBlockCodeMethodHandle = NativeUtil.methodHandle(symbolLookup, "m_send_block_code",
@@ -119,10 +120,84 @@ public final class TenetMacosBinding {
                 FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
     }
 
+    /**
+     *   Optional gather write function, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Writev {
+        private static final MethodHandle writevMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_writev",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional pipe functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Pipe {
+        private static final MethodHandle pipeMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_pipe",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS), Linker.Option.critical(false));
+        private static final MethodHandle pipeWriteMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_pipe_write",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle pipeReadMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_pipe_read",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional file transfer functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class FileTransfer {
+        private static final MethodHandle openFileMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_open_file",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS), Linker.Option.critical(false));
+        private static final MethodHandle sendFileMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_sendfile",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG), Linker.Option.critical(false));
+        private static final MethodHandle preadMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_pread",
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG), Linker.Option.critical(false));
+    }
+
+    /**
+     *   Optional unix domain socket functions, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Unix {
+        private static final MethodHandle unixAddressSizeMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_unix_address_size",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle unixAddressAlignMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_unix_address_align",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle unixSocketCreateMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_unix_socket_create",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
+        private static final MethodHandle setUnixSockAddrMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "m_set_unix_sock_addr",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS), Linker.Option.critical(false));
+    }
+
     private TenetMacosBinding() {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     *   Return if current tenet library exports m_unix_address_size, m_unix_address_align, m_unix_socket_create and m_set_unix_sock_addr
+     */
+    public static boolean unixSupported() {
+        return Unix.unixAddressSizeMethodHandle != null && Unix.unixAddressAlignMethodHandle != null && Unix.unixSocketCreateMethodHandle != null && Unix.setUnixSockAddrMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports m_open_file, m_sendfile and m_pread
+     */
+    public static boolean fileTransferSupported() {
+        return FileTransfer.openFileMethodHandle != null && FileTransfer.sendFileMethodHandle != null && FileTransfer.preadMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports m_pipe, m_pipe_write and m_pipe_read
+     */
+    public static boolean pipeSupported() {
+        return Pipe.pipeMethodHandle != null && Pipe.pipeWriteMethodHandle != null && Pipe.pipeReadMethodHandle != null;
+    }
+
+    /**
+     *   Return if current tenet library exports m_writev
+     */
+    public static boolean writevSupported() {
+        return Writev.writevMethodHandle != null;
+    }
+
     public static int connectBlockCode() {
         try{
             return (int) connectBlockCodeMethodHandle.invokeExact();
@@ -395,4 +470,91 @@ public final class TenetMacosBinding {
         }
     }
 
+    public static long writev(int socket, MemorySegment iov, int count) {
+        try{
+            return (long) Writev.writevMethodHandle.invokeExact(socket, iov, count);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int pipe(MemorySegment fds) {
+        try{
+            return (int) Pipe.pipeMethodHandle.invokeExact(fds);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int pipeWrite(int fd) {
+        try{
+            return (int) Pipe.pipeWriteMethodHandle.invokeExact(fd);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int pipeRead(int fd) {
+        try{
+            return (int) Pipe.pipeReadMethodHandle.invokeExact(fd);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int openFile(MemorySegment path) {
+        try{
+            return (int) FileTransfer.openFileMethodHandle.invokeExact(path);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static long sendFile(int socket, int fd, long offset, long len) {
+        try{
+            return (long) FileTransfer.sendFileMethodHandle.invokeExact(socket, fd, offset, len);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static long pread(int fd, MemorySegment buf, long len, long offset) {
+        try{
+            return (long) FileTransfer.preadMethodHandle.invokeExact(fd, buf, len, offset);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int unixAddressSize() {
+        try{
+            return (int) Unix.unixAddressSizeMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int unixAddressAlign() {
+        try{
+            return (int) Unix.unixAddressAlignMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int unixSocketCreate() {
+        try{
+            return (int) Unix.unixSocketCreateMethodHandle.invokeExact();
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
+
+    public static int setUnixSockAddr(MemorySegment sockAddr, MemorySegment path) {
+        try{
+            return (int) Unix.setUnixSockAddrMethodHandle.invokeExact(sockAddr, path);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
 }
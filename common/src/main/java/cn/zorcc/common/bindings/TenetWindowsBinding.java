@@ -12,6 +12,7 @@ import java.lang.invoke.MethodHandle;
  *   Binding for Windows operating system, using wepoll library for IO multiplexing
  */
 public final class TenetWindowsBinding {
+    private static final SymbolLookup symbolLookup;
     private static final MethodHandle connectBlockCodeMethodHandle;
     private static final MethodHandle sendBlockCodeMethodHandle;
     private static final MethodHandle interruptCodeMethodHandle;
@@ -50,7 +51,7 @@ public final class TenetWindowsBinding {
     private static final MethodHandle wsaCleanUpMethodHandle;
 
     static {
-        SymbolLookup symbolLookup = NativeUtil.loadLibrary(Constants.TENET);
+        symbolLookup = NativeUtil.loadLibrary(Constants.TENET);
         connectBlockCodeMethodHandle = NativeUtil.methodHandle(symbolLookup, "w_connect_block_code",
                 FunctionDescriptor.of(ValueLayout.JAVA_INT), Linker.Option.critical(false));
         sendBlockCodeMethodHandle = NativeUtil.methodHandle(symbolLookup, "w_send_block_code",
@@ -125,10 +126,25 @@ public final class TenetWindowsBinding {
                 FunctionDescriptor.of(ValueLayout.JAVA_INT));
     }
 
+    /**
+     *   Optional gather write function, resolved when first used, absent in older tenet libraries
+     */
+    private static final class Sendv {
+        private static final MethodHandle sendvMethodHandle = NativeUtil.optionalMethodHandle(symbolLookup, "w_send_v",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS, ValueLayout.JAVA_INT), Linker.Option.critical(false));
+    }
+
     private TenetWindowsBinding() {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     *   Return if current tenet library exports w_send_v
+     */
+    public static boolean sendvSupported() {
+        return Sendv.sendvMethodHandle != null;
+    }
+
     public static int connectBlockCode() {
         try{
             return (int) connectBlockCodeMethodHandle.invokeExact();
@@ -416,4 +432,12 @@ public final class TenetWindowsBinding {
             throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
         }
     }
+
+    public static int sendv(long socket, MemorySegment buffers, int count) {
+        try{
+            return (int) Sendv.sendvMethodHandle.invokeExact(socket, buffers, count);
+        }catch (Throwable throwable) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED, throwable);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package cn.zorcc.common.network;
+
+import java.util.List;
+
+/**
+ *   Used as poller msg for mounting a SO_REUSEPORT listening socket, each poller would accept connections on its own
+ */
+public record AcceptorTask(
+        ListenerTask listenerTask,
+        Poller poller,
+        List<Writer> writers
+) {
+}
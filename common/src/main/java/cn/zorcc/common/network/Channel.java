@@ -1,15 +1,21 @@
 package cn.zorcc.common.network;
 
+import cn.zorcc.common.Clock;
 import cn.zorcc.common.Constants;
 import cn.zorcc.common.ExceptionType;
 import cn.zorcc.common.exception.FrameworkException;
 import cn.zorcc.common.log.Logger;
-import cn.zorcc.common.structure.Wheel;
+import cn.zorcc.common.structure.MemApi;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public sealed interface Channel permits Channel.ChannelImpl {
     /**
@@ -50,7 +56,7 @@ public sealed interface Channel permits Channel.ChannelImpl {
     Handler handler();
 
     /**
-     *   Get the underlying poller associated with this channel
+     *   Get the underlying poller associated with this channel, it might be changed when the channel was migrated by the rebalancer
      */
     Poller poller();
 
@@ -59,10 +65,27 @@ public sealed interface Channel permits Channel.ChannelImpl {
      */
     Writer writer();
 
+    /**
+     *   Get the underlying socketConfig associated with this channel
+     */
+    SocketConfig socketConfig();
+
+    /**
+     *   Return if the bytes queued in writer are below the high water mark, this method could be invoked from any thread
+     *   It's only a hint for producers, msgs sent when unwritable would still be queued
+     */
+    boolean isWritable();
+
+    /**
+     *   Return a snapshot of current channel's counters, this method could be invoked from any thread
+     */
+    ChannelStats stats();
+
     /**
      *   Get the underlying loc associated with this channel
      *   For client, it represents the remote server address
      *   For server, it represents the remote client address
+     *   For datagram channel, it represents the local bound address, peers were carried by each Datagram
      */
     Loc loc();
 
@@ -86,6 +109,27 @@ public sealed interface Channel permits Channel.ChannelImpl {
         sendMultipleMsg(msgs, null);
     }
 
+    /**
+     *   Send a region of a file over the channel, the data would be transferred by the kernel using sendfile() instead of being encoded into a WriteBuffer
+     *   The file would be opened in the caller thread, and msgs sent before and after it would keep their order, only supported on Linux and macOS
+     *   For TLS channels, the file would be read and written in chunks since the data must be encrypted in user-space, unless the encryption has been offloaded to the kernel
+     */
+    void sendFile(Path path, long offset, long length, WriterCallback writerCallback);
+
+    default void sendFile(Path path, WriterCallback writerCallback) {
+        long length;
+        try{
+            length = Files.size(path);
+        }catch (IOException e) {
+            throw new FrameworkException(ExceptionType.NETWORK, STR."Unable to access file : \{path}", e);
+        }
+        sendFile(path, 0L, length, writerCallback);
+    }
+
+    default void sendFile(Path path) {
+        sendFile(path, null);
+    }
+
     /**
      *   Send a tagged msg over the channel, the sender must be a virtual thread, and tag must be a heap segment
      *   the response will automatically awaken the caller thread, or failed with timeout
@@ -123,8 +167,8 @@ public sealed interface Channel permits Channel.ChannelImpl {
     /**
      *   When the channel was first created, the state must be NET_W
      */
-    static Channel newChannel(Socket socket, Encoder encoder, Decoder decoder, Handler handler, Poller poller, Writer writer, Loc loc) {
-        return new ChannelImpl(socket, encoder, decoder, handler, poller, writer, loc, new AtomicBoolean(false));
+    static Channel newChannel(Socket socket, Encoder encoder, Decoder decoder, Handler handler, Poller poller, Writer writer, Loc loc, SocketConfig socketConfig) {
+        return new ChannelImpl(socket, encoder, decoder, handler, new AtomicReference<>(poller), writer, loc, socketConfig, new AtomicBoolean(false), new AtomicBoolean(true), new AtomicLong(Clock.nano()), new Counters(ChannelStats.SIZE));
     }
 
     record ChannelImpl(
@@ -132,19 +176,45 @@ public sealed interface Channel permits Channel.ChannelImpl {
             Encoder encoder,
             Decoder decoder,
             Handler handler,
-            Poller poller,
+            AtomicReference<Poller> pollerRef,
             Writer writer,
             Loc loc,
-            AtomicBoolean st
+            SocketConfig socketConfig,
+            AtomicBoolean st,
+            AtomicBoolean writable,
+            AtomicLong lastWrite,
+            Counters counters
     ) implements Channel {
         private static final Logger log = new Logger(ChannelImpl.class);
 
+        @Override
+        public Poller poller() {
+            return pollerRef.get();
+        }
+
+        @Override
+        public boolean isWritable() {
+            return writable.get();
+        }
+
+        @Override
+        public ChannelStats stats() {
+            return ChannelStats.of(this, counters);
+        }
+
+        /**
+         *   Migrate current channel to another poller, must be invoked by the current poller thread with the mutex held
+         */
+        void migrate(Poller target) {
+            pollerRef.set(target);
+        }
+
         @Override
         public void sendMsg(Object msg, WriterCallback writerCallback) {
             if(msg == null) {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
-            writer.submit(new WriterTask(WriterTaskType.SINGLE_MSG, this, msg, writerCallback));
+            writer.submitMsg(WriterTaskType.SINGLE_MSG, this, msg, writerCallback);
         }
 
         @Override
@@ -152,7 +222,19 @@ public sealed interface Channel permits Channel.ChannelImpl {
             if(msgs == null || msgs.isEmpty()) {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
-            writer.submit(new WriterTask(WriterTaskType.MULTIPLE_MSG, this, msgs, writerCallback));
+            writer.submitMsg(WriterTaskType.MULTIPLE_MSG, this, msgs, writerCallback);
+        }
+
+        @Override
+        public void sendFile(Path path, long offset, long length, WriterCallback writerCallback) {
+            if(path == null || offset < 0L || length <= 0L) {
+                throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+            }
+            int fd = OsNetworkLibrary.CURRENT.openFile(path.toAbsolutePath().toString(), MemApi.DEFAULT);
+            if(fd < 0) {
+                throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to open file : \{path}, errno : \{Math.abs(fd)}");
+            }
+            writer.submit(new WriterTask(WriterTaskType.FILE, this, new FileRegion(fd, offset, length), writerCallback));
         }
 
         @Override
@@ -188,40 +270,16 @@ public sealed interface Channel permits Channel.ChannelImpl {
         }
 
         private Object sendMsgWithTimeout(Object msg, MemorySegment tag, Duration timeout) {
-            TagWithRef t = new TagWithRef(tag);
-            Duration d = timeout == null ? defaultSendTimeoutDuration : timeout;
-            poller.submit(new PollerTask(PollerTaskType.REGISTER, this, t));
-            writer.submit(new WriterTask(WriterTaskType.SINGLE_MSG, this, msg, new WriterCallback() {
-                @Override
-                public void onSuccess(Channel channel) {
-                    Wheel.wheel().addJob(() -> channel.poller().submit(new PollerTask(PollerTaskType.UNREGISTER, channel, t)), d);
-                }
-
-                @Override
-                public void onFailure(Channel channel) {
-                    t.ref().assign(FAILED);
-                    poller.submit(new PollerTask(PollerTaskType.UNREGISTER, channel, t));
-                }
-            }));
+            TagWithRef t = new TagWithRef(tag, timeout == null ? defaultSendTimeoutDuration : timeout);
+            poller().submit(new PollerTask(PollerTaskType.REGISTER, this, t));
+            writer.submitMsg(WriterTaskType.SINGLE_MSG, this, msg, t);
             return t.ref().fetch();
         }
 
         private Object sendMultipleMsgWithTimeout(Collection<Object> msgs, MemorySegment tag, Duration timeout) {
-            TagWithRef t = new TagWithRef(tag);
-            Duration d = timeout == null ? defaultSendTimeoutDuration : timeout;
-            poller.submit(new PollerTask(PollerTaskType.REGISTER, this, t));
-            writer.submit(new WriterTask(WriterTaskType.MULTIPLE_MSG, this, msgs, new WriterCallback() {
-                @Override
-                public void onSuccess(Channel channel) {
-                    Wheel.wheel().addJob(() -> channel.poller().submit(new PollerTask(PollerTaskType.UNREGISTER, channel, t)), d);
-                }
-
-                @Override
-                public void onFailure(Channel channel) {
-                    t.ref().assign(FAILED);
-                    poller.submit(new PollerTask(PollerTaskType.UNREGISTER, channel, t));
-                }
-            }));
+            TagWithRef t = new TagWithRef(tag, timeout == null ? defaultSendTimeoutDuration : timeout);
+            poller().submit(new PollerTask(PollerTaskType.REGISTER, this, t));
+            writer.submitMsg(WriterTaskType.MULTIPLE_MSG, this, msgs, t);
             return t.ref().fetch();
         }
 
@@ -0,0 +1,471 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.AbstractLifeCycle;
+import cn.zorcc.common.Clock;
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.exception.FrameworkException;
+import cn.zorcc.common.log.Logger;
+import cn.zorcc.common.structure.Wheel;
+import cn.zorcc.common.util.ConfigUtil;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ *   ChannelPool keeps reusable client channels established by Net.connect(), channels are grouped by their Loc and Provider
+ *   Acquiring would block the caller until a channel is available or timeout, it's based on ReentrantLock instead of synchronized, so virtual threads would not be pinned
+ *   Idle eviction, health check and refilling to minSize are performed periodically by the global timer wheel
+ *   Health checks are always performed without holding the partition lock, and a failed connect would suspend connecting to the same partition for reconnectBackoff
+ *   A channel acquired must be released back exactly once, or shut down by the caller if it's no longer usable
+ */
+public final class ChannelPool extends AbstractLifeCycle {
+    private static final Logger log = new Logger(ChannelPool.class);
+    private final Net net;
+    private final ChannelPoolConfig config;
+    private final Map<Key, Partition> partitions = new ConcurrentHashMap<>();
+    /**
+     *   The partition of each connected channel, used for releasing
+     */
+    private final Map<Channel, Partition> owners = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+    private Runnable evictionCanceller;
+
+    public ChannelPool(Net net, ChannelPoolConfig config) {
+        this.net = Objects.requireNonNull(net);
+        this.config = Objects.requireNonNull(config);
+    }
+
+    private record Key(
+            Loc loc,
+            Provider provider
+    ) {
+
+    }
+
+    private record Idle(
+            Channel channel,
+            long since
+    ) {
+
+    }
+
+    @Override
+    protected void doInit() {
+        Objects.requireNonNull(config.getEncoderSupplier());
+        Objects.requireNonNull(config.getDecoderSupplier());
+        Objects.requireNonNull(config.getHandlerSupplier());
+        Objects.requireNonNull(config.getProvider());
+        Objects.requireNonNull(config.getSocketConfig());
+        if(config.getReconnectBackoff().isNegative()) {
+            throw new FrameworkException(ExceptionType.NETWORK, "Invalid reconnect backoff");
+        }
+        ConfigUtil.checkParam(config.getMaxSize(), 0, 65536);
+        ConfigUtil.checkParam(config.getMinSize(), -1, config.getMaxSize() + 1);
+        Duration interval = config.getEvictionInterval();
+        evictionCanceller = Wheel.wheel().addPeriodicJob(this::evict, interval, interval);
+        for (Loc loc : config.getPrewarmLocs()) {
+            prewarm(loc, config.getProvider());
+        }
+    }
+
+    @Override
+    protected void doExit() {
+        closed = true;
+        if(evictionCanceller != null) {
+            evictionCanceller.run();
+        }
+        for (Partition partition : partitions.values()) {
+            partition.close();
+        }
+    }
+
+    /**
+     *   Connect to target loc until there are minSize channels, this method would not wait for the channels to be connected
+     */
+    public void prewarm(Loc loc, Provider provider) {
+        partition(loc, provider).maintain(Clock.nano());
+    }
+
+    /**
+     *   Acquire a channel connected to target loc with target provider, a new channel would be created if there is no idle channel and maxSize is not reached
+     *   Throw a FrameworkException if no channel could be acquired during the timeout
+     */
+    public Channel acquire(Loc loc, Provider provider, Duration timeout) {
+        if(closed) {
+            throw new FrameworkException(ExceptionType.NETWORK, "ChannelPool has been closed");
+        }
+        try{
+            return partition(loc, provider).acquire(timeout.toNanos());
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException(ExceptionType.NETWORK, STR."Acquiring channel for \{loc} was interrupted");
+        }
+    }
+
+    public Channel acquire(Loc loc, Provider provider) {
+        return acquire(loc, provider, config.getAcquireTimeout());
+    }
+
+    public Channel acquire(Loc loc) {
+        return acquire(loc, config.getProvider(), config.getAcquireTimeout());
+    }
+
+    /**
+     *   Release a channel back to the pool, channels already removed or not belonging to current pool would be ignored
+     */
+    public void release(Channel channel) {
+        Partition partition = owners.get(channel);
+        if(partition != null) {
+            partition.release(channel);
+        }
+    }
+
+    private Partition partition(Loc loc, Provider provider) {
+        return partitions.computeIfAbsent(new Key(Objects.requireNonNull(loc), Objects.requireNonNull(provider)), key -> new Partition(key.loc(), key.provider()));
+    }
+
+    private void evict() {
+        long now = Clock.nano();
+        for (Partition partition : partitions.values()) {
+            try{
+                partition.maintain(now);
+            }catch (RuntimeException e) {
+                log.error("Err occurred when maintaining channel pool", e);
+            }
+        }
+    }
+
+    private boolean isHealthy(Channel channel) {
+        Predicate<Channel> healthCheck = config.getHealthCheck();
+        if(healthCheck == null) {
+            return true;
+        }
+        try{
+            return healthCheck.test(channel);
+        }catch (RuntimeException e) {
+            log.error("Err occurred in health check", e);
+            return false;
+        }
+    }
+
+    private static void discard(List<Channel> discarded) {
+        if(discarded != null) {
+            discarded.forEach(Channel::shutdown);
+        }
+    }
+
+    /**
+     *   Channels for a single Loc and Provider, all the states are guarded by the lock
+     */
+    private final class Partition {
+        private final Loc loc;
+        private final Provider provider;
+        private final Lock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        /**
+         *   Idle channels, the most recently released one is at the head, so that cold channels could be evicted from the tail
+         */
+        private final Deque<Idle> idles = new ArrayDeque<>();
+        /**
+         *   All the connected channels, including the idle and borrowed ones
+         */
+        private final Set<Channel> channels = new HashSet<>();
+        private final Set<Channel> borrowed = new HashSet<>();
+        private int connecting = 0;
+        private int waiters = 0;
+        /**
+         *   Timestamp when the last connect failed, only valid if failed is true, it's cleared once a channel got connected
+         */
+        private boolean failed = false;
+        private long failedAt;
+
+        private Partition(Loc loc, Provider provider) {
+            this.loc = loc;
+            this.provider = provider;
+        }
+
+        private Channel acquire(long nanos) throws InterruptedException {
+            List<Channel> discarded = null;
+            lock.lock();
+            try{
+                waiters++;
+                try{
+                    for( ; ; ) {
+                        Idle idle = idles.pollFirst();
+                        if(idle != null) {
+                            Channel channel = idle.channel();
+                            // reserve the channel so it can't be taken by others during the check
+                            borrowed.add(channel);
+                            boolean healthy;
+                            lock.unlock();
+                            try{
+                                healthy = isHealthy(channel);
+                            }finally {
+                                lock.lock();
+                            }
+                            if(!borrowed.contains(channel)) {
+                                // the channel was removed or the partition was closed during the check
+                                continue;
+                            }
+                            if(healthy) {
+                                return channel;
+                            }
+                            if(discarded == null) {
+                                discarded = new ArrayList<>();
+                            }
+                            discarded.add(channel);
+                            remove(channel);
+                            continue;
+                        }
+                        long backoff = backoff(Clock.nano());
+                        if(backoff > 0L && connecting == 0 && channels.isEmpty()) {
+                            throw new FrameworkException(ExceptionType.NETWORK, STR."Connecting to \{loc} failed recently, retry after backoff");
+                        }
+                        if(backoff <= 0L && connecting < waiters && connecting + channels.size() < config.getMaxSize()) {
+                            connecting++;
+                            lock.unlock();
+                            try{
+                                connect();
+                            }finally {
+                                lock.lock();
+                            }
+                            continue;
+                        }
+                        if(nanos <= 0L) {
+                            throw new FrameworkException(ExceptionType.NETWORK, STR."Acquiring channel for \{loc} timeout");
+                        }
+                        // wake up when the backoff ends, so that a new connect could be started
+                        long wait = backoff > 0L ? Math.min(nanos, backoff) : nanos;
+                        nanos -= wait - available.awaitNanos(wait);
+                    }
+                }finally {
+                    waiters--;
+                }
+            }finally {
+                lock.unlock();
+                discard(discarded);
+            }
+        }
+
+        private void release(Channel channel) {
+            lock.lock();
+            try{
+                if(borrowed.remove(channel)) {
+                    idles.addFirst(new Idle(channel, Clock.nano()));
+                    available.signal();
+                }
+            }finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         *   Return the remaining nanos of current reconnect backoff, or a non-positive value if connecting is allowed, the lock must be held
+         */
+        private long backoff(long now) {
+            return failed ? config.getReconnectBackoff().toNanos() - (now - failedAt) : 0L;
+        }
+
+        /**
+         *   Evict idle channels exceeding minSize and unhealthy ones, then start connecting the missing channels
+         *   Health checks are performed on a snapshot of idle channels outside the lock, channels borrowed during the check would be left to the borrower's own check
+         */
+        private void maintain(long now) {
+            List<Channel> discarded = new ArrayList<>();
+            List<Channel> candidates = new ArrayList<>();
+            int missing;
+            lock.lock();
+            try{
+                long idleNanos = config.getIdleTimeout().toNanos();
+                Iterator<Idle> iterator = idles.descendingIterator();
+                while (iterator.hasNext()) {
+                    Idle idle = iterator.next();
+                    Channel channel = idle.channel();
+                    if(now - idle.since() > idleNanos && channels.size() > config.getMinSize()) {
+                        iterator.remove();
+                        channels.remove(channel);
+                        owners.remove(channel);
+                        discarded.add(channel);
+                    }else {
+                        candidates.add(channel);
+                    }
+                }
+            }finally {
+                lock.unlock();
+            }
+            List<Channel> unhealthy = candidates.stream().filter(channel -> !isHealthy(channel)).toList();
+            lock.lock();
+            try{
+                for (Channel channel : unhealthy) {
+                    if(idles.removeIf(idle -> idle.channel() == channel)) {
+                        remove(channel);
+                        discarded.add(channel);
+                    }
+                }
+                missing = closed || backoff(now) > 0L ? 0 : Math.max(config.getMinSize() - channels.size() - connecting, 0);
+                connecting += missing;
+            }finally {
+                lock.unlock();
+            }
+            discard(discarded);
+            for(int i = 0; i < missing; i++) {
+                try{
+                    connect();
+                }catch (RuntimeException e) {
+                    log.error(STR."Failed to connect to \{loc} for channel pool", e);
+                }
+            }
+        }
+
+        /**
+         *   Start connecting a new channel, connecting must be increased before calling this method, and the lock must not be held
+         */
+        private void connect() {
+            try{
+                Handler handler = new PooledHandler(this, config.getHandlerSupplier().get());
+                net.connect(loc, config.getEncoderSupplier().get(), config.getDecoderSupplier().get(), handler, provider, config.getSocketConfig(), config.getConnectTimeout());
+            }catch (RuntimeException e) {
+                onFailed();
+                throw e;
+            }
+        }
+
+        private void onConnected(Channel channel) {
+            lock.lock();
+            try{
+                connecting--;
+                failed = false;
+                if(!closed) {
+                    channels.add(channel);
+                    owners.put(channel, this);
+                    idles.addFirst(new Idle(channel, Clock.nano()));
+                    available.signal();
+                    return ;
+                }
+            }finally {
+                lock.unlock();
+            }
+            channel.shutdown();
+        }
+
+        private void onFailed() {
+            lock.lock();
+            try{
+                connecting--;
+                failed = true;
+                failedAt = Clock.nano();
+                // waiters would fail fast if there is nothing else to wait for, or wait until the backoff ends
+                available.signalAll();
+            }finally {
+                lock.unlock();
+            }
+        }
+
+        private void onRemoved(Channel channel) {
+            lock.lock();
+            try{
+                if(channels.contains(channel)) {
+                    remove(channel);
+                    idles.removeIf(idle -> idle.channel() == channel);
+                    available.signal();
+                }
+            }finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(Channel channel) {
+            channels.remove(channel);
+            borrowed.remove(channel);
+            owners.remove(channel);
+        }
+
+        private void close() {
+            List<Channel> discarded;
+            lock.lock();
+            try{
+                discarded = new ArrayList<>(channels);
+                channels.clear();
+                borrowed.clear();
+                idles.clear();
+                discarded.forEach(owners::remove);
+                available.signalAll();
+            }finally {
+                lock.unlock();
+            }
+            discard(discarded);
+        }
+    }
+
+    /**
+     *   Handler wrapper for tracking the lifecycle of pooled channels, all the events would be delegated to the actual handler
+     */
+    private record PooledHandler(
+            Partition partition,
+            Handler handler
+    ) implements Handler {
+        @Override
+        public void onFailed(Channel channel) {
+            try{
+                handler.onFailed(channel);
+            }finally {
+                partition.onFailed();
+            }
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+            // if the actual handler throws, the poller would close the channel and invoke onFailed(), which decreases the connecting count
+            handler.onConnected(channel);
+            partition.onConnected(channel);
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            return handler.onRecv(channel, data);
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+            handler.onShutdown(channel);
+        }
+
+        @Override
+        public void onWritabilityChanged(Channel channel, boolean writable) {
+            handler.onWritabilityChanged(channel, writable);
+        }
+
+        @Override
+        public void onReadIdle(Channel channel) {
+            handler.onReadIdle(channel);
+        }
+
+        @Override
+        public void onWriteIdle(Channel channel) {
+            handler.onWriteIdle(channel);
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+            try{
+                handler.onRemoved(channel);
+            }finally {
+                partition.onRemoved(channel);
+            }
+        }
+    }
+}
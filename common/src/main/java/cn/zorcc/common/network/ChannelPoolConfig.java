@@ -0,0 +1,195 @@
+package cn.zorcc.common.network;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public final class ChannelPoolConfig {
+
+    /**
+     *   How pool should provide encoder for each pooled channel, must be non-null
+     */
+    private Supplier<Encoder> encoderSupplier;
+
+    /**
+     *   How pool should provide decoder for each pooled channel, must be non-null
+     */
+    private Supplier<Decoder> decoderSupplier;
+
+    /**
+     *   How pool should provide handler for each pooled channel, must be non-null
+     */
+    private Supplier<Handler> handlerSupplier;
+
+    /**
+     *   Default provider used for pre-warming and acquiring without specifying a provider, Net.tcpProvider() and Net.sslProvider() are recommended to use
+     */
+    private Provider provider = Net.tcpProvider();
+
+    /**
+     *   Socket options for pooled channels
+     */
+    private SocketConfig socketConfig = new SocketConfig();
+
+    /**
+     *   Min channels kept for each Loc and Provider, the pool would refill the missing channels in each eviction round
+     */
+    private int minSize = 1;
+
+    /**
+     *   Max channels for each Loc and Provider, including the ones still connecting
+     */
+    private int maxSize = 8;
+
+    /**
+     *   Default timeout for acquiring a channel from the pool
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+
+    /**
+     *   Timeout for establishing a new channel, including the TLS handshake
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     *   After a failed connect, no new channel would be connected for the same Loc and Provider during reconnectBackoff
+     *   Acquiring during it would fail fast if there is no channel to wait for, Duration.ZERO means reconnecting immediately
+     */
+    private Duration reconnectBackoff = Duration.ofSeconds(1);
+
+    /**
+     *   Idle channels exceeding minSize would be shut down if they were not used for idleTimeout
+     */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+
+    /**
+     *   Interval for checking idle channels, it's driven by the global timer wheel, so it must be larger than the wheel's tick
+     */
+    private Duration evictionInterval = Duration.ofSeconds(5);
+
+    /**
+     *   Health check for idle channels, invoked when acquiring and in each eviction round, channels failed the check would be shut down
+     *   It's invoked in the acquiring thread or the wheel thread without holding the pool's lock, so it must not block, null means every channel is considered healthy
+     *   An idle channel might be checked by acquiring and eviction at the same time, so it must be thread-safe
+     */
+    private Predicate<Channel> healthCheck;
+
+    /**
+     *   Locs to be connected with the default provider when the pool got initialized, so the first requests would not pay for the connect latency
+     */
+    private List<Loc> prewarmLocs = new ArrayList<>();
+
+    public Supplier<Encoder> getEncoderSupplier() {
+        return encoderSupplier;
+    }
+
+    public void setEncoderSupplier(Supplier<Encoder> encoderSupplier) {
+        this.encoderSupplier = encoderSupplier;
+    }
+
+    public Supplier<Decoder> getDecoderSupplier() {
+        return decoderSupplier;
+    }
+
+    public void setDecoderSupplier(Supplier<Decoder> decoderSupplier) {
+        this.decoderSupplier = decoderSupplier;
+    }
+
+    public Supplier<Handler> getHandlerSupplier() {
+        return handlerSupplier;
+    }
+
+    public void setHandlerSupplier(Supplier<Handler> handlerSupplier) {
+        this.handlerSupplier = handlerSupplier;
+    }
+
+    public Provider getProvider() {
+        return provider;
+    }
+
+    public void setProvider(Provider provider) {
+        this.provider = provider;
+    }
+
+    public SocketConfig getSocketConfig() {
+        return socketConfig;
+    }
+
+    public void setSocketConfig(SocketConfig socketConfig) {
+        this.socketConfig = socketConfig;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public void setAcquireTimeout(Duration acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReconnectBackoff() {
+        return reconnectBackoff;
+    }
+
+    public void setReconnectBackoff(Duration reconnectBackoff) {
+        this.reconnectBackoff = reconnectBackoff;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(Duration evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+
+    public Predicate<Channel> getHealthCheck() {
+        return healthCheck;
+    }
+
+    public void setHealthCheck(Predicate<Channel> healthCheck) {
+        this.healthCheck = healthCheck;
+    }
+
+    public List<Loc> getPrewarmLocs() {
+        return prewarmLocs;
+    }
+
+    public void setPrewarmLocs(List<Loc> prewarmLocs) {
+        this.prewarmLocs = prewarmLocs;
+    }
+}
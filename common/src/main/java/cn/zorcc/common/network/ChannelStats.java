@@ -0,0 +1,20 @@
+package cn.zorcc.common.network;
+
+/**
+ *   Snapshot of a channel's counters, bytesIn is updated by the poller, bytesOut and pendingBytes are updated by the writer
+ */
+public record ChannelStats(
+        Channel channel,
+        long bytesIn,
+        long bytesOut,
+        long pendingBytes
+) {
+    static final int BYTES_IN = 0;
+    static final int BYTES_OUT = 1;
+    static final int PENDING_BYTES = 2;
+    static final int SIZE = 3;
+
+    static ChannelStats of(Channel channel, Counters counters) {
+        return new ChannelStats(channel, counters.get(BYTES_IN), counters.get(BYTES_OUT), counters.get(PENDING_BYTES));
+    }
+}
@@ -0,0 +1,29 @@
+package cn.zorcc.common.network;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ *   A group of counters, each counter must only be updated by a single thread, while they could be read from any thread
+ *   Counters are published with opaque access, updating them costs no more than a plain field write, and readers would never see a torn value
+ */
+final class Counters {
+    private static final VarHandle handle = MethodHandles.arrayElementVarHandle(long[].class);
+    private final long[] values;
+
+    Counters(int size) {
+        this.values = new long[size];
+    }
+
+    void increase(int index) {
+        handle.setOpaque(values, index, values[index] + 1L);
+    }
+
+    void add(int index, long delta) {
+        handle.setOpaque(values, index, values[index] + delta);
+    }
+
+    long get(int index) {
+        return (long) handle.getOpaque(values, index);
+    }
+}
@@ -0,0 +1,12 @@
+package cn.zorcc.common.network;
+
+/**
+ *   Datagram wraps a msg with its peer address for datagram channels
+ *   For received datagrams, each entity produced by the decoder would be wrapped with the sender's loc before passed to Handler's onRecv()
+ *   For sending, msgs sent over a datagram channel must be Datagram, the msg would be encoded by the channel's encoder into a single datagram to the target loc
+ */
+public record Datagram(
+        Loc loc,
+        Object msg
+) {
+}
@@ -0,0 +1,18 @@
+package cn.zorcc.common.network;
+
+/**
+ *   A region of an opened file to be transferred over the channel, the file descriptor is owned by the writer once submitted
+ *   It would be closed after the whole region has been transferred or the channel has been closed
+ */
+public record FileRegion(
+        int fd,
+        long offset,
+        long length
+) {
+    /**
+     *   Return the remaining region after count bytes were transferred
+     */
+    public FileRegion advance(long count) {
+        return new FileRegion(fd, offset + count, length - count);
+    }
+}
@@ -35,6 +35,31 @@ public interface Handler {
      */
     void onShutdown(Channel channel);
 
+    /**
+     *   When the channel's writability changed because of its queued bytes crossing the water marks, this function would be invoked in writer thread
+     *   Developers could stop producing msgs when the channel is unwritable, and resume when it becomes writable again
+     *   If a RuntimeException was thrown in this function, it would only be recorded in log
+     */
+    default void onWritabilityChanged(Channel channel, boolean writable) {
+        // No action by default
+    }
+
+    /**
+     *   When no data has been received for SocketConfig's readIdleTimeout, this function would be invoked in poller thread, and it would be invoked again for each following idle period
+     *   If a RuntimeException was thrown in this function, the channel would be immediately closed to guard the application
+     */
+    default void onReadIdle(Channel channel) {
+        // No action by default
+    }
+
+    /**
+     *   When no msg has been written for SocketConfig's writeIdleTimeout, this function would be invoked in poller thread, and it would be invoked again for each following idle period
+     *   It's usually used for sending heartbeat msg, if a RuntimeException was thrown in this function, the channel would be immediately closed to guard the application
+     */
+    default void onWriteIdle(Channel channel) {
+        // No action by default
+    }
+
     /**
      *   After connection was closed, this function would be invoked
      *   Note that you can't expect sending some data in this function, since the connection has already been closed
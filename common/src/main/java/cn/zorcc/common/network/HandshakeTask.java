@@ -0,0 +1,11 @@
+package cn.zorcc.common.network;
+
+/**
+ *   Used as poller msg for posting the result of an offloaded handshake step, throwable would be non-null if the step failed
+ */
+public record HandshakeTask(
+        PollerNode node,
+        int result,
+        RuntimeException throwable
+) {
+}
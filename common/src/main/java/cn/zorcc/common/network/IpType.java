@@ -1,9 +1,11 @@
 package cn.zorcc.common.network;
 
 /**
- *   IP type enum, currently IPV4 or IPV6
+ *   IP type enum, currently IPV4, IPV6 or UNIX
+ *   UNIX represents an AF_UNIX stream socket, for which Loc's ip would be the socket file path, and port would be ignored
  */
 public enum IpType {
     IPV4,
-    IPV6
+    IPV6,
+    UNIX
 }
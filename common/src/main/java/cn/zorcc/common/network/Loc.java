@@ -6,6 +6,7 @@ import cn.zorcc.common.exception.FrameworkException;
 
 /**
  *  Ipv4 or Ipv6 address, Note that port is a number between 0 and 65535, in C normally represented as u_short, but in java there is no unsigned number, so here we did some transformation
+ *  For unix domain socket, ip would be the socket file path, and port would always be 0
  */
 public record Loc (
         IpType ipType,
@@ -21,6 +22,16 @@ public record Loc (
         this(ipType, Constants.EMPTY_STRING, port);
     }
 
+    /**
+     *   Create an unix domain socket address with target file path
+     */
+    public static Loc unix(String path) {
+        if(path == null || path.isBlank()) {
+            throw new FrameworkException(ExceptionType.NETWORK, "Unix socket path must not be empty");
+        }
+        return new Loc(IpType.UNIX, path, 0);
+    }
+
     /**
      *   Convert an int port to an unsigned short type, this method force retain the lower 16bits, the result could be negative
      */
@@ -33,6 +44,9 @@ public record Loc (
 
     @Override
     public String toString() {
+        if(ipType == IpType.UNIX) {
+            return STR."[unix:\{ip}]";
+        }
         return STR."[\{ip == null || ip.isBlank() ? "localhost" : ip}:\{port}]";
     }
 }
@@ -0,0 +1,10 @@
+package cn.zorcc.common.network;
+
+/**
+ *   Used as poller msg for migrating idle channels to the target poller
+ */
+public record MigrateTask(
+        Poller target,
+        int count
+) {
+}
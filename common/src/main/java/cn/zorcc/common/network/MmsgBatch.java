@@ -0,0 +1,126 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.structure.Allocator;
+import cn.zorcc.common.structure.MemApi;
+import cn.zorcc.common.util.NativeUtil;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ *   MmsgBatch holds a native array of struct mmsghdr along with their iovecs and socket addresses, used for recvmmsg() and sendmmsg() on Linux
+ *   Each message refers to a range of iovecs, so that several datagrams to the same peer could be sent as a single message with UDP GSO
+ *   MmsgBatch is owned by a single thread, it must be closed after using
+ */
+final class MmsgBatch implements AutoCloseable {
+    /**
+     *   MSG_TRUNC flag in msg_flags, indicates the datagram was larger than the buffer provided
+     */
+    static final int MSG_TRUNC = 0x20;
+    private static final MemoryLayout iovecLayout = MemoryLayout.structLayout(
+            ValueLayout.ADDRESS.withName("iov_base"),
+            ValueLayout.JAVA_LONG.withName("iov_len")
+    );
+    private static final MemoryLayout msghdrLayout = MemoryLayout.structLayout(
+            ValueLayout.ADDRESS.withName("msg_name"),
+            ValueLayout.JAVA_INT.withName("msg_namelen"),
+            MemoryLayout.paddingLayout(Integer.BYTES),
+            ValueLayout.ADDRESS.withName("msg_iov"),
+            ValueLayout.JAVA_LONG.withName("msg_iovlen"),
+            ValueLayout.ADDRESS.withName("msg_control"),
+            ValueLayout.JAVA_LONG.withName("msg_controllen"),
+            ValueLayout.JAVA_INT.withName("msg_flags"),
+            MemoryLayout.paddingLayout(Integer.BYTES)
+    );
+    private static final MemoryLayout mmsghdrLayout = MemoryLayout.structLayout(
+            msghdrLayout.withName("msg_hdr"),
+            ValueLayout.JAVA_INT.withName("msg_len"),
+            MemoryLayout.paddingLayout(Integer.BYTES)
+    );
+    private static final long iovecSize = iovecLayout.byteSize();
+    private static final long iovBaseOffset = iovecLayout.byteOffset(MemoryLayout.PathElement.groupElement("iov_base"));
+    private static final long iovLenOffset = iovecLayout.byteOffset(MemoryLayout.PathElement.groupElement("iov_len"));
+    private static final long mmsghdrSize = mmsghdrLayout.byteSize();
+    private static final long nameOffset = mmsghdrLayout.byteOffset(MemoryLayout.PathElement.groupElement("msg_hdr"), MemoryLayout.PathElement.groupElement("msg_name"));
+    private static final long nameLenOffset = mmsghdrLayout.byteOffset(MemoryLayout.PathElement.groupElement("msg_hdr"), MemoryLayout.PathElement.groupElement("msg_namelen"));
+    private static final long iovOffset = mmsghdrLayout.byteOffset(MemoryLayout.PathElement.groupElement("msg_hdr"), MemoryLayout.PathElement.groupElement("msg_iov"));
+    private static final long iovLenCountOffset = mmsghdrLayout.byteOffset(MemoryLayout.PathElement.groupElement("msg_hdr"), MemoryLayout.PathElement.groupElement("msg_iovlen"));
+    private static final long flagsOffset = mmsghdrLayout.byteOffset(MemoryLayout.PathElement.groupElement("msg_hdr"), MemoryLayout.PathElement.groupElement("msg_flags"));
+    private static final long msgLenOffset = mmsghdrLayout.byteOffset(MemoryLayout.PathElement.groupElement("msg_len"));
+
+    private final Allocator allocator;
+    private final MemorySegment msgs;
+    private final MemorySegment iovs;
+    private final MemorySegment addrs;
+    private final long addrSize;
+
+    MmsgBatch(MemApi memApi, int msgCount, int iovCount, long addrSize, long addrAlign) {
+        this.allocator = Allocator.newDirectAllocator(memApi);
+        this.msgs = allocator.allocate(MemoryLayout.sequenceLayout(msgCount, mmsghdrLayout));
+        this.iovs = allocator.allocate(MemoryLayout.sequenceLayout(iovCount, iovecLayout));
+        this.addrs = allocator.allocate(addrSize * msgCount, addrAlign);
+        this.addrSize = addrSize;
+        // msg_control and msg_flags must be zero
+        msgs.fill((byte) 0);
+    }
+
+    /**
+     *   Return the socket address of the target message
+     */
+    MemorySegment addr(int index) {
+        return addrs.asSlice(index * addrSize, addrSize);
+    }
+
+    /**
+     *   Point the target iovec to data
+     */
+    void setIov(int index, MemorySegment data) {
+        NativeUtil.setAddress(iovs, index * iovecSize + iovBaseOffset, data);
+        NativeUtil.setLong(iovs, index * iovecSize + iovLenOffset, data.byteSize());
+    }
+
+    /**
+     *   Set the target message with its socket address and iovecs ranging from iovIndex to iovIndex + iovCount
+     */
+    void setMsg(int index, int iovIndex, int iovCount) {
+        long offset = index * mmsghdrSize;
+        NativeUtil.setAddress(msgs, offset + nameOffset, addrs.asSlice(index * addrSize, addrSize));
+        NativeUtil.setInt(msgs, offset + nameLenOffset, (int) addrSize);
+        NativeUtil.setAddress(msgs, offset + iovOffset, iovs.asSlice(iovIndex * iovecSize, iovCount * iovecSize));
+        NativeUtil.setLong(msgs, offset + iovLenCountOffset, iovCount);
+    }
+
+    /**
+     *   Restore the socket address length of the target message, which would be overwritten by recvmmsg()
+     */
+    void resetAddrLen(int index) {
+        NativeUtil.setInt(msgs, index * mmsghdrSize + nameLenOffset, (int) addrSize);
+    }
+
+    /**
+     *   Return the bytes transferred for the target message
+     */
+    int msgLen(int index) {
+        return NativeUtil.getInt(msgs, index * mmsghdrSize + msgLenOffset);
+    }
+
+    /**
+     *   Return the flags of the target received message
+     */
+    int msgFlags(int index) {
+        return NativeUtil.getInt(msgs, index * mmsghdrSize + flagsOffset);
+    }
+
+    /**
+     *   Return the messages starting from the target index
+     */
+    MemorySegment msgsFrom(int index) {
+        return index == 0 ? msgs : msgs.asSlice(index * mmsghdrSize);
+    }
+
+    @Override
+    public void close() {
+        allocator.close();
+    }
+}
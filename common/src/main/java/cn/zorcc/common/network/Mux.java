@@ -15,27 +15,35 @@ import java.lang.foreign.MemorySegment;
 public record Mux (
         MemorySegment winHandle,
         int epfd,
-        int kqfd
+        int kqfd,
+        boolean edgeTriggered
 ) {
     /**
      *   Create a Windows mux
      */
     public static Mux win(MemorySegment winHandle) {
-        return new Mux(winHandle, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        return new Mux(winHandle, Integer.MIN_VALUE, Integer.MIN_VALUE, false);
     }
 
     /**
      *   Create a Linux mux
      */
     public static Mux linux(int epfd) {
-        return new Mux(MemorySegment.NULL, epfd, Integer.MIN_VALUE);
+        return new Mux(MemorySegment.NULL, epfd, Integer.MIN_VALUE, false);
+    }
+
+    /**
+     *   Create a Linux mux using edge-triggered registration
+     */
+    public static Mux linuxEdgeTriggered(int epfd) {
+        return new Mux(MemorySegment.NULL, epfd, Integer.MIN_VALUE, true);
     }
 
     /**
      *   Create a macOS mux
      */
     public static Mux mac(int kqfd) {
-        return new Mux(MemorySegment.NULL, Integer.MIN_VALUE, kqfd);
+        return new Mux(MemorySegment.NULL, Integer.MIN_VALUE, kqfd, false);
     }
 
     @Override
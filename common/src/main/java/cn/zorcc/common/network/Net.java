@@ -4,7 +4,9 @@ import cn.zorcc.common.Clock;
 import cn.zorcc.common.Constants;
 import cn.zorcc.common.ExceptionType;
 import cn.zorcc.common.LifeCycle;
+import cn.zorcc.common.OsType;
 import cn.zorcc.common.bindings.TenetBinding;
+import cn.zorcc.common.bindings.TenetLinuxBinding;
 import cn.zorcc.common.exception.FrameworkException;
 import cn.zorcc.common.log.Logger;
 import cn.zorcc.common.structure.*;
@@ -14,16 +16,26 @@ import cn.zorcc.common.util.NativeUtil;
 import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -47,8 +59,11 @@ public final class Net implements LifeCycle {
     private final List<ListenerTask> pendingTasks = new CopyOnWriteArrayList<>();
     private final List<Poller> pollers;
     private final List<Writer> writers;
+    private final ExecutorService handshakeExecutor;
     private final Duration shutdownTimeout;
     private final Thread netThread;
+    private final Placement placement;
+    private Runnable rebalanceCanceller;
     private final TaskQueue<ListenerTask> netQueue;
     private int state;
 
@@ -57,7 +72,7 @@ public final class Net implements LifeCycle {
             MemApi memApi = config.isEnableRpMalloc() ? TenetBinding.rpMallocThreadInitialize() : MemApi.DEFAULT;
             int maxEvents = config.getMaxEvents();
             int timeout = config.getMuxTimeout();
-            IntMap<ListenerTask> listenerMap = IntMap.newTreeMap(config.getMapSize());
+            IntMap<ListenerTask> listenerMap = IntMap.newArrayMap(config.getMapSize());
             Set<Provider> serverProviders = new HashSet<>();
             try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
                 MemorySegment events = allocator.allocate(MemoryLayout.sequenceLayout(maxEvents, osNetworkLibrary.eventLayout()));
@@ -92,16 +107,20 @@ public final class Net implements LifeCycle {
                                 log.error(STR."Failed to accept connection on \{ serverLoc }", e);
                                 continue ;
                             }
+                            if(socketAndLoc == null) {
+                                continue ;
+                            }
                             Socket clientSocket = socketAndLoc.socket();
                             Loc clientLoc = socketAndLoc.loc();
                             int seq = counter++;
-                            Poller poller = pollers.get(seq % pollers.size());
-                            Writer writer = writers.get(seq % writers.size());
+                            Poller poller = placement.select(pollers, seq);
+                            Writer writer = config.isEnableThreadPerCore() ? poller.writer() : writers.get(Math.floorMod(seq, writers.size()));
                             Encoder encoder = listenerTask.encoderSupplier().get();
                             Decoder decoder = listenerTask.decoderSupplier().get();
                             Handler handler = listenerTask.handlerSupplier().get();
-                            Channel channel = Channel.newChannel(clientSocket, encoder, decoder, handler, poller, writer, clientLoc);
+                            Channel channel = Channel.newChannel(clientSocket, encoder, decoder, handler, poller, writer, clientLoc, listenerTask.socketConfig());
                             Sentry sentry = listenerTask.provider().create(channel);
+                            poller.load().increaseConnections();
                             poller.submit(new PollerTask(PollerTaskType.BIND, channel, sentry));
                             osNetworkLibrary.ctlMux(poller.mux(), clientSocket, Constants.NET_NONE, Constants.NET_W, memApi);
                         }else {
@@ -137,10 +156,34 @@ public final class Net implements LifeCycle {
         validateConfig(config);
         this.config = config;
         this.netQueue = new TaskQueue<>(config.getQueueSize());
-        this.pollers = IntStream.range(0, config.getPollerCount()).mapToObj(_ -> Poller.newPoller(config)).toList();
-        this.writers = IntStream.range(0, config.getWriterCount()).mapToObj(_ -> Writer.newWriter(config)).toList();
+        this.handshakeExecutor = config.getHandshakeThreads() > 0 ? createHandshakeExecutor(config) : null;
+        this.pollers = IntStream.range(0, config.getPollerCount()).mapToObj(i -> Poller.newPoller(config, cpuOf(config.getPollerCpus(), i), handshakeExecutor)).toList();
+        if(config.isEnableThreadPerCore()) {
+            // each poller owns its writer, pollers and writers share the same index so that channels are always bound to a single thread
+            this.writers = pollers.stream().map(Poller::writer).toList();
+        }else {
+            this.writers = IntStream.range(0, config.getWriterCount()).mapToObj(i -> Writer.newWriter(config, cpuOf(config.getWriterCpus(), i))).toList();
+        }
         this.shutdownTimeout = Duration.ofSeconds(config.getGracefulShutdownTimeout());
         this.netThread = createNetThread();
+        this.placement = Objects.requireNonNull(config.getPlacement());
+    }
+
+    /**
+     *   Create a bounded executor for TLS handshakes, it would reject new steps when the queue is full, so that the poller could perform them inline instead of blocking
+     */
+    private static ExecutorService createHandshakeExecutor(NetConfig config) {
+        AtomicInteger sequence = new AtomicInteger(0);
+        int threads = config.getHandshakeThreads();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getHandshakeQueueSize()),
+                r -> Thread.ofPlatform().name(STR."handshake-\{sequence.getAndIncrement()}").unstarted(r), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     *   Return the cpu for the index-th thread, -1 if no cpu was specified
+     */
+    private static int cpuOf(List<Integer> cpus, int index) {
+        return cpus.isEmpty() ? -1 : cpus.get(index % cpus.size());
     }
 
     private void validateConfig(NetConfig config) {
@@ -157,11 +200,76 @@ public final class Net implements LifeCycle {
         ConfigUtil.checkParam(config.getPollerQueueSize(), 0, 16 * Constants.KB);
         ConfigUtil.checkParam(config.getPollerMaxEvents(), 0, Constants.KB);
         ConfigUtil.checkParam(config.getPollerMuxTimeout(), 5, Integer.MAX_VALUE);
+        ConfigUtil.checkParam(config.getPollerBusySpin(), -1, 1_000_000);
         ConfigUtil.checkParam(config.getPollerBufferSize(), Constants.KB, 16 * Constants.MB);
         ConfigUtil.checkParam(config.getPollerMapSize(), 16, 16 * Constants.KB);
+        ConfigUtil.checkParam(config.getPollerChunkSize(), 64, 16 * Constants.MB);
+        ConfigUtil.checkParam(config.getPollerWheelSlots(), 0, 64 * Constants.KB);
+        if(Integer.bitCount(config.getPollerWheelSlots()) != 1) {
+            throw new FrameworkException(ExceptionType.CONFIG, "Poller wheel slots must be power of two");
+        }
+        ConfigUtil.checkParam(config.getPollerWheelTick(), 0, 1000);
         ConfigUtil.checkParam(config.getWriterCount(), 0, NativeUtil.getCpuCores());
+        ConfigUtil.checkParam(config.getWriterQueueSize(), 0, 64 * Constants.KB);
         ConfigUtil.checkParam(config.getWriterBufferSize(), Constants.KB, 16 * Constants.MB);
         ConfigUtil.checkParam(config.getPollerMapSize(), 16, 16 * Constants.KB);
+        if(config.isEnableReusePort() && NativeUtil.ostype() != OsType.Linux) {
+            throw new FrameworkException(ExceptionType.CONFIG, "SO_REUSEPORT mode is only supported on Linux");
+        }
+        if(config.isEnableReusePort() && !TenetLinuxBinding.reusePortSupported()) {
+            throw new FrameworkException(ExceptionType.CONFIG, "SO_REUSEPORT mode requires l_set_reuse_port exported by tenet library");
+        }
+        List<Integer> cpus = new ArrayList<>(Objects.requireNonNull(config.getPollerCpus()));
+        cpus.addAll(Objects.requireNonNull(config.getWriterCpus()));
+        if(!cpus.isEmpty()) {
+            if(NativeUtil.ostype() != OsType.Linux) {
+                throw new FrameworkException(ExceptionType.CONFIG, "CPU affinity is only supported on Linux");
+            }
+            if(cpus.stream().anyMatch(cpu -> cpu >= 0) && !TenetLinuxBinding.affinitySupported()) {
+                throw new FrameworkException(ExceptionType.CONFIG, "CPU affinity requires l_set_affinity and l_set_incoming_cpu exported by tenet library");
+            }
+            cpus.forEach(cpu -> ConfigUtil.checkParam(cpu, -1, NativeUtil.getCpuCores()));
+        }
+        if(config.isEnableIncomingCpu() && (!config.isEnableReusePort() || config.getPollerCpus().isEmpty())) {
+            throw new FrameworkException(ExceptionType.CONFIG, "SO_INCOMING_CPU requires SO_REUSEPORT mode and pinned pollers");
+        }
+        ConfigUtil.checkParam(config.getHandshakeThreads(), -1, 4 * NativeUtil.getCpuCores());
+        if(config.getHandshakeThreads() > 0) {
+            ConfigUtil.checkParam(config.getHandshakeQueueSize(), 0, 64 * Constants.KB);
+        }
+        ConfigUtil.checkParam(config.getRebalanceInterval(), -1, 3600);
+        if(config.getRebalanceInterval() > 0) {
+            ConfigUtil.checkParam(config.getRebalanceThreshold(), 0, Integer.MAX_VALUE);
+            if(config.isEnableThreadPerCore() || config.isEnableEdgeTriggered()) {
+                throw new FrameworkException(ExceptionType.CONFIG, "Rebalancing is not supported in thread-per-core or edge-triggered mode");
+            }
+        }
+    }
+
+    private static void validateSocketConfig(SocketConfig socketConfig) {
+        ConfigUtil.checkParam(socketConfig.getWriteBufferLowWaterMark(), -1, socketConfig.getWriteBufferHighWaterMark());
+        ConfigUtil.checkParam(socketConfig.getBusyPoll(), -1, 1_000_000);
+        ConfigUtil.checkParam(socketConfig.getReadIdleTimeout(), -1, 86400);
+        ConfigUtil.checkParam(socketConfig.getWriteIdleTimeout(), -1, 86400);
+        ConfigUtil.checkParam(socketConfig.getDatagramBatchSize(), 0, Constants.KB + 1);
+        ConfigUtil.checkParam(socketConfig.getDatagramBufferSize(), 0, 64 * Constants.KB);
+        ConfigUtil.checkParam(socketConfig.getUdpSegmentSize(), -1, 64 * Constants.KB);
+        ConfigUtil.checkParam(socketConfig.getCoalesceThreshold(), -1, 16 * Constants.MB);
+        if(socketConfig.getBusyPoll() > 0 && NativeUtil.ostype() != OsType.Linux) {
+            throw new FrameworkException(ExceptionType.CONFIG, "SO_BUSY_POLL is only supported on Linux");
+        }
+        if(socketConfig.getBusyPoll() > 0 && !TenetLinuxBinding.busyPollSupported()) {
+            throw new FrameworkException(ExceptionType.CONFIG, "SO_BUSY_POLL requires l_set_busy_poll exported by tenet library");
+        }
+        if(socketConfig.getUdpSegmentSize() > 0 && NativeUtil.ostype() != OsType.Linux) {
+            throw new FrameworkException(ExceptionType.CONFIG, "UDP_SEGMENT is only supported on Linux");
+        }
+        if(socketConfig.isTcpCork() && NativeUtil.ostype() != OsType.Linux) {
+            throw new FrameworkException(ExceptionType.CONFIG, "TCP_CORK is only supported on Linux");
+        }
+        if(socketConfig.isTcpCork() && !TenetLinuxBinding.tcpCorkSupported()) {
+            throw new FrameworkException(ExceptionType.CONFIG, "TCP_CORK requires l_set_tcp_cork exported by tenet library");
+        }
     }
 
     /**
@@ -179,9 +287,15 @@ public final class Net implements LifeCycle {
             Provider provider = Objects.requireNonNull(listenerConfig.getProvider());
             Loc loc = Objects.requireNonNull(listenerConfig.getLoc());
             SocketConfig socketConfig = Objects.requireNonNull(listenerConfig.getSocketConfig());
-            Socket socket = osNetworkLibrary.createSocket(loc);
-            osNetworkLibrary.configureServerSocket(socket, loc, socketConfig);
-            pendingTasks.add(new ListenerTask(encoderSupplier, decoderSupplier, handlerSupplier, provider, loc, socket, socketConfig));
+            validateSocketConfig(socketConfig);
+            if(config.isEnableReusePort() && loc.ipType() != IpType.UNIX) {
+                // Each poller would create its own listening socket when initializing, unix domain socket doesn't support SO_REUSEPORT, so it would always be accepted by the net thread
+                pendingTasks.add(new ListenerTask(encoderSupplier, decoderSupplier, handlerSupplier, provider, loc, null, socketConfig));
+            }else {
+                Socket socket = osNetworkLibrary.createSocket(loc);
+                osNetworkLibrary.configureServerSocket(socket, loc, socketConfig);
+                pendingTasks.add(new ListenerTask(encoderSupplier, decoderSupplier, handlerSupplier, provider, loc, socket, socketConfig));
+            }
         } finally {
             lock.unlockRead(stamp);
         }
@@ -193,28 +307,34 @@ public final class Net implements LifeCycle {
             if(state > Constants.RUNNING) {
                 return ;
             }
+            validateSocketConfig(socketConfig);
             Socket socket = osNetworkLibrary.createSocket(loc);
-            osNetworkLibrary.configureClientSocket(socket, socketConfig);
+            if(loc.ipType() == IpType.UNIX) {
+                osNetworkLibrary.configureUnixSocket(socket);
+            }else {
+                osNetworkLibrary.configureClientSocket(socket, socketConfig);
+            }
             int seq = counter.getAndIncrement();
-            Poller poller = pollers.get(seq % pollers.size());
-            Writer writer = writers.get(seq % writers.size());
-            Channel channel = Channel.newChannel(socket, encoder, decoder, handler, poller, writer, loc);
+            Poller poller = placement.select(pollers, seq);
+            Writer writer = config.isEnableThreadPerCore() ? poller.writer() : writers.get(Math.floorMod(seq, writers.size()));
+            Channel channel = Channel.newChannel(socket, encoder, decoder, handler, poller, writer, loc, socketConfig);
             if(provider != tcpProvider && provider != sslProvider) {
                 clientProviders.add(provider);
             }
             Sentry sentry = provider.create(channel);
+            poller.load().increaseConnections();
             osNetworkLibrary.useSockAddr(loc, MemApi.DEFAULT, sockAddr -> {
                 int r = osNetworkLibrary.connect(socket, sockAddr);
                 if(r == 0) {
-                    poller.submit(new PollerTask(PollerTaskType.BIND, channel, sentry));
+                    poller.submit(new PollerTask(PollerTaskType.BIND, channel, new SentryWithTimeout(sentry, duration)));
                     osNetworkLibrary.ctlMux(poller.mux(), socket, Constants.NET_NONE, Constants.NET_W, MemApi.DEFAULT);
                 }else if(r < 0){
                     int errno = Math.abs(r);
                     if (errno == osNetworkLibrary.connectBlockCode()) {
-                        poller.submit(new PollerTask(PollerTaskType.BIND, channel, sentry));
-                        Wheel.wheel().addJob(() -> poller.submit(new PollerTask(PollerTaskType.UNBIND, channel, null)), duration);
+                        poller.submit(new PollerTask(PollerTaskType.BIND, channel, new SentryWithTimeout(sentry, duration)));
                         osNetworkLibrary.ctlMux(poller.mux(), socket, Constants.NET_NONE, Constants.NET_W, MemApi.DEFAULT);
                     }else {
+                        poller.load().decreaseConnections();
                         throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to connect, errno : \{errno}");
                     }
                 }else {
@@ -238,6 +358,43 @@ public final class Net implements LifeCycle {
         connect(loc, encoder, decoder, handler, provider, defaultSocketConfig, defaultDuration);
     }
 
+    /**
+     *   Bind a datagram channel to the target loc, it would start receiving datagrams once mounted on its poller, only supported on Linux
+     *   Msgs sent over the returned channel must be Datagram, and entities decoded from each received datagram would be delivered to the handler as Datagram with the sender's loc
+     */
+    public Channel datagram(Loc loc, Encoder encoder, Decoder decoder, Handler handler, SocketConfig socketConfig) {
+        long stamp = lock.readLock();
+        try{
+            if(state > Constants.RUNNING) {
+                throw new FrameworkException(ExceptionType.NETWORK, "Net has been shutdown");
+            }
+            validateSocketConfig(socketConfig);
+            Socket socket = osNetworkLibrary.createDatagramSocket(loc);
+            try{
+                osNetworkLibrary.configureDatagramSocket(socket, loc, socketConfig, MemApi.DEFAULT);
+            }catch (RuntimeException e) {
+                osNetworkLibrary.closeSocket(socket);
+                throw e;
+            }
+            int seq = counter.getAndIncrement();
+            Poller poller = placement.select(pollers, seq);
+            Writer writer = config.isEnableThreadPerCore() ? poller.writer() : writers.get(Math.floorMod(seq, writers.size()));
+            Channel channel = Channel.newChannel(socket, encoder, decoder, handler, poller, writer, loc, socketConfig);
+            Mutex mutex = new Mutex(poller.pollerThread(), writer.writerThread(), Constants.NET_NONE);
+            poller.load().increaseConnections();
+            // writer node must be initiated first, so that the close task from the poller would always find it
+            writer.submit(new WriterTask(WriterTaskType.INITIATE, channel, mutex, null));
+            poller.submit(new PollerTask(PollerTaskType.BIND, channel, mutex));
+            return channel;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Channel datagram(Loc loc, Encoder encoder, Decoder decoder, Handler handler) {
+        return datagram(loc, encoder, decoder, handler, defaultSocketConfig);
+    }
+
     @Override
     public void init() {
         long stamp = lock.writeLock();
@@ -249,19 +406,120 @@ public final class Net implements LifeCycle {
                 TenetBinding.rpmallocInitialize();
             }
             pollers.forEach(poller -> poller.pollerThread().start());
-            writers.forEach(writer -> writer.writerThread().start());
-            pendingTasks.forEach(listenerTask -> {
-                netQueue.offer(listenerTask);
-                osNetworkLibrary.bindAndListen(listenerTask.socket(), listenerTask.loc(), MemApi.DEFAULT, config.getBacklog());
-                osNetworkLibrary.ctlMux(mux, listenerTask.socket(), Constants.NET_NONE, Constants.NET_R, MemApi.DEFAULT);
-            });
-            netThread.start();
+            if(!config.isEnableThreadPerCore()) {
+                writers.forEach(writer -> writer.writerThread().start());
+            }
+            boolean useNetThread = false;
+            for (ListenerTask listenerTask : pendingTasks) {
+                if(listenerTask.socket() == null) {
+                    listenOnPollers(listenerTask);
+                }else {
+                    netQueue.offer(listenerTask);
+                    osNetworkLibrary.bindAndListen(listenerTask.socket(), listenerTask.loc(), MemApi.DEFAULT, config.getBacklog());
+                    osNetworkLibrary.ctlMux(mux, listenerTask.socket(), Constants.NET_NONE, Constants.NET_R, MemApi.DEFAULT);
+                    useNetThread = true;
+                }
+            }
+            if(!config.isEnableReusePort() || useNetThread) {
+                netThread.start();
+            }
+            if(config.getRebalanceInterval() > 0) {
+                Duration interval = Duration.ofSeconds(config.getRebalanceInterval());
+                rebalanceCanceller = Wheel.wheel().addPeriodicJob(this::rebalance, interval, interval);
+            }
             state = Constants.RUNNING;
         } finally {
             lock.unlockWrite(stamp);
         }
     }
 
+    /**
+     *   Create a SO_REUSEPORT listening socket for each poller, so that the kernel would spread incoming connections across pollers
+     */
+    private void listenOnPollers(ListenerTask listenerTask) {
+        Loc loc = listenerTask.loc();
+        for (Poller poller : pollers) {
+            Socket socket = osNetworkLibrary.createSocket(loc);
+            osNetworkLibrary.configureServerSocket(socket, loc, listenerTask.socketConfig());
+            osNetworkLibrary.check(osNetworkLibrary.setReusePort(socket, true), "set server SO_REUSEPORT");
+            if(config.isEnableIncomingCpu()) {
+                osNetworkLibrary.check(osNetworkLibrary.setIncomingCpu(socket, poller.cpu()), "set server SO_INCOMING_CPU");
+            }
+            osNetworkLibrary.bindAndListen(socket, loc, MemApi.DEFAULT, config.getBacklog());
+            ListenerTask task = new ListenerTask(listenerTask.encoderSupplier(), listenerTask.decoderSupplier(), listenerTask.handlerSupplier(), listenerTask.provider(), loc, socket, listenerTask.socketConfig());
+            poller.submit(new PollerTask(PollerTaskType.LISTEN, null, new AcceptorTask(task, poller, config.isEnableThreadPerCore() ? List.of(poller.writer()) : writers)));
+        }
+        log.info(STR."Server listenerTask registered for \{loc} on \{pollers.size()} pollers");
+    }
+
+    /**
+     *   Return a snapshot of all the pollers and writers, this method could be invoked from any thread without blocking
+     */
+    public NetStats stats() {
+        return new NetStats(pollers.stream().map(PollerStats::of).toList(), writers.stream().map(WriterStats::of).toList());
+    }
+
+    /**
+     *   Return the channels with the most pending bytes in writers, each writer would collect its own channels, the results are then merged
+     *   This method would block until all the writers responded or the timeout elapsed, writers failed to respond would be ignored
+     */
+    public List<ChannelStats> topChannels(int count, Duration timeout) {
+        if(count <= 0) {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+        long stamp = lock.readLock();
+        List<CompletableFuture<List<ChannelStats>>> futures = new ArrayList<>(writers.size());
+        try{
+            if(state != Constants.RUNNING) {
+                return List.of();
+            }
+            for (Writer writer : writers) {
+                CompletableFuture<List<ChannelStats>> future = new CompletableFuture<>();
+                writer.submit(new WriterTask(WriterTaskType.TOP_CHANNELS, null, new TopChannelsTask(count, future), null));
+                futures.add(future);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        long deadline = Clock.nano() + timeout.toNanos();
+        List<ChannelStats> result = new ArrayList<>();
+        for (CompletableFuture<List<ChannelStats>> future : futures) {
+            try{
+                result.addAll(future.get(Math.max(deadline - Clock.nano(), 0L), TimeUnit.NANOSECONDS));
+            }catch (TimeoutException | ExecutionException e) {
+                log.warn("Failed to collect channels from writer", e);
+            }catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FrameworkException(ExceptionType.NETWORK, "Interrupted while collecting channels", e);
+            }
+        }
+        return result.stream().sorted(Comparator.comparingLong(ChannelStats::pendingBytes).reversed()).limit(count).toList();
+    }
+
+    public List<ChannelStats> topChannels(int count) {
+        return topChannels(count, defaultDuration);
+    }
+
+    /**
+     *   Migrate idle channels from the poller with the most connections to the one with the least, only half of the difference would be moved each round
+     */
+    private void rebalance() {
+        Poller max = pollers.getFirst();
+        Poller min = pollers.getFirst();
+        for (Poller poller : pollers) {
+            int connections = poller.load().connections();
+            if(connections > max.load().connections()) {
+                max = poller;
+            }else if(connections < min.load().connections()) {
+                min = poller;
+            }
+        }
+        int diff = max.load().connections() - min.load().connections();
+        if(diff > config.getRebalanceThreshold()) {
+            max.submit(new PollerTask(PollerTaskType.MIGRATE, null, new MigrateTask(min, diff / 2)));
+        }
+    }
+
     @Override
     public void exit() {
         long stamp = lock.writeLock();
@@ -271,8 +529,13 @@ public final class Net implements LifeCycle {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
             state = Constants.CLOSING;
-            netQueue.offer(EXIT_TASK);
-            netThread.join();
+            if(rebalanceCanceller != null) {
+                rebalanceCanceller.run();
+            }
+            if(netThread.getState() != Thread.State.NEW) {
+                netQueue.offer(EXIT_TASK);
+                netThread.join();
+            }
             pollers.forEach(poller -> poller.submit(new PollerTask(PollerTaskType.EXIT, null, shutdownTimeout)));
             writers.forEach(writer -> writer.submit(new WriterTask(WriterTaskType.EXIT, null, null, null)));
             for (Poller poller : pollers) {
@@ -281,6 +544,15 @@ public final class Net implements LifeCycle {
             for (Writer writer : writers) {
                 writer.writerThread().join();
             }
+            if(handshakeExecutor != null) {
+                // pollers would only exit after all the offloaded handshakes were posted back, so there is no pending step now
+                handshakeExecutor.shutdown();
+            }
+            if(config.isEnableReusePort()) {
+                // providers of the listeners accepted by the net thread have already been closed
+                Set<Provider> closedProviders = pendingTasks.stream().filter(listenerTask -> listenerTask.socket() != null).map(ListenerTask::provider).collect(Collectors.toSet());
+                pendingTasks.stream().map(ListenerTask::provider).distinct().filter(provider -> !closedProviders.contains(provider)).forEach(Provider::close);
+            }
             clientProviders.forEach(Provider::close);
             osNetworkLibrary.exit();
             if(config.isEnableRpMalloc()) {
@@ -2,6 +2,8 @@ package cn.zorcc.common.network;
 
 import cn.zorcc.common.Constants;
 
+import java.util.List;
+
 public final class NetConfig {
     /**
      *  TenetBinding already embedded a custom RpMalloc allocator for thread-local memory allocation
@@ -41,13 +43,19 @@ public final class NetConfig {
      */
     private int gracefulShutdownTimeout = 30;
 
+    /**
+     *  Let each poller own a SO_REUSEPORT listening socket for every ListenerConfig instead of accepting in the net thread
+     *  The kernel would spread new connections across pollers, only works on Linux
+     */
+    private boolean enableReusePort = false;
+
     /**
      *  PollerCount determines how many poller thread will be created
      */
     private int pollerCount = 4;
 
     /**
-     *  Poller taskQueue initial size
+     *  Poller taskQueue capacity, would be rounded up to the power of two, tasks exceeding the capacity would be spilled into an overflow list
      */
     private int pollerQueueSize = 64;
 
@@ -62,6 +70,19 @@ public final class NetConfig {
      */
     private int pollerMuxTimeout = 25;
 
+    /**
+     *  Busy spinning budget in microseconds before poller falls back to a blocking mux call, 0 means disabled
+     *  When enabled, poller would keep calling mux with zero timeout after a productive round, trading CPU usage for lower wakeup latency
+     *  Spinning only happens when the previous round has processed some events or tasks, so an idle poller would still block as usual
+     */
+    private int pollerBusySpin = 0;
+
+    /**
+     *  Using edge-triggered registration for poller's epoll instance, only works on Linux
+     *  Poller would keep reading until EAGAIN for each readable event, and writable interest would be kept once registered
+     */
+    private boolean enableEdgeTriggered = false;
+
     /**
      *  The read buffer maximum size for each poller instance
      */
@@ -69,15 +90,87 @@ public final class NetConfig {
 
     /**
      *  Poller map size, normally 256 would be enough
-     *  if your application has to maintain thousands of connections at the same time, then you can increase this value appropriately
+     *  The map is indexed by socket fd and grows on demand, this value only determines the fd range covered initially
      */
     private int pollerMapSize = 256;
 
+    /**
+     *  Chunk size for caching partial frames in poller, a frame spanning multiple reads would be stored in a chain of pooled chunks
+     */
+    private int pollerChunkSize = 16 * Constants.KB;
+
+    /**
+     *  Slots of each poller's local timer wheel, must be power of two
+     *  Tagged msg timeouts, connect timeouts and idle timeouts are handled by the timer wheel in the poller thread
+     */
+    private int pollerWheelSlots = 512;
+
+    /**
+     *  Tick of each poller's local timer wheel in milliseconds, timers would be fired with at most one tick delay
+     */
+    private int pollerWheelTick = 10;
+
+    /**
+     *  Thread-per-core mode, each poller thread would also act as the writer of its channels, writerCount would be ignored
+     *  msg sent from the poller thread would be encoded and written inline, with no mutex contention and no queue hop
+     */
+    private boolean enableThreadPerCore = false;
+
+    /**
+     *  CPU list for pinning poller threads, the i-th poller would be pinned to pollerCpus[i % size], empty list means no pinning, only works on Linux
+     *  A pinned poller would touch its reserved buffers after pinning, so that their pages would be placed on the local NUMA node
+     */
+    private List<Integer> pollerCpus = List.of();
+
+    /**
+     *  CPU list for pinning writer threads, same as pollerCpus, ignored in thread-per-core mode
+     */
+    private List<Integer> writerCpus = List.of();
+
+    /**
+     *  Set SO_INCOMING_CPU of each poller's listening socket to the CPU it was pinned to, so that the kernel would prefer delivering connections to the poller on the same CPU
+     *  Only works when enableReusePort was set and pollerCpus is not empty
+     */
+    private boolean enableIncomingCpu = false;
+
+    /**
+     *  Placement strategy for choosing the poller of a new channel, default to round-robin
+     *  Placement.leastConnections() or Placement.powerOfTwoChoices() could be used when connections have very different lifetime or traffic
+     */
+    private Placement placement = Placement.roundRobin();
+
+    /**
+     *  Rebalance interval in seconds, idle channels would be migrated from the most loaded poller to the least loaded one periodically, 0 means disabled
+     *  Rebalancing is not available in thread-per-core or edge-triggered mode
+     */
+    private int rebalanceInterval = 0;
+
+    /**
+     *  Rebalancing would only be triggered when the connection count difference between pollers exceeds this threshold
+     */
+    private int rebalanceThreshold = 16;
+
+    /**
+     *  Threads for performing TLS handshakes outside the poller threads, 0 means handshakes would be performed in the poller thread directly
+     *  Public-key operations in handshakes are expensive, offloading them would keep the read latency of established channels stable during a reconnect storm
+     */
+    private int handshakeThreads = 0;
+
+    /**
+     *  Pending handshake steps waiting for a handshake thread, steps exceeding the capacity would be performed in the poller thread
+     */
+    private int handshakeQueueSize = 1024;
+
     /**
      *  WriterCount determines how many writer thread will be created
      */
     private int writerCount = 4;
 
+    /**
+     *  Writer taskQueue capacity, would be rounded up to the power of two, tasks exceeding the capacity would be spilled into an overflow list
+     */
+    private int writerQueueSize = 1024;
+
     /**
      *  The write buffer initial size for each writer instance
      */
@@ -85,7 +178,7 @@ public final class NetConfig {
 
     /**
      *  Writer map size, normally 256 would be enough
-     *  if your application has to maintain thousands of connections at the same time, then you can increase this value appropriately
+     *  The map is indexed by socket fd and grows on demand, this value only determines the fd range covered initially
      */
     private int writerMapSize = 256;
 
@@ -145,6 +238,14 @@ public final class NetConfig {
         this.gracefulShutdownTimeout = gracefulShutdownTimeout;
     }
 
+    public boolean isEnableReusePort() {
+        return enableReusePort;
+    }
+
+    public void setEnableReusePort(boolean enableReusePort) {
+        this.enableReusePort = enableReusePort;
+    }
+
     public int getPollerCount() {
         return pollerCount;
     }
@@ -177,6 +278,22 @@ public final class NetConfig {
         this.pollerMuxTimeout = pollerMuxTimeout;
     }
 
+    public int getPollerBusySpin() {
+        return pollerBusySpin;
+    }
+
+    public void setPollerBusySpin(int pollerBusySpin) {
+        this.pollerBusySpin = pollerBusySpin;
+    }
+
+    public boolean isEnableEdgeTriggered() {
+        return enableEdgeTriggered;
+    }
+
+    public void setEnableEdgeTriggered(boolean enableEdgeTriggered) {
+        this.enableEdgeTriggered = enableEdgeTriggered;
+    }
+
     public int getPollerBufferSize() {
         return pollerBufferSize;
     }
@@ -193,6 +310,102 @@ public final class NetConfig {
         this.pollerMapSize = pollerMapSize;
     }
 
+    public int getPollerChunkSize() {
+        return pollerChunkSize;
+    }
+
+    public void setPollerChunkSize(int pollerChunkSize) {
+        this.pollerChunkSize = pollerChunkSize;
+    }
+
+    public int getPollerWheelSlots() {
+        return pollerWheelSlots;
+    }
+
+    public void setPollerWheelSlots(int pollerWheelSlots) {
+        this.pollerWheelSlots = pollerWheelSlots;
+    }
+
+    public int getPollerWheelTick() {
+        return pollerWheelTick;
+    }
+
+    public void setPollerWheelTick(int pollerWheelTick) {
+        this.pollerWheelTick = pollerWheelTick;
+    }
+
+    public boolean isEnableThreadPerCore() {
+        return enableThreadPerCore;
+    }
+
+    public void setEnableThreadPerCore(boolean enableThreadPerCore) {
+        this.enableThreadPerCore = enableThreadPerCore;
+    }
+
+    public List<Integer> getPollerCpus() {
+        return pollerCpus;
+    }
+
+    public void setPollerCpus(List<Integer> pollerCpus) {
+        this.pollerCpus = pollerCpus;
+    }
+
+    public List<Integer> getWriterCpus() {
+        return writerCpus;
+    }
+
+    public void setWriterCpus(List<Integer> writerCpus) {
+        this.writerCpus = writerCpus;
+    }
+
+    public boolean isEnableIncomingCpu() {
+        return enableIncomingCpu;
+    }
+
+    public void setEnableIncomingCpu(boolean enableIncomingCpu) {
+        this.enableIncomingCpu = enableIncomingCpu;
+    }
+
+    public Placement getPlacement() {
+        return placement;
+    }
+
+    public void setPlacement(Placement placement) {
+        this.placement = placement;
+    }
+
+    public int getRebalanceInterval() {
+        return rebalanceInterval;
+    }
+
+    public void setRebalanceInterval(int rebalanceInterval) {
+        this.rebalanceInterval = rebalanceInterval;
+    }
+
+    public int getRebalanceThreshold() {
+        return rebalanceThreshold;
+    }
+
+    public void setRebalanceThreshold(int rebalanceThreshold) {
+        this.rebalanceThreshold = rebalanceThreshold;
+    }
+
+    public int getHandshakeThreads() {
+        return handshakeThreads;
+    }
+
+    public void setHandshakeThreads(int handshakeThreads) {
+        this.handshakeThreads = handshakeThreads;
+    }
+
+    public int getHandshakeQueueSize() {
+        return handshakeQueueSize;
+    }
+
+    public void setHandshakeQueueSize(int handshakeQueueSize) {
+        this.handshakeQueueSize = handshakeQueueSize;
+    }
+
     public int getWriterCount() {
         return writerCount;
     }
@@ -201,6 +414,14 @@ public final class NetConfig {
         this.writerCount = writerCount;
     }
 
+    public int getWriterQueueSize() {
+        return writerQueueSize;
+    }
+
+    public void setWriterQueueSize(int writerQueueSize) {
+        this.writerQueueSize = writerQueueSize;
+    }
+
     public int getWriterBufferSize() {
         return writerBufferSize;
     }
@@ -0,0 +1,12 @@
+package cn.zorcc.common.network;
+
+import java.util.List;
+
+/**
+ *   Snapshot of all the pollers and writers of a Net instance, in thread-per-core mode, each writer shares the thread of its poller
+ */
+public record NetStats(
+        List<PollerStats> pollers,
+        List<WriterStats> writers
+) {
+}
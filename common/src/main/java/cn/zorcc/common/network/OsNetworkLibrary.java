@@ -10,10 +10,20 @@ import cn.zorcc.common.structure.Allocator;
 import cn.zorcc.common.structure.MemApi;
 import cn.zorcc.common.util.NativeUtil;
 
+import java.io.IOException;
 import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.function.Consumer;
 
 /**
@@ -74,6 +84,14 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
      */
     Mux createMux();
 
+    /**
+     *   Create an edge-triggered multiplexing object, only Linux supports it, other platforms would simply fall back to createMux()
+     *   Using system default malloc
+     */
+    default Mux createEdgeTriggeredMux() {
+        return createMux();
+    }
+
     /**
      *   Return the target multiplexing struct memoryLayout corresponding to the target operating system
      */
@@ -90,15 +108,85 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
     int wait(Mux mux, MemorySegment events, int maxEvents, int timeout);
 
     /**
-     *   For poller to access the events array, the first return value represents the socket, the second value represents the event type
+     *   Access the socket of the index-th event in the events array
+     */
+    int accessSocket(MemorySegment events, int index);
+
+    /**
+     *   Access the event type of the index-th event in the events array, the socket and event type are read separately so that the poller's hot loop wouldn't allocate
+     */
+    int accessEvent(MemorySegment events, int index);
+
+    /**
+     *   For net thread to access the events array, the first return value represents the socket, the second value represents the event type
      */
-    MuxEvent access(MemorySegment events, int index);
+    default MuxEvent access(MemorySegment events, int index) {
+        return new MuxEvent(accessSocket(events, index), accessEvent(events, index));
+    }
 
     /**
      *   Exit a multiplexing object
      */
     int closeMux(Mux mux);
 
+    /**
+     *   Create a waker registered in the target mux, which could interrupt the blocking mux wait from other threads
+     *   Linux uses eventfd and macOS uses a non-blocking pipe, return null if the underlying operating system or tenet library doesn't support it
+     *   Without a waker, producers would only be noticed after the mux wait timeout
+     */
+    default Waker createWaker(Mux mux) {
+        return null;
+    }
+
+    /**
+     *   Signal the waker, interrupting the blocking mux wait
+     */
+    default void signalWaker(Waker waker) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
+    /**
+     *   Consume all the pending signals of the waker
+     */
+    default void drainWaker(Waker waker) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
+    /**
+     *   Close the waker
+     */
+    default void closeWaker(Waker waker) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
+    /**
+     *   Open a regular file for reading, return the file descriptor, only supported on Linux and macOS with a tenet library exporting the file transfer functions
+     */
+    default int openFile(String path, MemApi memApi) {
+        throw new FrameworkException(ExceptionType.NETWORK, "File transfer is not supported on current operating system");
+    }
+
+    /**
+     *   Transfer len bytes starting from offset of the file to the socket without copying through user-space, return the actual bytes sent
+     */
+    default long sendFile(Socket socket, int fd, long offset, long len) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
+    /**
+     *   Read len bytes starting from offset of the file into data, return the actual bytes read
+     */
+    default long readFile(int fd, MemorySegment data, long len, long offset) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
+    /**
+     *   Close the file opened by openFile()
+     */
+    default int closeFile(int fd) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
     /**
      *   Modifying ipv4 sockAddr to target ip and port
      */
@@ -121,11 +209,44 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
      */
     Socket createIpv6Socket();
 
+    /**
+     *   Create an unix domain stream socket object, not supported on Windows
+     */
+    default Socket createUnixSocket() {
+        throw new FrameworkException(ExceptionType.NETWORK, "Unix domain socket is not supported on current operating system");
+    }
+
+    /**
+     *   Return the default unix address struct byteSize of the underlying operating system
+     */
+    default int unixAddressSize() {
+        throw new FrameworkException(ExceptionType.NETWORK, "Unix domain socket is not supported on current operating system");
+    }
+
+    /**
+     *   Return the default unix address struct align of the underlying operating system
+     */
+    default int unixAddressAlign() {
+        throw new FrameworkException(ExceptionType.NETWORK, "Unix domain socket is not supported on current operating system");
+    }
+
+    /**
+     *   Modifying unix sockAddr to target path, return 0 if the path is too long
+     */
+    default int setUnixSockAddr(MemorySegment sockAddr, MemorySegment path) {
+        throw new FrameworkException(ExceptionType.NETWORK, "Unix domain socket is not supported on current operating system");
+    }
+
     /**
      *   Set socket's SO_REUSE_ADDR option
      */
     int setReuseAddr(Socket socket, boolean b);
 
+    /**
+     *   Set socket's SO_REUSEPORT option
+     */
+    int setReusePort(Socket socket, boolean b);
+
     /**
      *   Set socket's SO_KEEPALIVE option
      */
@@ -141,6 +262,41 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
      */
     int setIpv6Only(Socket socket, boolean b);
 
+    /**
+     *   Set socket's SO_BUSY_POLL option in microseconds, only supported on Linux
+     */
+    default int setBusyPoll(Socket socket, int micros) {
+        throw new FrameworkException(ExceptionType.NETWORK, "SO_BUSY_POLL is only supported on Linux");
+    }
+
+    /**
+     *   Set socket's SO_INCOMING_CPU option, only supported on Linux
+     */
+    default int setIncomingCpu(Socket socket, int cpu) {
+        throw new FrameworkException(ExceptionType.NETWORK, "SO_INCOMING_CPU is only supported on Linux");
+    }
+
+    /**
+     *   Pin current thread to the target cpu, only supported on Linux
+     */
+    default int setAffinity(int cpu) {
+        throw new FrameworkException(ExceptionType.NETWORK, "CPU affinity is only supported on Linux");
+    }
+
+    /**
+     *   Set socket's UDP_SEGMENT option for UDP GSO, only supported on Linux
+     */
+    default int setUdpSegment(Socket socket, int size) {
+        throw new FrameworkException(ExceptionType.NETWORK, "UDP_SEGMENT is only supported on Linux");
+    }
+
+    /**
+     *   Set socket's TCP_CORK option, only supported on Linux
+     */
+    default int setTcpCork(Socket socket, boolean b) {
+        throw new FrameworkException(ExceptionType.NETWORK, "TCP_CORK is only supported on Linux");
+    }
+
     /**
      *   Set socket's non-blocking option
      */
@@ -182,7 +338,7 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
     int connect(Socket socket, MemorySegment sockAddr);
 
     /**
-     *   Accept from a server socket, using target memApi
+     *   Accept from a server socket, using target memApi, return null if there is no pending connection now
      */
     Socket accept(Socket socket, MemorySegment addr, MemApi memApi);
 
@@ -196,6 +352,35 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
      */
     long send(Socket socket, MemorySegment data, long len);
 
+    /**
+     *   Send multiple segments using target socket in a single gather write, count should be the exact number of segments to send, return the actual bytes sent
+     *   count should never exceed the IOV_MAX limit of the underlying operating system, using target memApi
+     */
+    long sendv(Socket socket, MemorySegment[] segments, int count, MemApi memApi);
+
+    /**
+     *   Create a UDP socket object based on loc, only supported on Linux
+     */
+    default Socket createDatagramSocket(Loc loc) {
+        throw new FrameworkException(ExceptionType.NETWORK, "Datagram channel is only supported on Linux");
+    }
+
+    /**
+     *   Receive multiple datagrams from target socket using recvmmsg() without blocking, msgs should be an array of struct mmsghdr with at least count elements
+     *   Return the actual count of datagrams received, or a negative errno
+     */
+    default int recvMmsg(Socket socket, MemorySegment msgs, int count) {
+        throw new FrameworkException(ExceptionType.NETWORK, "recvmmsg() is only supported on Linux");
+    }
+
+    /**
+     *   Send multiple datagrams using target socket with sendmmsg() without blocking, msgs should be an array of struct mmsghdr with at least count elements
+     *   Return the actual count of messages sent, or a negative errno if the first message couldn't be sent
+     */
+    default int sendMmsg(Socket socket, MemorySegment msgs, int count) {
+        throw new FrameworkException(ExceptionType.NETWORK, "sendmmsg() is only supported on Linux");
+    }
+
     /**
      *   Retrieve the err-opt from the target socket
      */
@@ -259,7 +444,7 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
     }
 
     /**
-     *   Create a sockAddr memorySegment, could be IPV4 or IPV6
+     *   Create a sockAddr memorySegment, could be IPV4, IPV6 or UNIX
      *   Using system default malloc
      */
     default void useSockAddr(Loc loc, MemApi memApi, Consumer<MemorySegment> consumer) {
@@ -267,6 +452,8 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             createIpv4SockAddr(loc, memApi, consumer);
         }else if(loc.ipType() == IpType.IPV6) {
             createIpv6SockAddr(loc, memApi, consumer);
+        }else if(loc.ipType() == IpType.UNIX) {
+            createUnixSockAddr(loc, memApi, consumer);
         }else {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
@@ -294,6 +481,17 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         }
     }
 
+    private void createUnixSockAddr(Loc loc, MemApi memApi, Consumer<MemorySegment> consumer) {
+        try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+            MemorySegment r = allocator.allocate(unixAddressSize(), unixAddressAlign());
+            MemorySegment path = allocator.allocateFrom(loc.ip(), StandardCharsets.UTF_8);
+            if(check(setUnixSockAddr(r, path), "set unix address") == 0) {
+                throw new FrameworkException(ExceptionType.NETWORK, STR."Unix socket path is not valid : \{loc.ip()}");
+            }
+            consumer.accept(r);
+        }
+    }
+
     /**
      *   Create a socket object based on loc
      */
@@ -301,6 +499,7 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         return switch (loc.ipType()) {
             case IPV4 -> createIpv4Socket();
             case IPV6 -> createIpv6Socket();
+            case UNIX -> createUnixSocket();
             case null -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         };
     }
@@ -311,44 +510,176 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
     default void configureClientSocket(Socket socket, SocketConfig socketConfig) {
         check(setKeepAlive(socket, socketConfig.isKeepAlive()), "set client SO_REUSE_ADDR");
         check(setTcpNoDelay(socket, socketConfig.isTcpNoDelay()), "set client TCP_NODELAY");
+        if(socketConfig.getBusyPoll() > 0) {
+            check(setBusyPoll(socket, socketConfig.getBusyPoll()), "set client SO_BUSY_POLL");
+        }
         check(setNonBlocking(socket), "set client non-blocking");
     }
 
+    /**
+     *   Configure an unix domain socket for either side, TCP options are not applicable to AF_UNIX
+     */
+    default void configureUnixSocket(Socket socket) {
+        check(setNonBlocking(socket), "set unix non-blocking");
+    }
+
     /**
      *   Configure a socket for the server side
      */
     default void configureServerSocket(Socket socket, Loc loc, SocketConfig socketConfig) {
+        if(loc.ipType() == IpType.UNIX) {
+            configureUnixSocket(socket);
+            return ;
+        }
         check(setReuseAddr(socket, socketConfig.isReuseAddr()), "set server SO_REUSE_ADDR");
         check(setKeepAlive(socket, socketConfig.isKeepAlive()), "set server SO_KEEPALIVE");
         check(setTcpNoDelay(socket, socketConfig.isTcpNoDelay()), "set server TCP_NODELAY");
+        if(socketConfig.getBusyPoll() > 0) {
+            // accepted sockets would inherit this option from the server socket
+            check(setBusyPoll(socket, socketConfig.getBusyPoll()), "set server SO_BUSY_POLL");
+        }
         if(loc.ipType() == IpType.IPV6) {
             check(setIpv6Only(socket, socketConfig.isIpv6Only()), "set server IPV6_V6ONLY");
         }
         check(setNonBlocking(socket), "set server non-blocking");
     }
 
+    /**
+     *   Configure a datagram socket and bind it to the target loc
+     */
+    default void configureDatagramSocket(Socket socket, Loc loc, SocketConfig socketConfig, MemApi memApi) {
+        check(setReuseAddr(socket, socketConfig.isReuseAddr()), "set datagram SO_REUSE_ADDR");
+        if(socketConfig.getBusyPoll() > 0) {
+            check(setBusyPoll(socket, socketConfig.getBusyPoll()), "set datagram SO_BUSY_POLL");
+        }
+        if(socketConfig.getUdpSegmentSize() > 0) {
+            check(setUdpSegment(socket, socketConfig.getUdpSegmentSize()), "set datagram UDP_SEGMENT");
+        }
+        if(loc.ipType() == IpType.IPV6) {
+            check(setIpv6Only(socket, socketConfig.isIpv6Only()), "set datagram IPV6_V6ONLY");
+        }
+        check(setNonBlocking(socket), "set datagram non-blocking");
+        useSockAddr(loc, memApi, addr -> check(bind(socket, addr), "bind"));
+    }
+
+    /**
+     *   Parse a sockAddr filled by the kernel into a loc, address is used for holding the ip string, it should be no less than ipv6AddressLen()
+     *   Ipv4-mapped addresses received by an IPV6 socket would be represented as IPV4 loc
+     */
+    default Loc getLoc(IpType ipType, MemorySegment sockAddr, MemorySegment address) {
+        return switch (ipType) {
+            case IPV4 -> {
+                check(getIpv4Address(sockAddr, address), "get ipv4 address");
+                yield new Loc(IpType.IPV4, address.getString(0L, StandardCharsets.UTF_8), Short.toUnsignedInt(getIpv4Port(sockAddr)));
+            }
+            case IPV6 -> {
+                check(getIpv6Address(sockAddr, address), "get ipv6 address");
+                String ip = address.getString(0L, StandardCharsets.UTF_8);
+                int port = Short.toUnsignedInt(getIpv6Port(sockAddr));
+                yield ip.startsWith(IPV4_MAPPED_FORMAT) ? new Loc(IpType.IPV4, ip.substring(IPV4_PREFIX_LENGTH), port) : new Loc(IpType.IPV6, ip, port);
+            }
+            case UNIX -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+            case null -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        };
+    }
+
+    /**
+     *   Write the target loc into sockAddr for an ipType socket, address is used for holding the ip string, it should be no less than ipv6AddressLen()
+     *   IPV4 loc would be converted to ipv4-mapped address for an IPV6 socket, return false if the loc is not a valid address
+     */
+    default boolean setSockAddr(IpType ipType, Loc loc, MemorySegment sockAddr, MemorySegment address) {
+        String ip = loc.ip();
+        if(ip == null || ip.isBlank()) {
+            return false;
+        }
+        if(ipType == IpType.IPV6 && loc.ipType() == IpType.IPV4) {
+            ip = IPV4_MAPPED_FORMAT + ip;
+        }
+        if(ip.length() >= address.byteSize()) {
+            return false;
+        }
+        address.setString(0L, ip, StandardCharsets.UTF_8);
+        return switch (ipType) {
+            case IPV4 -> check(setIpv4SockAddr(sockAddr, address, loc.shortPort()), "set ipv4 address") > 0;
+            case IPV6 -> check(setIpv6SockAddr(sockAddr, address, loc.shortPort()), "set ipv6 address") > 0;
+            case UNIX -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+            case null -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        };
+    }
+
     /**
      *   Let the server-side bind and listen
+     *   For unix domain socket, a stale socket file left by a previous process would be removed first, a socket file still being listened on or any other kind of file would fail the binding
      *   Using system default allocator
      */
     default void bindAndListen(Socket socket, Loc loc, MemApi memApi, int backlog) {
+        if(loc.ipType() == IpType.UNIX) {
+            removeStaleSocketFile(loc.ip());
+        }
         useSockAddr(loc, memApi, addr -> {
             check(bind(socket, addr), "bind");
             check(listen(socket, backlog), "listen");
         });
     }
 
+    /**
+     *   A socket file is considered stale only if connecting to it was refused, which means no process is listening on it
+     *   The probe is non-blocking, so a listener with a full backlog would not block the binding, a pending connect or EAGAIN means the file is still in use
+     */
+    private static void removeStaleSocketFile(String path) {
+        // S_IFMT and S_IFSOCK in sys/stat.h, they are the same on Linux and macOS
+        final int fileTypeMask = 0170000;
+        final int socketFileType = 0140000;
+        Path p = Path.of(path);
+        try{
+            int mode = (int) Files.getAttribute(p, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            if((mode & fileTypeMask) != socketFileType) {
+                throw new FrameworkException(ExceptionType.NETWORK, STR."Address already in use, \{path} is not a unix socket file");
+            }
+            try(SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                probe.configureBlocking(false);
+                probe.connect(UnixDomainSocketAddress.of(p));
+            }catch (ConnectException e) {
+                Files.delete(p);
+                return ;
+            }catch (SocketException e) {
+                // EAGAIN, the listener's backlog is full
+                throw new FrameworkException(ExceptionType.NETWORK, STR."Address already in use, \{path} is being listened on by another process", e);
+            }
+            throw new FrameworkException(ExceptionType.NETWORK, STR."Address already in use, \{path} is being listened on by another process");
+        }catch (NoSuchFileException e) {
+            // no stale socket file exists
+        }catch (IOException e) {
+            throw new FrameworkException(ExceptionType.NETWORK, STR."Unable to remove stale unix socket file : \{path}", e);
+        }
+    }
+
     /**
      *   Accept a connection, note that IPV6 is compatible with IPV4, so even if Loc is IPV6 based, it may also accept IPV4 connection
+     *   Unix domain socket clients are normally unnamed, so the server's loc would be used as the accepted connection's loc
+     *   Return null if there is no pending connection in the full-connection queue
      */
     default SocketAndLoc accept(Loc loc, Socket socket, SocketConfig socketConfig, MemApi memApi) {
         return switch (loc.ipType()) {
             case IPV4 -> acceptIpv4Connection(socket, socketConfig, memApi);
             case IPV6 -> acceptIpv6Connection(socket, socketConfig, memApi);
+            case UNIX -> acceptUnixConnection(loc, socket, memApi);
             case null -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         };
     }
 
+    private SocketAndLoc acceptUnixConnection(Loc loc, Socket socket, MemApi memApi) {
+        try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+            MemorySegment clientAddr = allocator.allocate(unixAddressSize(), unixAddressAlign());
+            Socket clientSocket = accept(socket, clientAddr, memApi);
+            if(clientSocket == null) {
+                return null;
+            }
+            configureUnixSocket(clientSocket);
+            return new SocketAndLoc(clientSocket, loc);
+        }
+    }
+
     String IPV4_MAPPED_FORMAT = "::ffff:";
     int IPV4_PREFIX_LENGTH = IPV4_MAPPED_FORMAT.length();
     private SocketAndLoc acceptIpv6Connection(Socket socket, SocketConfig socketConfig, MemApi memApi) {
@@ -356,6 +687,9 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             MemorySegment clientAddr = allocator.allocate(ipv6AddressSize(), ipv6AddressAlign());
             MemorySegment address = allocator.allocate(ValueLayout.JAVA_BYTE, ipv6AddressLen());
             Socket clientSocket = accept(socket, clientAddr, memApi);
+            if(clientSocket == null) {
+                return null;
+            }
             configureClientSocket(clientSocket, socketConfig);
             check(getIpv6Address(clientAddr, address), "get client's ipv6 address");
             String ip = address.getString(0L, StandardCharsets.UTF_8);
@@ -373,6 +707,9 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             MemorySegment clientAddr = allocator.allocate(ipv4AddressSize(), ipv4AddressAlign());
             MemorySegment address = allocator.allocate(ValueLayout.JAVA_BYTE, ipv4AddressLen());
             Socket clientSocket = accept(socket, clientAddr, memApi);
+            if(clientSocket == null) {
+                return null;
+            }
             configureClientSocket(clientSocket, socketConfig);
             check(getIpv4Address(clientAddr, address), "get client's ipv4 address");
             String ip = address.getString(0L, StandardCharsets.UTF_8);
@@ -411,6 +748,15 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         private static final long dataOffset = epollEventLayout.byteOffset(MemoryLayout.PathElement.groupElement("data"));
         private static final long sockOffset = epollDataLayout.byteOffset(MemoryLayout.PathElement.groupElement("sock"));
 
+        private static final MemoryLayout wsaBufLayout = MemoryLayout.structLayout(
+                ValueLayout.JAVA_INT.withName("len"),
+                MemoryLayout.paddingLayout(Integer.BYTES),
+                ValueLayout.ADDRESS.withName("buf")
+        );
+        private static final long wsaBufSize = wsaBufLayout.byteSize();
+        private static final long wsaBufLenOffset = wsaBufLayout.byteOffset(MemoryLayout.PathElement.groupElement("len"));
+        private static final long wsaBufBufOffset = wsaBufLayout.byteOffset(MemoryLayout.PathElement.groupElement("buf"));
+
         private static final int connectBlockCode = TenetWindowsBinding.connectBlockCode();
         private static final int sendBlockCode = TenetWindowsBinding.sendBlockCode();
         private static final int interruptCode = TenetWindowsBinding.interruptCode();
@@ -485,6 +831,12 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             }
         }
 
+        @Override
+        public Mux createEdgeTriggeredMux() {
+            int epfd = check(TenetLinuxBinding.epollCreate(), "epoll create");
+            return Mux.linuxEdgeTriggered(epfd);
+        }
+
         @Override
         public MemoryLayout eventLayout() {
             return epollEventLayout;
@@ -513,6 +865,14 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetWindowsBinding.setReuseAddr(socket.longValue(), b ? 1 : 0);
         }
 
+        /**
+         *   SO_REUSEPORT mode is only supported on Linux, there is no such option on Windows
+         */
+        @Override
+        public int setReusePort(Socket socket, boolean b) {
+            throw new FrameworkException(ExceptionType.NETWORK, "SO_REUSEPORT is not supported on Windows");
+        }
+
         @Override
         public int setKeepAlive(Socket socket, boolean b) {
             return TenetWindowsBinding.setKeepAlive(socket.longValue(), b ? 1 : 0);
@@ -570,15 +930,19 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         }
 
         @Override
-        public MuxEvent access(MemorySegment events, int index) {
+        public int accessSocket(MemorySegment events, int index) {
+            return Math.toIntExact(NativeUtil.getLong(events, index * eventSize + dataOffset + sockOffset));
+        }
+
+        @Override
+        public int accessEvent(MemorySegment events, int index) {
             int event = NativeUtil.getInt(events, index * eventSize + eventsOffset);
-            int socket = Math.toIntExact(NativeUtil.getLong(events, index * eventSize + dataOffset + sockOffset));
             if((event & (Constants.EPOLL_IN | Constants.EPOLL_RDHUP)) != 0) {
-                return new MuxEvent(socket, Constants.NET_R);
+                return Constants.NET_R;
             }else if((event & Constants.EPOLL_OUT) != 0) {
-                return new MuxEvent(socket, Constants.NET_W);
+                return Constants.NET_W;
             }else if((event & (Constants.EPOLL_ERR | Constants.EPOLL_HUP)) != 0) {
-                return new MuxEvent(socket, Constants.NET_OTHER);
+                return Constants.NET_OTHER;
             }else {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
@@ -603,7 +967,11 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         public Socket accept(Socket socket, MemorySegment addr, MemApi memApi) {
             try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
                 MemorySegment ptr = allocator.allocate(ValueLayout.JAVA_LONG);
-                check(TenetWindowsBinding.accept(socket.longValue(), ptr, addr, (int) addr.byteSize()), "accept");
+                int r = TenetWindowsBinding.accept(socket.longValue(), ptr, addr, (int) addr.byteSize());
+                if(r < 0 && Math.abs(r) == sendBlockCode) {
+                    return null;
+                }
+                check(r, "accept");
                 long socketFd = NativeUtil.getLong(ptr, 0L);
                 return Socket.ofLong(socketFd);
             }
@@ -629,6 +997,23 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetWindowsBinding.send(socket.longValue(), data, Math.toIntExact(len));
         }
 
+        @Override
+        public long sendv(Socket socket, MemorySegment[] segments, int count, MemApi memApi) {
+            if(!TenetWindowsBinding.sendvSupported()) {
+                // older tenet library without gather write, sending the first segment only is a valid partial write
+                return send(socket, segments[0], segments[0].byteSize());
+            }
+            try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+                MemorySegment buffers = allocator.allocate(MemoryLayout.sequenceLayout(count, wsaBufLayout));
+                for(int i = 0; i < count; i++) {
+                    MemorySegment segment = segments[i];
+                    NativeUtil.setInt(buffers, i * wsaBufSize + wsaBufLenOffset, Math.toIntExact(segment.byteSize()));
+                    NativeUtil.setAddress(buffers, i * wsaBufSize + wsaBufBufOffset, segment);
+                }
+                return TenetWindowsBinding.sendv(socket.longValue(), buffers, count);
+            }
+        }
+
         @Override
         public int getErrOpt(Socket socket, MemApi memApi) {
             try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
@@ -679,6 +1064,14 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         private static final long dataOffset = epollEventLayout.byteOffset(MemoryLayout.PathElement.groupElement("data"));
         private static final long fdOffset = epollDataLayout.byteOffset(MemoryLayout.PathElement.groupElement("fd"));
 
+        private static final MemoryLayout iovecLayout = MemoryLayout.structLayout(
+                ValueLayout.ADDRESS.withName("iov_base"),
+                ValueLayout.JAVA_LONG.withName("iov_len")
+        );
+        private static final long iovecSize = iovecLayout.byteSize();
+        private static final long iovBaseOffset = iovecLayout.byteOffset(MemoryLayout.PathElement.groupElement("iov_base"));
+        private static final long iovLenOffset = iovecLayout.byteOffset(MemoryLayout.PathElement.groupElement("iov_len"));
+
         private static final int connectBlockCode = TenetLinuxBinding.connectBlockCode();
         private static final int sendBlockCode = TenetLinuxBinding.sendBlockCode();
         private static final int interruptCode = TenetLinuxBinding.interruptCode();
@@ -767,11 +1160,57 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return Socket.ofInt(fd);
         }
 
+        @Override
+        public Socket createUnixSocket() {
+            checkUnixSupported();
+            int fd = check(TenetLinuxBinding.unixSocketCreate(), "unix socket create");
+            return Socket.ofInt(fd);
+        }
+
+        @Override
+        public int unixAddressSize() {
+            checkUnixSupported();
+            return UnixAddress.size;
+        }
+
+        @Override
+        public int unixAddressAlign() {
+            checkUnixSupported();
+            return UnixAddress.align;
+        }
+
+        private static void checkUnixSupported() {
+            if(!TenetLinuxBinding.unixSupported()) {
+                throw new FrameworkException(ExceptionType.NETWORK, "Unix domain socket is not supported by current tenet library");
+            }
+        }
+
+        /**
+         *   Unix address layout, only initialized when unix domain socket is actually used
+         */
+        private static final class UnixAddress {
+            private static final int size = TenetLinuxBinding.unixAddressSize();
+            private static final int align = TenetLinuxBinding.unixAddressAlign();
+        }
+
+        @Override
+        public int setUnixSockAddr(MemorySegment sockAddr, MemorySegment path) {
+            return TenetLinuxBinding.setUnixSockAddr(sockAddr, path);
+        }
+
         @Override
         public int setReuseAddr(Socket socket, boolean b) {
             return TenetLinuxBinding.setReuseAddr(socket.intValue(), b ? 1 : 0);
         }
 
+        @Override
+        public int setReusePort(Socket socket, boolean b) {
+            if(!TenetLinuxBinding.reusePortSupported()) {
+                throw new FrameworkException(ExceptionType.NETWORK, "SO_REUSEPORT is not supported by current tenet library");
+            }
+            return TenetLinuxBinding.setReusePort(socket.intValue(), b ? 1 : 0);
+        }
+
         @Override
         public int setKeepAlive(Socket socket, boolean b) {
             return TenetLinuxBinding.setKeepAlive(socket.intValue(), b ? 1 : 0);
@@ -787,6 +1226,55 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetLinuxBinding.setIpv6Only(socket.intValue(), b ? 1 : 0);
         }
 
+        @Override
+        public int setBusyPoll(Socket socket, int micros) {
+            return TenetLinuxBinding.setBusyPoll(socket.intValue(), micros);
+        }
+
+        @Override
+        public int setIncomingCpu(Socket socket, int cpu) {
+            return TenetLinuxBinding.setIncomingCpu(socket.intValue(), cpu);
+        }
+
+        @Override
+        public int setAffinity(int cpu) {
+            return TenetLinuxBinding.setAffinity(cpu);
+        }
+
+        @Override
+        public int setUdpSegment(Socket socket, int size) {
+            return TenetLinuxBinding.setUdpSegment(socket.intValue(), size);
+        }
+
+        @Override
+        public int setTcpCork(Socket socket, boolean b) {
+            return TenetLinuxBinding.setTcpCork(socket.intValue(), b ? 1 : 0);
+        }
+
+        @Override
+        public Socket createDatagramSocket(Loc loc) {
+            if(!TenetLinuxBinding.datagramSupported()) {
+                throw new FrameworkException(ExceptionType.NETWORK, "Datagram channel is not supported by current tenet library");
+            }
+            int fd = switch (loc.ipType()) {
+                case IPV4 -> check(TenetLinuxBinding.ipv4UdpSocketCreate(), "ipv4 udp socket create");
+                case IPV6 -> check(TenetLinuxBinding.ipv6UdpSocketCreate(), "ipv6 udp socket create");
+                case UNIX -> throw new FrameworkException(ExceptionType.NETWORK, "Datagram channel doesn't support unix domain socket");
+                case null -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+            };
+            return Socket.ofInt(fd);
+        }
+
+        @Override
+        public int recvMmsg(Socket socket, MemorySegment msgs, int count) {
+            return TenetLinuxBinding.recvMmsg(socket.intValue(), msgs, count);
+        }
+
+        @Override
+        public int sendMmsg(Socket socket, MemorySegment msgs, int count) {
+            return TenetLinuxBinding.sendMmsg(socket.intValue(), msgs, count);
+        }
+
         @Override
         public int setNonBlocking(Socket socket) {
             return TenetLinuxBinding.setNonBlocking(socket.intValue());
@@ -807,13 +1295,12 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             if(from == to) {
                 return 0;
             }
-            int epfd = mux.epfd();
             int fd = socket.intValue();
+            int epfd = mux.epfd();
             if(to == Constants.NET_NONE) {
                 return TenetLinuxBinding.epollCtl(epfd, Constants.EPOLL_CTL_DEL, fd, MemorySegment.NULL);
             }else {
-                int target = ((to & Constants.NET_R) != Constants.NET_NONE ? (Constants.EPOLL_IN | Constants.EPOLL_RDHUP) : 0) |
-                        ((to & Constants.NET_W) != Constants.NET_NONE ? Constants.EPOLL_OUT : 0);
+                int target = mux.edgeTriggered() ? epollEvents(to) | Constants.EPOLL_ET : epollEvents(to);
                 try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
                     MemorySegment ev = allocator.allocate(epollEventLayout);
                     NativeUtil.setInt(ev, eventsOffset, target);
@@ -823,21 +1310,31 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             }
         }
 
+        private static int epollEvents(int state) {
+            return ((state & Constants.NET_R) != Constants.NET_NONE ? (Constants.EPOLL_IN | Constants.EPOLL_RDHUP) : 0) |
+                    ((state & Constants.NET_W) != Constants.NET_NONE ? Constants.EPOLL_OUT : 0);
+        }
+
         @Override
         public int wait(Mux mux, MemorySegment events, int maxEvents, int timeout) {
             return TenetLinuxBinding.epollWait(mux.epfd(), events, maxEvents, timeout);
         }
 
         @Override
-        public MuxEvent access(MemorySegment events, int index) {
+        public int accessSocket(MemorySegment events, int index) {
+            return NativeUtil.getInt(events, index * eventSize + dataOffset + fdOffset);
+        }
+
+        @Override
+        public int accessEvent(MemorySegment events, int index) {
             int event = NativeUtil.getInt(events, index * eventSize + eventsOffset);
-            int socket = NativeUtil.getInt(events, index * eventSize + dataOffset + fdOffset);
             if((event & (Constants.EPOLL_IN | Constants.EPOLL_RDHUP)) != 0) {
-                return new MuxEvent(socket, Constants.NET_R);
+                // For edge-triggered mux, the writable edge would be lost if it's not reported together with readable event
+                return (event & Constants.EPOLL_OUT) != 0 ? Constants.NET_RW : Constants.NET_R;
             }else if((event & Constants.EPOLL_OUT) != 0) {
-                return new MuxEvent(socket, Constants.NET_W);
+                return Constants.NET_W;
             }else if((event & (Constants.EPOLL_ERR | Constants.EPOLL_HUP)) != 0) {
-                return new MuxEvent(socket, Constants.NET_OTHER);
+                return Constants.NET_OTHER;
             }else {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
@@ -860,8 +1357,11 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
 
         @Override
         public Socket accept(Socket socket, MemorySegment addr, MemApi memApi) {
-            int fd = check(TenetLinuxBinding.accept(socket.intValue(), addr, (int) addr.byteSize()), "accept");
-            return Socket.ofInt(fd);
+            int fd = TenetLinuxBinding.accept(socket.intValue(), addr, (int) addr.byteSize());
+            if(fd < 0 && Math.abs(fd) == sendBlockCode) {
+                return null;
+            }
+            return Socket.ofInt(check(fd, "accept"));
         }
 
         @Override
@@ -884,6 +1384,23 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetLinuxBinding.send(socket.intValue(), data, len);
         }
 
+        @Override
+        public long sendv(Socket socket, MemorySegment[] segments, int count, MemApi memApi) {
+            if(!TenetLinuxBinding.writevSupported()) {
+                // older tenet library without gather write, sending the first segment only is a valid partial write
+                return send(socket, segments[0], segments[0].byteSize());
+            }
+            try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+                MemorySegment iov = allocator.allocate(MemoryLayout.sequenceLayout(count, iovecLayout));
+                for(int i = 0; i < count; i++) {
+                    MemorySegment segment = segments[i];
+                    NativeUtil.setAddress(iov, i * iovecSize + iovBaseOffset, segment);
+                    NativeUtil.setLong(iov, i * iovecSize + iovLenOffset, segment.byteSize());
+                }
+                return TenetLinuxBinding.writev(socket.intValue(), iov, count);
+            }
+        }
+
         @Override
         public int getErrOpt(Socket socket, MemApi memApi) {
             try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
@@ -909,6 +1426,56 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetLinuxBinding.close(mux.epfd());
         }
 
+        @Override
+        public Waker createWaker(Mux mux) {
+            if(!TenetLinuxBinding.eventfdSupported()) {
+                return null;
+            }
+            int fd = check(TenetLinuxBinding.eventfd(), "eventfd create");
+            ctl(mux, Socket.ofInt(fd), Constants.NET_NONE, Constants.NET_R, MemApi.DEFAULT);
+            return new Waker(fd, fd);
+        }
+
+        @Override
+        public void signalWaker(Waker waker) {
+            check(TenetLinuxBinding.eventfdWrite(waker.writeFd()), "eventfd write");
+        }
+
+        @Override
+        public void drainWaker(Waker waker) {
+            check(TenetLinuxBinding.eventfdRead(waker.readFd()), "eventfd read");
+        }
+
+        @Override
+        public void closeWaker(Waker waker) {
+            check(TenetLinuxBinding.close(waker.readFd()), "eventfd close");
+        }
+
+        @Override
+        public int openFile(String path, MemApi memApi) {
+            if(!TenetLinuxBinding.fileTransferSupported()) {
+                throw new FrameworkException(ExceptionType.NETWORK, "File transfer is not supported by current tenet library");
+            }
+            try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+                return TenetLinuxBinding.openFile(allocator.allocateFrom(path, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public long sendFile(Socket socket, int fd, long offset, long len) {
+            return TenetLinuxBinding.sendFile(socket.intValue(), fd, offset, len);
+        }
+
+        @Override
+        public long readFile(int fd, MemorySegment data, long len, long offset) {
+            return TenetLinuxBinding.pread(fd, data, len, offset);
+        }
+
+        @Override
+        public int closeFile(int fd) {
+            return TenetLinuxBinding.close(fd);
+        }
+
         @Override
         public void exit() {
             // No action, epoll doesn't need external operations for clean up
@@ -938,6 +1505,14 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         private static final long filterOffset = keventLayout.byteOffset(MemoryLayout.PathElement.groupElement("filter"));
         private static final long flagsOffset = keventLayout.byteOffset(MemoryLayout.PathElement.groupElement("flags"));
 
+        private static final MemoryLayout iovecLayout = MemoryLayout.structLayout(
+                ValueLayout.ADDRESS.withName("iov_base"),
+                ValueLayout.JAVA_LONG.withName("iov_len")
+        );
+        private static final long iovecSize = iovecLayout.byteSize();
+        private static final long iovBaseOffset = iovecLayout.byteOffset(MemoryLayout.PathElement.groupElement("iov_base"));
+        private static final long iovLenOffset = iovecLayout.byteOffset(MemoryLayout.PathElement.groupElement("iov_len"));
+
         private static final int connectBlockCode = TenetMacosBinding.connectBlockCode();
         private static final int sendBlockCode = TenetMacosBinding.sendBlockCode();
         private static final int interruptCode = TenetMacosBinding.interruptCode();
@@ -1026,11 +1601,57 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return Socket.ofInt(fd);
         }
 
+        @Override
+        public Socket createUnixSocket() {
+            checkUnixSupported();
+            int fd = check(TenetMacosBinding.unixSocketCreate(), "unix socket create");
+            return Socket.ofInt(fd);
+        }
+
+        @Override
+        public int unixAddressSize() {
+            checkUnixSupported();
+            return UnixAddress.size;
+        }
+
+        @Override
+        public int unixAddressAlign() {
+            checkUnixSupported();
+            return UnixAddress.align;
+        }
+
+        private static void checkUnixSupported() {
+            if(!TenetMacosBinding.unixSupported()) {
+                throw new FrameworkException(ExceptionType.NETWORK, "Unix domain socket is not supported by current tenet library");
+            }
+        }
+
+        /**
+         *   Unix address layout, only initialized when unix domain socket is actually used
+         */
+        private static final class UnixAddress {
+            private static final int size = TenetMacosBinding.unixAddressSize();
+            private static final int align = TenetMacosBinding.unixAddressAlign();
+        }
+
+        @Override
+        public int setUnixSockAddr(MemorySegment sockAddr, MemorySegment path) {
+            return TenetMacosBinding.setUnixSockAddr(sockAddr, path);
+        }
+
         @Override
         public int setReuseAddr(Socket socket, boolean b) {
             return TenetMacosBinding.setReuseAddr(socket.intValue(), b ? 1 : 0);
         }
 
+        /**
+         *   SO_REUSEPORT mode is only supported on Linux, macOS doesn't distribute connections between sockets bound to the same port
+         */
+        @Override
+        public int setReusePort(Socket socket, boolean b) {
+            throw new FrameworkException(ExceptionType.NETWORK, "SO_REUSEPORT is not supported on macOS");
+        }
+
         @Override
         public int setKeepAlive(Socket socket, boolean b) {
             return TenetMacosBinding.setKeepAlive(socket.intValue(), b ? 1 : 0);
@@ -1095,13 +1716,17 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
         }
 
         @Override
-        public MuxEvent access(MemorySegment events, int index) {
+        public int accessSocket(MemorySegment events, int index) {
+            return Math.toIntExact(NativeUtil.getLong(events, index * keventSize + identOffset));
+        }
+
+        @Override
+        public int accessEvent(MemorySegment events, int index) {
             short filter = NativeUtil.getShort(events, index * keventSize + filterOffset);
-            int socket = Math.toIntExact(NativeUtil.getLong(events, index * keventSize + identOffset));
             if(filter == Constants.EVFILT_READ) {
-                return new MuxEvent(socket, Constants.NET_R);
+                return Constants.NET_R;
             }else if(filter == Constants.EVFILT_WRITE) {
-                return new MuxEvent(socket, Constants.NET_W);
+                return Constants.NET_W;
             }else {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
@@ -1124,8 +1749,11 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
 
         @Override
         public Socket accept(Socket socket, MemorySegment addr, MemApi memApi) {
-            int fd = check(TenetMacosBinding.accept(socket.intValue(), addr, (int) addr.byteSize()), "accept");
-            return Socket.ofInt(fd);
+            int fd = TenetMacosBinding.accept(socket.intValue(), addr, (int) addr.byteSize());
+            if(fd < 0 && Math.abs(fd) == sendBlockCode) {
+                return null;
+            }
+            return Socket.ofInt(check(fd, "accept"));
         }
 
         @Override
@@ -1148,6 +1776,23 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetMacosBinding.send(socket.intValue(), data, len);
         }
 
+        @Override
+        public long sendv(Socket socket, MemorySegment[] segments, int count, MemApi memApi) {
+            if(!TenetMacosBinding.writevSupported()) {
+                // older tenet library without gather write, sending the first segment only is a valid partial write
+                return send(socket, segments[0], segments[0].byteSize());
+            }
+            try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+                MemorySegment iov = allocator.allocate(MemoryLayout.sequenceLayout(count, iovecLayout));
+                for(int i = 0; i < count; i++) {
+                    MemorySegment segment = segments[i];
+                    NativeUtil.setAddress(iov, i * iovecSize + iovBaseOffset, segment);
+                    NativeUtil.setLong(iov, i * iovecSize + iovLenOffset, segment.byteSize());
+                }
+                return TenetMacosBinding.writev(socket.intValue(), iov, count);
+            }
+        }
+
         @Override
         public int getErrOpt(Socket socket, MemApi memApi) {
             try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
@@ -1173,6 +1818,62 @@ public sealed interface OsNetworkLibrary permits OsNetworkLibrary.WindowsNetwork
             return TenetMacosBinding.close(mux.kqfd());
         }
 
+        @Override
+        public Waker createWaker(Mux mux) {
+            if(!TenetMacosBinding.pipeSupported()) {
+                return null;
+            }
+            try(Allocator allocator = Allocator.newDirectAllocator(MemApi.DEFAULT)) {
+                MemorySegment fds = allocator.allocate(MemoryLayout.sequenceLayout(2, ValueLayout.JAVA_INT));
+                check(TenetMacosBinding.pipe(fds), "pipe create");
+                int readFd = NativeUtil.getInt(fds, 0L);
+                int writeFd = NativeUtil.getInt(fds, 4L);
+                ctl(mux, Socket.ofInt(readFd), Constants.NET_NONE, Constants.NET_R, MemApi.DEFAULT);
+                return new Waker(readFd, writeFd);
+            }
+        }
+
+        @Override
+        public void signalWaker(Waker waker) {
+            check(TenetMacosBinding.pipeWrite(waker.writeFd()), "pipe write");
+        }
+
+        @Override
+        public void drainWaker(Waker waker) {
+            check(TenetMacosBinding.pipeRead(waker.readFd()), "pipe read");
+        }
+
+        @Override
+        public void closeWaker(Waker waker) {
+            check(TenetMacosBinding.close(waker.readFd()), "pipe close");
+            check(TenetMacosBinding.close(waker.writeFd()), "pipe close");
+        }
+
+        @Override
+        public int openFile(String path, MemApi memApi) {
+            if(!TenetMacosBinding.fileTransferSupported()) {
+                throw new FrameworkException(ExceptionType.NETWORK, "File transfer is not supported by current tenet library");
+            }
+            try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+                return TenetMacosBinding.openFile(allocator.allocateFrom(path, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public long sendFile(Socket socket, int fd, long offset, long len) {
+            return TenetMacosBinding.sendFile(socket.intValue(), fd, offset, len);
+        }
+
+        @Override
+        public long readFile(int fd, MemorySegment data, long len, long offset) {
+            return TenetMacosBinding.pread(fd, data, len, offset);
+        }
+
+        @Override
+        public int closeFile(int fd) {
+            return TenetMacosBinding.close(fd);
+        }
+
         @Override
         public void exit() {
             // No action, kqueue doesn't need external operations for clean up
@@ -0,0 +1,62 @@
+package cn.zorcc.common.network;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ *   Placement decides which poller a new channel should be bound to, developers could provide their own implementation based on PollerLoad
+ */
+@FunctionalInterface
+public interface Placement {
+    /**
+     *   Select a poller for a new channel, seq is an increasing sequence number for each channel
+     */
+    Poller select(List<Poller> pollers, int seq);
+
+    /**
+     *   Choose pollers one by one
+     */
+    static Placement roundRobin() {
+        return (pollers, seq) -> pollers.get(Math.floorMod(seq, pollers.size()));
+    }
+
+    /**
+     *   Choose the poller with the least connections, starting from a rotating index so that ties would be spread
+     */
+    static Placement leastConnections() {
+        return (pollers, seq) -> {
+            int size = pollers.size();
+            int start = Math.floorMod(seq, size);
+            Poller result = pollers.get(start);
+            for(int i = 1; i < size; i++) {
+                Poller poller = pollers.get((start + i) % size);
+                if(poller.load().connections() < result.load().connections()) {
+                    result = poller;
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     *   Choose two pollers randomly and pick the less loaded one, comparing busy time, bytes per second and connections
+     *   This avoids the herd behaviour of always picking the global minimum when the load statistics are stale
+     */
+    static Placement powerOfTwoChoices() {
+        return (pollers, _) -> {
+            int size = pollers.size();
+            if(size == 1) {
+                return pollers.getFirst();
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int i1 = random.nextInt(size);
+            int i2 = random.nextInt(size - 1);
+            if(i2 >= i1) {
+                i2++;
+            }
+            Poller p1 = pollers.get(i1);
+            Poller p2 = pollers.get(i2);
+            return PollerLoad.compare(p1.load(), p2.load()) <= 0 ? p1 : p2;
+        };
+    }
+}
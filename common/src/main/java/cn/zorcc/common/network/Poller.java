@@ -1,36 +1,65 @@
 package cn.zorcc.common.network;
 
+import cn.zorcc.common.Clock;
 import cn.zorcc.common.Constants;
 import cn.zorcc.common.ExceptionType;
 import cn.zorcc.common.bindings.TenetBinding;
 import cn.zorcc.common.exception.FrameworkException;
 import cn.zorcc.common.log.Logger;
 import cn.zorcc.common.structure.Allocator;
+import cn.zorcc.common.structure.ChunkPool;
 import cn.zorcc.common.structure.IntMap;
 import cn.zorcc.common.structure.MemApi;
-import cn.zorcc.common.structure.TaskQueue;
+import cn.zorcc.common.structure.MpscQueue;
+import cn.zorcc.common.structure.Mutex;
+import cn.zorcc.common.structure.ObjectPool;
+import cn.zorcc.common.structure.TimerWheel;
 
 import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public record Poller(
         Mux mux,
-        TaskQueue<PollerTask> pollerQueue,
-        Thread pollerThread
+        MpscQueue<PollerTask> pollerQueue,
+        Thread pollerThread,
+        Writer writer,
+        Waker waker,
+        PollerLoad load,
+        Counters counters,
+        int cpu,
+        ExecutorService handshakeExecutor
 ) {
     private static final Logger log = new Logger(Poller.class);
     private static final AtomicInteger counter = new AtomicInteger(0);
     private static final OsNetworkLibrary osNetworkLibrary = OsNetworkLibrary.CURRENT;
     private static final ScopedValue<MemApi> MEM_SCOPE = ScopedValue.newInstance();
+    private static final ScopedValue<ChunkPool> CHUNK_SCOPE = ScopedValue.newInstance();
+    private static final ScopedValue<TimerWheel> WHEEL_SCOPE = ScopedValue.newInstance();
 
-    public static Poller newPoller(NetConfig config) {
-        Mux mux = osNetworkLibrary.createMux();
-        TaskQueue<PollerTask> pollerQueue = new TaskQueue<>(config.getPollerQueueSize());
-        Thread pollerThread = createPollerThread(mux, pollerQueue, config);
-        return new Poller(mux, pollerQueue, pollerThread);
+    /**
+     *   Create a new poller, cpu is the target cpu for pinning the poller thread, -1 means no pinning
+     *   handshakeExecutor is used for offloading TLS handshakes, null means handshakes would be performed in the poller thread
+     */
+    public static Poller newPoller(NetConfig config, int cpu, ExecutorService handshakeExecutor) {
+        Mux mux = config.isEnableEdgeTriggered() ? osNetworkLibrary.createEdgeTriggeredMux() : osNetworkLibrary.createMux();
+        MpscQueue<PollerTask> pollerQueue = new MpscQueue<>(config.getPollerQueueSize());
+        Waker waker = osNetworkLibrary.createWaker(mux);
+        PollerLoad load = new PollerLoad();
+        Counters counters = new Counters(PollerStats.SIZE);
+        if(config.isEnableThreadPerCore()) {
+            MpscQueue<WriterTask> writerQueue = new MpscQueue<>(config.getWriterQueueSize());
+            Counters writerCounters = new Counters(WriterStats.SIZE);
+            Thread pollerThread = createPollerThread(mux, pollerQueue, writerQueue, writerCounters, waker, load, counters, cpu, config);
+            return new Poller(mux, pollerQueue, pollerThread, Writer.newPollerWriter(writerQueue, pollerThread, waker, writerCounters, new ObjectPool<>(config.getWriterQueueSize())), waker, load, counters, cpu, handshakeExecutor);
+        }else {
+            Thread pollerThread = createPollerThread(mux, pollerQueue, null, null, waker, load, counters, cpu, config);
+            return new Poller(mux, pollerQueue, pollerThread, null, waker, load, counters, cpu, handshakeExecutor);
+        }
     }
 
     public void submit(PollerTask pollerTask) {
@@ -38,6 +67,9 @@ public record Poller(
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
         pollerQueue.offer(pollerTask);
+        if(waker != null) {
+            waker.wakeup();
+        }
     }
 
     /**
@@ -47,15 +79,53 @@ public record Poller(
         return MEM_SCOPE.orElseThrow(() -> new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED));
     }
 
-    private static Thread createPollerThread(Mux mux, TaskQueue<PollerTask> pollerQueue, NetConfig config) {
+    /**
+     *   Poller provides its local chunk pool for caching partial frames across multiple reads
+     */
+    static ChunkPool localChunkPool() {
+        return CHUNK_SCOPE.orElseThrow(() -> new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED));
+    }
+
+    /**
+     *   Poller provides its local timer wheel for timeouts of the channels bound to it, timers must be scheduled and cancelled in the poller thread
+     */
+    static TimerWheel localWheel() {
+        return WHEEL_SCOPE.orElseThrow(() -> new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED));
+    }
+
+    /**
+     *   Schedule a task in current poller's timer wheel
+     */
+    static TimerWheel.Timer schedule(Runnable task, Duration delay) {
+        return localWheel().schedule(task, delay.toNanos(), Clock.nano());
+    }
+
+    /**
+     *   Run an offloaded step of a poller node in current handshake thread, Poller.localMemApi() would be available with the default MemApi
+     */
+    static void runOffloaded(Runnable runnable) {
+        ScopedValue.where(MEM_SCOPE, MemApi.DEFAULT).run(runnable);
+    }
+
+    /**
+     *   In thread-per-core mode, writerQueue would be drained in poller thread, the poller thread exits only when both sides were stopped
+     */
+    private static Thread createPollerThread(Mux mux, MpscQueue<PollerTask> pollerQueue, MpscQueue<WriterTask> writerQueue, Counters writerCounters, Waker waker, PollerLoad load, Counters counters, int cpu, NetConfig config) {
         int sequence = counter.getAndIncrement();
         return Thread.ofPlatform().name(STR."poller-\{sequence}").unstarted(() -> {
             log.info(STR."Initializing poller thread, sequence : \{sequence}");
+            if(cpu >= 0) {
+                // pinning must happen before any allocation, so that the thread-local heap and buffers would be on the local NUMA node
+                osNetworkLibrary.check(osNetworkLibrary.setAffinity(cpu), "set poller affinity");
+            }
             MemApi memApi = config.isEnableRpMalloc() ? TenetBinding.rpMallocThreadInitialize() : MemApi.DEFAULT;
             int timeout = config.getPollerMuxTimeout();
-            IntMap<PollerNode> nodeMap = IntMap.newTreeMap(config.getPollerMapSize());
-            ScopedValue.runWhere(MEM_SCOPE, memApi, () -> {
-                try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+            long spinNanos = TimeUnit.MICROSECONDS.toNanos(config.getPollerBusySpin());
+            IntMap<PollerNode> nodeMap = IntMap.newArrayMap(config.getPollerMapSize());
+            ChunkPool chunkPool = new ChunkPool(memApi, config.getPollerChunkSize());
+            TimerWheel wheel = new TimerWheel(config.getPollerWheelSlots(), TimeUnit.MILLISECONDS.toNanos(config.getPollerWheelTick()), Clock.nano());
+            ScopedValue.where(MEM_SCOPE, memApi).where(CHUNK_SCOPE, chunkPool).where(WHEEL_SCOPE, wheel).run(() -> {
+                try(Allocator allocator = Allocator.newDirectAllocator(memApi); chunkPool) {
                     int maxEvents = config.getPollerMaxEvents();
                     int readBufferSize = config.getPollerBufferSize();
                     // Note that different operating system using different alignment for their event's struct layout, however, malloc just makes it always align with 8 bytes, if not, let's force it
@@ -63,32 +133,22 @@ public record Poller(
                     MemorySegment[] reservedArray = new MemorySegment[maxEvents];
                     for(int i = 0; i < reservedArray.length; i++) {
                         reservedArray[i] = allocator.allocate(ValueLayout.JAVA_BYTE, readBufferSize);
-                    }
-                    int state = Constants.RUNNING;
-                    for( ; ; ) {
-                        int r = osNetworkLibrary.waitMux(mux, events, maxEvents, timeout);
-                        state = processTasks(pollerQueue, nodeMap, state, memApi);
-                        if(state == Constants.STOPPED) {
-                            break ;
-                        }
-                        for(int index = 0; index < r; index++) {
-                            MemorySegment reserved = reservedArray[index];
-                            MuxEvent muxEvent = osNetworkLibrary.access(events, index);
-                            PollerNode pollerNode = nodeMap.get(muxEvent.socket());
-                            if(pollerNode != null) {
-                                long event = muxEvent.event();
-                                if(event == Constants.NET_W) {
-                                    pollerNode.onWritableEvent();
-                                }else if(event == Constants.NET_R || event == Constants.NET_OTHER) {
-                                    pollerNode.onReadableEvent(reserved, readBufferSize);
-                                }else {
-                                    throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
-                                }
-                            }
+                        if(cpu >= 0) {
+                            // first touch from the pinned thread, pages would be placed on the local NUMA node
+                            reservedArray[i].fill((byte) 0);
                         }
                     }
+                    Runnable pollerLoop = () -> pollerLoop(mux, pollerQueue, writerQueue, waker, load, counters, nodeMap, wheel, events, reservedArray, readBufferSize, timeout, spinNanos, maxEvents, memApi);
+                    if(writerQueue == null) {
+                        pollerLoop.run();
+                    }else {
+                        Writer.bindPollerThread(config, memApi, allocator, writerCounters, pollerLoop);
+                    }
                 }finally {
                     log.info(STR."Exiting poller thread, sequence : \{sequence}");
+                    if(waker != null) {
+                        osNetworkLibrary.closeWaker(waker);
+                    }
                     osNetworkLibrary.exitMux(mux);
                     if(config.isEnableRpMalloc()) {
                         TenetBinding.rpMallocThreadFinalize();
@@ -98,14 +158,100 @@ public record Poller(
         });
     }
 
-    private static int processTasks(TaskQueue<PollerTask> pollerQueue, IntMap<PollerNode> nodeMap, int currentState, MemApi memApi) {
-        for (PollerTask pollerTask : pollerQueue.elements()) {
+    /**
+     *   Poll the mux with zero timeout until there are events or tasks available, or the spin budget has been exhausted
+     */
+    private static int spinMux(Mux mux, MpscQueue<PollerTask> pollerQueue, MpscQueue<WriterTask> writerQueue, MemorySegment events, int maxEvents, long spinNanos) {
+        long deadline = Clock.nano() + spinNanos;
+        for( ; ; ) {
+            int r = osNetworkLibrary.waitMux(mux, events, maxEvents, 0);
+            if(r != 0 || !pollerQueue.isEmpty() || (writerQueue != null && !writerQueue.isEmpty()) || Clock.nano() - deadline >= 0L) {
+                return r;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     *   If waker exists, poller would mark itself as waiting before blocking on mux, so that producers could wake it up immediately
+     *   If busy spinning is enabled, poller would spin on the mux after a productive round before blocking, producers don't need to signal a spinning poller
+     *   The blocking time would be limited by the next tick of the timer wheel if there are pending timers
+     */
+    private static void pollerLoop(Mux mux, MpscQueue<PollerTask> pollerQueue, MpscQueue<WriterTask> writerQueue, Waker waker, PollerLoad load, Counters counters, IntMap<PollerNode> nodeMap, TimerWheel wheel, MemorySegment events, MemorySegment[] reservedArray, int readBufferSize, int timeout, long spinNanos, int maxEvents, MemApi memApi) {
+        int state = Constants.RUNNING;
+        boolean productive = false;
+        for( ; ; ) {
+            int r = productive && spinNanos > 0L ? spinMux(mux, pollerQueue, writerQueue, events, maxEvents, spinNanos) : 0;
+            if(r == 0) {
+                long delay = wheel.nextDelay(Clock.nano());
+                int t = delay < 0L ? timeout : (int) Math.min(timeout, Math.ceilDiv(delay, TimeUnit.MILLISECONDS.toNanos(1L)));
+                if(waker != null) {
+                    waker.sleep();
+                    if(!pollerQueue.isEmpty() || (writerQueue != null && !writerQueue.isEmpty())) {
+                        waker.awake();
+                        t = 0;
+                    }
+                }
+                r = osNetworkLibrary.waitMux(mux, events, maxEvents, t);
+                if(waker != null) {
+                    waker.awake();
+                }
+            }
+            productive = r > 0 || !pollerQueue.isEmpty() || (writerQueue != null && !writerQueue.isEmpty());
+            counters.increase(PollerStats.WAITS);
+            if(r > 0) {
+                counters.add(PollerStats.EVENTS, r);
+            }
+            long start = Clock.nano();
+            state = processTasks(mux, pollerQueue, counters, nodeMap, state, memApi);
+            boolean writerStopped = writerQueue == null || Writer.drainWriterTasks(writerQueue);
+            if(state == Constants.STOPPED && writerStopped) {
+                break ;
+            }
+            for(int index = 0; index < r; index++) {
+                MemorySegment reserved = reservedArray[index];
+                int socket = osNetworkLibrary.accessSocket(events, index);
+                if(waker != null && socket == waker.readFd()) {
+                    osNetworkLibrary.drainWaker(waker);
+                    continue ;
+                }
+                PollerNode pollerNode = nodeMap.get(socket);
+                if(pollerNode != null) {
+                    int event = osNetworkLibrary.accessEvent(events, index);
+                    if(event == Constants.NET_W) {
+                        pollerNode.onWritableEvent();
+                    }else if(event == Constants.NET_R || event == Constants.NET_OTHER) {
+                        pollerNode.onReadableEvent(reserved, readBufferSize);
+                    }else if(event == Constants.NET_RW) {
+                        pollerNode.onReadableEvent(reserved, readBufferSize);
+                        // pollerNode might be closed when reading
+                        if(nodeMap.get(socket) == pollerNode) {
+                            pollerNode.onWritableEvent();
+                        }
+                    }else {
+                        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+                    }
+                }
+            }
+            if(wheel.advance(Clock.nano()) > 0) {
+                productive = true;
+            }
+            load.onBusy(Clock.elapsed(start));
+        }
+    }
+
+    private static int processTasks(Mux mux, MpscQueue<PollerTask> pollerQueue, Counters counters, IntMap<PollerNode> nodeMap, int currentState, MemApi memApi) {
+        for(PollerTask pollerTask = pollerQueue.poll(); pollerTask != null; pollerTask = pollerQueue.poll()) {
+            counters.increase(PollerStats.TASKS);
             switch (pollerTask.type()) {
                 case BIND -> handleBindMsg(nodeMap, pollerTask, memApi);
-                case UNBIND -> handleUnbindMsg(nodeMap, pollerTask);
-                case REGISTER -> handleRegisterMsg(nodeMap, pollerTask);
-                case UNREGISTER -> handleUnregisterMsg(nodeMap, pollerTask);
-                case CLOSE -> handleCloseMsg(nodeMap, pollerTask);
+                case LISTEN -> handleListenMsg(nodeMap, pollerTask, memApi);
+                case REGISTER -> handleRegisterMsg(mux, nodeMap, pollerTask);
+                case UNREGISTER -> handleUnregisterMsg(mux, nodeMap, pollerTask);
+                case CLOSE -> handleCloseMsg(mux, nodeMap, pollerTask);
+                case MIGRATE -> handleMigrateMsg(nodeMap, pollerTask);
+                case ADOPT -> handleAdoptMsg(nodeMap, pollerTask, memApi);
+                case HANDSHAKE -> handleHandshakeMsg(nodeMap, pollerTask);
                 case POTENTIAL_EXIT -> {
                     if(currentState == Constants.CLOSING && nodeMap.isEmpty()) {
                         return Constants.STOPPED;
@@ -132,40 +278,115 @@ public record Poller(
         Channel channel = pollerTask.channel();
         if(pollerTask.msg() instanceof Sentry sentry) {
             nodeMap.put(channel.socket().intValue(), new PollerNode.SentryPollerNode(nodeMap, channel, sentry, memApi));
+        }else if(pollerTask.msg() instanceof SentryWithTimeout(Sentry sentry, Duration timeout)) {
+            PollerNode.SentryPollerNode sentryPollerNode = new PollerNode.SentryPollerNode(nodeMap, channel, sentry, memApi);
+            nodeMap.put(channel.socket().intValue(), sentryPollerNode);
+            sentryPollerNode.expireAfter(timeout);
+        }else if(pollerTask.msg() instanceof Mutex mutex) {
+            // datagram channel has no connecting phase, it would be mounted directly
+            PollerNode.DatagramPollerNode datagramPollerNode = new PollerNode.DatagramPollerNode(nodeMap, channel, mutex, memApi);
+            nodeMap.put(channel.socket().intValue(), datagramPollerNode);
+            datagramPollerNode.mount();
         }else {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
     }
 
-    private static void handleUnbindMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
-        Channel channel = pollerTask.channel();
-        PollerNode pollerNode = nodeMap.get(channel.socket().intValue());
-        if(pollerNode instanceof PollerNode.SentryPollerNode sentryPollerNode) {
-            sentryPollerNode.onClose(pollerTask);
+    private static void handleListenMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask, MemApi memApi) {
+        if(pollerTask.msg() instanceof AcceptorTask acceptorTask) {
+            Socket socket = acceptorTask.listenerTask().socket();
+            nodeMap.put(socket.intValue(), new PollerNode.AcceptorPollerNode(nodeMap, acceptorTask, memApi));
+            osNetworkLibrary.ctlMux(acceptorTask.poller().mux(), socket, Constants.NET_NONE, Constants.NET_R, memApi);
+        }else {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
     }
 
-    private static void handleRegisterMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
+    private static void handleRegisterMsg(Mux mux, IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
         Channel channel = pollerTask.channel();
         PollerNode pollerNode = nodeMap.get(channel.socket().intValue());
         if(pollerNode != null) {
             pollerNode.onRegisterTaggedMsg(pollerTask);
+        }else {
+            forwardMsg(mux, pollerTask);
         }
     }
 
-    private static void handleUnregisterMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
+    private static void handleUnregisterMsg(Mux mux, IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
         Channel channel = pollerTask.channel();
         PollerNode pollerNode = nodeMap.get(channel.socket().intValue());
         if(pollerNode != null) {
             pollerNode.onUnregisterTaggedMsg(pollerTask);
+        }else {
+            forwardMsg(mux, pollerTask);
         }
     }
 
-    private static void handleCloseMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
+    private static void handleCloseMsg(Mux mux, IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
         Channel channel = pollerTask.channel();
         PollerNode pollerNode = nodeMap.get(channel.socket().intValue());
         if(pollerNode != null) {
             pollerNode.onClose(pollerTask);
+        }else {
+            forwardMsg(mux, pollerTask);
+        }
+    }
+
+    /**
+     *   Migrate idle channels to the target poller, only ProtocolPollerNode with no pending state could be migrated
+     */
+    private static void handleMigrateMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
+        if(pollerTask.msg() instanceof MigrateTask(Poller target, int count)) {
+            int migrated = 0;
+            for (PollerNode pollerNode : nodeMap.asList()) {
+                if(migrated == count) {
+                    break ;
+                }
+                if(pollerNode instanceof PollerNode.ProtocolPollerNode protocolPollerNode && protocolPollerNode.migrate(target)) {
+                    migrated++;
+                }
+            }
+            if(migrated > 0) {
+                log.info(STR."Migrated \{migrated} channels to \{target.pollerThread().getName()}");
+            }
+        }else {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+    }
+
+    private static void handleAdoptMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask, MemApi memApi) {
+        Channel channel = pollerTask.channel();
+        if(pollerTask.msg() instanceof ProtocolWithMutex(Protocol protocol, Mutex mutex)) {
+            PollerNode.ProtocolPollerNode protocolPollerNode = new PollerNode.ProtocolPollerNode(nodeMap, channel, protocol, mutex, memApi);
+            nodeMap.put(channel.socket().intValue(), protocolPollerNode);
+            protocolPollerNode.adopt();
+        }else {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+    }
+
+    /**
+     *   Offloaded handshake step finished, the sentry node stays in nodeMap until its result was handled
+     */
+    private static void handleHandshakeMsg(IntMap<PollerNode> nodeMap, PollerTask pollerTask) {
+        if(pollerTask.msg() instanceof HandshakeTask handshakeTask) {
+            if(nodeMap.get(pollerTask.channel().socket().intValue()) instanceof PollerNode.SentryPollerNode sentryPollerNode && sentryPollerNode == handshakeTask.node()) {
+                sentryPollerNode.onHandshakeResult(handshakeTask);
+            }else {
+                throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+            }
+        }else {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+    }
+
+    /**
+     *   Channel might have been migrated to another poller, the msg would be forwarded to its current poller
+     */
+    private static void forwardMsg(Mux mux, PollerTask pollerTask) {
+        Poller current = pollerTask.channel().poller();
+        if(current.mux() != mux) {
+            current.submit(pollerTask);
         }
     }
 }
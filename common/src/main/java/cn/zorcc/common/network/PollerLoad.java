@@ -0,0 +1,102 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.Clock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+
+/**
+ *   Live load statistics of a poller, used for placing new channels and rebalancing
+ *   Connection count could be modified by any thread, other metrics are accumulated by the poller thread and published once per sample interval
+ */
+public final class PollerLoad {
+    private static final long SAMPLE_INTERVAL = Duration.ofSeconds(1).toNanos();
+    private static final VarHandle connectionsHandle;
+
+    static {
+        try{
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            connectionsHandle = lookup.findVarHandle(PollerLoad.class, "connections", int.class);
+        }catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private volatile int connections;
+    private volatile long bytesPerSecond;
+    private volatile int busyPermille;
+    /**
+     *   Accumulators, only accessed by the poller thread
+     */
+    private long bytes;
+    private long busyNanos;
+    private long sampleStart = Clock.nano();
+
+    /**
+     *   Return current connection count bound to the poller, including the ones still connecting
+     */
+    public int connections() {
+        return connections;
+    }
+
+    /**
+     *   Return the bytes received per second in last sample interval
+     */
+    public long bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     *   Return the ratio of time the poller spent on processing instead of waiting in last sample interval, ranging from 0 to 1000
+     */
+    public int busyPermille() {
+        return busyPermille;
+    }
+
+    void increaseConnections() {
+        connectionsHandle.getAndAdd(this, 1);
+    }
+
+    void decreaseConnections() {
+        connectionsHandle.getAndAdd(this, -1);
+    }
+
+    /**
+     *   Record bytes received, invoked by the poller thread
+     */
+    void onRead(long len) {
+        bytes += len;
+    }
+
+    /**
+     *   Record busy time of a single loop, invoked by the poller thread
+     */
+    void onBusy(long nanos) {
+        busyNanos += nanos;
+        long now = Clock.nano();
+        long elapsed = now - sampleStart;
+        if(elapsed >= SAMPLE_INTERVAL) {
+            bytesPerSecond = (long) (bytes * ((double) SAMPLE_INTERVAL / elapsed));
+            busyPermille = (int) Math.min(1000L, busyNanos * 1000L / elapsed);
+            bytes = 0L;
+            busyNanos = 0L;
+            sampleStart = now;
+        }
+    }
+
+    /**
+     *   Compare two poller loads, busy time first, then bytes per second, then connection count
+     */
+    static int compare(PollerLoad l1, PollerLoad l2) {
+        int r = Integer.compare(l1.busyPermille(), l2.busyPermille());
+        if(r == 0) {
+            r = Long.compare(l1.bytesPerSecond(), l2.bytesPerSecond());
+        }
+        if(r == 0) {
+            r = Integer.compare(l1.connections(), l2.connections());
+        }
+        return r;
+    }
+}
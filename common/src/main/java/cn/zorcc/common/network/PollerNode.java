@@ -1,5 +1,6 @@
 package cn.zorcc.common.network;
 
+import cn.zorcc.common.Clock;
 import cn.zorcc.common.Constants;
 import cn.zorcc.common.ExceptionType;
 import cn.zorcc.common.Ref;
@@ -9,13 +10,17 @@ import cn.zorcc.common.structure.*;
 import cn.zorcc.common.util.NativeUtil;
 
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
-public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNode.ProtocolPollerNode {
+public sealed interface PollerNode permits PollerNode.AcceptorPollerNode, PollerNode.SentryPollerNode, PollerNode.ProtocolPollerNode, PollerNode.DatagramPollerNode {
     OsNetworkLibrary osNetworkLibrary = OsNetworkLibrary.CURRENT;
     /**
      *   This function would be invoked when channel become readable
@@ -47,6 +52,132 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
      */
     void exit(Duration duration);
 
+    /**
+     *   AcceptorPollerNode owns a SO_REUSEPORT listening socket, the kernel would spread incoming connections among all the pollers
+     *   Accepted sockets were mounted on current poller directly, without going through the net thread
+     */
+    final class AcceptorPollerNode implements PollerNode {
+        private static final Logger log = new Logger(AcceptorPollerNode.class);
+        /**
+         *   Max connections accepted for a single readable event, so that an accept storm wouldn't starve the established channels, tasks and timers of current poller
+         */
+        private static final int MAX_ACCEPT_BATCH = 64;
+        /**
+         *   Read interest of the listening socket would be dropped for this period when accept() failed, e.g. EMFILE, or the poller would spin on the readable listener
+         */
+        private static final Duration ACCEPT_BACKOFF = Duration.ofMillis(100);
+        private final IntMap<PollerNode> nodeMap;
+        private final ListenerTask listenerTask;
+        private final Poller poller;
+        private final List<Writer> writers;
+        private final MemApi memApi;
+        private int counter = 0;
+        private TimerWheel.Timer backoffTimer;
+
+        public AcceptorPollerNode(IntMap<PollerNode> nodeMap, AcceptorTask acceptorTask, MemApi memApi) {
+            this.nodeMap = nodeMap;
+            this.listenerTask = acceptorTask.listenerTask();
+            this.poller = acceptorTask.poller();
+            this.writers = acceptorTask.writers();
+            this.memApi = memApi;
+        }
+
+        /**
+         *   Accept in a batch until there is no pending connection in the full-connection queue, or the batch limit has been reached
+         *   For level-triggered mux, the listening socket would be reported again in next round if there are still pending connections,
+         *   for edge-triggered mux, it would be registered again so that the remaining connections would be reported
+         */
+        @Override
+        public void onReadableEvent(MemorySegment reserved, long len) {
+            Loc serverLoc = listenerTask.loc();
+            for(int i = 0; i < MAX_ACCEPT_BATCH; i++) {
+                SocketAndLoc socketAndLoc;
+                try{
+                    socketAndLoc = osNetworkLibrary.accept(serverLoc, listenerTask.socket(), listenerTask.socketConfig(), memApi);
+                }catch (RuntimeException e) {
+                    log.error(STR."Failed to accept connection on \{ serverLoc }, backing off for \{ ACCEPT_BACKOFF.toMillis() } ms", e);
+                    backoff();
+                    return ;
+                }
+                if(socketAndLoc == null) {
+                    return ;
+                }
+                Socket clientSocket = socketAndLoc.socket();
+                Writer writer = writers.get(counter++ % writers.size());
+                Encoder encoder = listenerTask.encoderSupplier().get();
+                Decoder decoder = listenerTask.decoderSupplier().get();
+                Handler handler = listenerTask.handlerSupplier().get();
+                Channel channel = Channel.newChannel(clientSocket, encoder, decoder, handler, poller, writer, socketAndLoc.loc(), listenerTask.socketConfig());
+                Sentry sentry = listenerTask.provider().create(channel);
+                poller.load().increaseConnections();
+                nodeMap.put(clientSocket.intValue(), new SentryPollerNode(nodeMap, channel, sentry, memApi));
+                osNetworkLibrary.ctlMux(poller.mux(), clientSocket, Constants.NET_NONE, Constants.NET_W, memApi);
+            }
+            if(poller.mux().edgeTriggered()) {
+                Socket socket = listenerTask.socket();
+                osNetworkLibrary.ctlMux(poller.mux(), socket, Constants.NET_R, Constants.NET_NONE, memApi);
+                osNetworkLibrary.ctlMux(poller.mux(), socket, Constants.NET_NONE, Constants.NET_R, memApi);
+            }
+        }
+
+        /**
+         *   Drop the read interest of the listening socket, and restore it after the backoff period
+         */
+        private void backoff() {
+            osNetworkLibrary.ctlMux(poller.mux(), listenerTask.socket(), Constants.NET_R, Constants.NET_NONE, memApi);
+            backoffTimer = Poller.schedule(this::resume, ACCEPT_BACKOFF);
+        }
+
+        private void resume() {
+            backoffTimer = null;
+            Socket socket = listenerTask.socket();
+            if(nodeMap.get(socket.intValue()) == this) {
+                osNetworkLibrary.ctlMux(poller.mux(), socket, Constants.NET_NONE, Constants.NET_R, memApi);
+            }
+        }
+
+        @Override
+        public void onWritableEvent() {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+
+        @Override
+        public void onRegisterTaggedMsg(PollerTask pollerTask) {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+
+        @Override
+        public void onUnregisterTaggedMsg(PollerTask pollerTask) {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+
+        @Override
+        public void onClose(PollerTask pollerTask) {
+            // No action, listening socket would only be closed when exiting
+        }
+
+        @Override
+        public void exit(Duration duration) {
+            Socket socket = listenerTask.socket();
+            if(nodeMap.remove(socket.intValue(), this)) {
+                if(backoffTimer != null) {
+                    // read interest has already been dropped
+                    backoffTimer.cancel();
+                    backoffTimer = null;
+                }else {
+                    osNetworkLibrary.ctlMux(poller.mux(), socket, Constants.NET_R, Constants.NET_NONE, memApi);
+                }
+                int r = osNetworkLibrary.closeSocket(socket);
+                if(r < 0) {
+                    log.error(STR."Failed to close listening socket, errno : \{Math.abs(r)}");
+                }
+                if(nodeMap.isEmpty()) {
+                    poller.submit(new PollerTask(PollerTaskType.POTENTIAL_EXIT, null, null));
+                }
+            }
+        }
+    }
+
     final class SentryPollerNode implements PollerNode {
         private static final Logger log = new Logger(SentryPollerNode.class);
         private final IntMap<PollerNode> nodeMap;
@@ -58,6 +189,13 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
          *   When channel was mounted on the Poller thread, the initial state must be NET_W
          */
         private int state = Constants.NET_W;
+        private TimerWheel.Timer connectTimer;
+        /**
+         *   If a handshake step is running in the handshake executor, the socket would be removed from the mux, and closing would be delayed until the step finished
+         */
+        private boolean offloaded = false;
+        private boolean closePending = false;
+        private int parkedState;
 
         public SentryPollerNode(IntMap<PollerNode> nodeMap, Channel channel, Sentry sentry, MemApi memApi) {
             this.nodeMap = nodeMap;
@@ -68,6 +206,9 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
 
         @Override
         public void onReadableEvent(MemorySegment reserved, long len) {
+            if(offloaded || (sentry.offloadable() && offload(true))) {
+                return ;
+            }
             try{
                 handleEvent(sentry.onReadableEvent(reserved, len));
             }catch (RuntimeException e) {
@@ -78,6 +219,9 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
 
         @Override
         public void onWritableEvent() {
+            if(offloaded || (sentry.offloadable() && offload(false))) {
+                return ;
+            }
             try {
                 handleEvent(sentry.onWritableEvent());
             }catch (RuntimeException e) {
@@ -86,6 +230,58 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             }
         }
 
+        /**
+         *   Park current sentry by removing it from the mux, then perform the step in the handshake executor, return false if the step should be performed inline
+         */
+        private boolean offload(boolean readable) {
+            ExecutorService executor = channel.poller().handshakeExecutor();
+            if(executor == null) {
+                return false;
+            }
+            parkedState = state;
+            ctl(Constants.NET_NONE);
+            try{
+                executor.execute(() -> Poller.runOffloaded(() -> {
+                    HandshakeTask handshakeTask;
+                    try{
+                        handshakeTask = new HandshakeTask(this, readable ? sentry.onReadableEvent(MemorySegment.NULL, 0L) : sentry.onWritableEvent(), null);
+                    }catch (RuntimeException e) {
+                        handshakeTask = new HandshakeTask(this, Constants.NET_IGNORED, e);
+                    }
+                    channel.poller().submit(new PollerTask(PollerTaskType.HANDSHAKE, channel, handshakeTask));
+                }));
+            }catch (RejectedExecutionException e) {
+                // executor is saturated or shut down, fall back to the poller thread
+                ctl(parkedState);
+                return false;
+            }
+            offloaded = true;
+            return true;
+        }
+
+        /**
+         *   Handle the result of an offloaded step, the socket would be added back to the mux with the expected state
+         */
+        void onHandshakeResult(HandshakeTask handshakeTask) {
+            offloaded = false;
+            if(closePending) {
+                close();
+                return ;
+            }
+            if(handshakeTask.throwable() != null) {
+                log.error("Exception thrown in sentryPollerNode when performing offloaded handshake", handshakeTask.throwable());
+                close();
+                return ;
+            }
+            try{
+                int r = handshakeTask.result();
+                handleEvent(r == Constants.NET_IGNORED ? parkedState : r);
+            }catch (RuntimeException e) {
+                log.error("Exception thrown in sentryPollerNode when handling offloaded handshake", e);
+                close();
+            }
+        }
+
         @Override
         public void onRegisterTaggedMsg(PollerTask pollerTask) {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
@@ -108,6 +304,20 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             close();
         }
 
+        /**
+         *   Close current sentry if it's not upgraded to protocol before timeout, must be invoked in poller thread
+         */
+        void expireAfter(Duration timeout) {
+            connectTimer = Poller.schedule(this::close, timeout);
+        }
+
+        private void cancelConnectTimer() {
+            if(connectTimer != null) {
+                connectTimer.cancel();
+                connectTimer = null;
+            }
+        }
+
         private void handleEvent(int r) {
             switch (r) {
                 case Constants.NET_UPDATE -> updateToProtocol();
@@ -128,6 +338,7 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         }
 
         private void updateToProtocol() {
+            cancelConnectTimer();
             try{
                 channel.handler().onConnected(channel);
             }catch (RuntimeException e) {
@@ -144,7 +355,15 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         }
 
         private void close() {
+            if(offloaded) {
+                // the sentry is still being used by the handshake thread, it would be closed when the result was posted back
+                cancelConnectTimer();
+                closePending = true;
+                return ;
+            }
             if(nodeMap.remove(channel.socket().intValue(), this)) {
+                cancelConnectTimer();
+                channel.poller().load().decreaseConnections();
                 closeSentry();
                 if(nodeMap.isEmpty()) {
                     channel.poller().submit(new PollerTask(PollerTaskType.POTENTIAL_EXIT, null, null));
@@ -175,32 +394,128 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         private final Mutex mutex;
         private final MemApi memApi;
         private List<Object> entityList = new ArrayList<>(MAX_LIST_SIZE);
-        private WriteBuffer tempBuffer;
+        /**
+         *   Reused for decoding the received segment directly, so that reading a complete frame would not allocate
+         */
+        private final ReadBuffer readBuffer = new ReadBuffer(MemorySegment.NULL);
+        private ReadChain readChain;
         private RefMap refMap;
         private Ref seqRef;
+        private TimerWheel.Timer seqTimer;
+        private final long readIdleNanos;
+        private final long writeIdleNanos;
+        private long lastRead;
+        private long lastWriteIdle;
+        private TimerWheel.Timer idleTimer;
 
+        /**
+         *   ProtocolPollerNode must be created in its poller thread, idle checking would be scheduled in the poller's timer wheel
+         */
         public ProtocolPollerNode(IntMap<PollerNode> nodeMap, Channel channel, Protocol protocol, Mutex mutex, MemApi memApi) {
             this.nodeMap = nodeMap;
             this.channel = channel;
             this.protocol = protocol;
             this.mutex = mutex;
             this.memApi = memApi;
+            this.readIdleNanos = TimeUnit.SECONDS.toNanos(channel.socketConfig().getReadIdleTimeout());
+            this.writeIdleNanos = TimeUnit.SECONDS.toNanos(channel.socketConfig().getWriteIdleTimeout());
+            if(readIdleNanos > 0L || writeIdleNanos > 0L) {
+                long now = Clock.nano();
+                lastRead = now;
+                lastWriteIdle = now;
+                idleTimer = Poller.schedule(this::checkIdle, Duration.ofNanos(nextIdleCheck(now)));
+            }
         }
 
-        @Override
-        public void onReadableEvent(MemorySegment reserved, long len) {
-            long r;
+        /**
+         *   Return the delay of next idle checking
+         */
+        private long nextIdleCheck(long now) {
+            long delay = Long.MAX_VALUE;
+            if(readIdleNanos > 0L) {
+                delay = Math.min(delay, lastRead + readIdleNanos - now);
+            }
+            if(writeIdleNanos > 0L && channel instanceof Channel.ChannelImpl channelImpl) {
+                delay = Math.min(delay, Math.max(channelImpl.lastWrite().getOpaque(), lastWriteIdle) + writeIdleNanos - now);
+            }
+            return Math.max(delay, 0L);
+        }
+
+        /**
+         *   Check if current channel is idle, the handler would be notified once for each idle period
+         */
+        private void checkIdle() {
+            idleTimer = null;
+            long now = Clock.nano();
             try{
-                r = protocol.onReadableEvent(reserved, len);
+                if(readIdleNanos > 0L && now - lastRead >= readIdleNanos) {
+                    lastRead = now;
+                    channel.handler().onReadIdle(channel);
+                }
+                if(writeIdleNanos > 0L && channel instanceof Channel.ChannelImpl channelImpl && now - Math.max(channelImpl.lastWrite().getOpaque(), lastWriteIdle) >= writeIdleNanos) {
+                    lastWriteIdle = now;
+                    channel.handler().onWriteIdle(channel);
+                }
             }catch (RuntimeException e) {
-                log.error("Exception thrown in protocolPollerNode when invoking onReadableEvent()", e);
+                log.error("Err occurred in idle handler", e);
                 close();
                 return ;
             }
-            if(r >= 0L) {
-                handleReceived(reserved, len, r);
-            }else {
-                handleEvent(Math.toIntExact(-r));
+            if(nodeMap.get(channel.socket().intValue()) == this) {
+                idleTimer = Poller.schedule(this::checkIdle, Duration.ofNanos(nextIdleCheck(now)));
+            }
+        }
+
+        private void cancelTimers() {
+            if(idleTimer != null) {
+                idleTimer.cancel();
+                idleTimer = null;
+            }
+            if(seqTimer != null) {
+                seqTimer.cancel();
+                seqTimer = null;
+            }
+        }
+
+        /**
+         *   For edge-triggered mux, we must keep reading until the socket has been drained, or the remaining data would never be notified again
+         */
+        @Override
+        public void onReadableEvent(MemorySegment reserved, long len) {
+            boolean edgeTriggered = channel.poller().mux().edgeTriggered();
+            for( ; ; ) {
+                long r;
+                try{
+                    r = protocol.onReadableEvent(reserved, len);
+                }catch (RuntimeException e) {
+                    log.error("Exception thrown in protocolPollerNode when invoking onReadableEvent()", e);
+                    close();
+                    return ;
+                }
+                Poller poller = channel.poller();
+                poller.counters().increase(PollerStats.RECV_CALLS);
+                if(r >= 0L) {
+                    if(r > 0L) {
+                        poller.counters().add(PollerStats.BYTES_IN, r);
+                        if(channel instanceof Channel.ChannelImpl channelImpl) {
+                            channelImpl.counters().add(ChannelStats.BYTES_IN, r);
+                        }
+                        if(readIdleNanos > 0L) {
+                            lastRead = Clock.nano();
+                        }
+                    }
+                    poller.load().onRead(r);
+                    handleReceived(reserved, len, r);
+                    if(!edgeTriggered || r == 0L || nodeMap.get(channel.socket().intValue()) != this) {
+                        return ;
+                    }
+                }else {
+                    if(r == -Constants.NET_IGNORED) {
+                        poller.counters().increase(PollerStats.RECV_BLOCKED);
+                    }
+                    handleEvent(Math.toIntExact(-r));
+                    return ;
+                }
             }
         }
 
@@ -221,21 +536,25 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
 
         /**
          *   Register taggedMsg are trusted with no tag conflicting, developers must make sure of that, otherwise there will be unknown mistakes
+         *   The timeout of taggedMsg would be scheduled in the poller's timer wheel, and cancelled when the response arrives
          */
         @Override
         public void onRegisterTaggedMsg(PollerTask pollerTask) {
             if(pollerTask.channel() == channel && pollerTask.msg() instanceof TagWithRef tr) {
                 MemorySegment tag = tr.tag();
+                TimerWheel.Timer timer = Poller.schedule(() -> unregister(tr), tr.timeout());
                 if(tag == MemorySegment.NULL) {
                     if(seqRef != null) {
                         seqRef.assign(Channel.FAILED);
+                        seqTimer.cancel();
                     }
                     seqRef = tr.ref();
+                    seqTimer = timer;
                 }else {
                     if(refMap == null) {
                         refMap = RefMap.newInstance(MAP_SIZE);
                     }
-                    refMap.put(tag, tr.ref());
+                    refMap.put(tag, tr.ref(), timer);
                 }
             }
         }
@@ -246,19 +565,25 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         @Override
         public void onUnregisterTaggedMsg(PollerTask pollerTask) {
             if(pollerTask.channel() == channel && pollerTask.msg() instanceof TagWithRef taggedMsg) {
-                MemorySegment tag = taggedMsg.tag();
-                if(tag == MemorySegment.NULL) {
-                    if(seqRef != null && taggedMsg.ref() == seqRef) {
-                        seqRef.assign(Channel.FAILED);
-                        seqRef = null;
-                    }
-                }else if(refMap != null) {
-                    Ref ref = taggedMsg.ref();
-                    if(refMap.remove(tag, ref)) {
-                        ref.assign(Channel.FAILED);
-                        if(refMap.isEmpty()) {
-                            refMap = null;
-                        }
+                unregister(taggedMsg);
+            }
+        }
+
+        private void unregister(TagWithRef taggedMsg) {
+            MemorySegment tag = taggedMsg.tag();
+            if(tag == MemorySegment.NULL) {
+                if(seqRef != null && taggedMsg.ref() == seqRef) {
+                    seqRef.assign(Channel.FAILED);
+                    seqRef = null;
+                    seqTimer.cancel();
+                    seqTimer = null;
+                }
+            }else if(refMap != null) {
+                Ref ref = taggedMsg.ref();
+                if(refMap.remove(tag, ref)) {
+                    ref.assign(Channel.FAILED);
+                    if(refMap.isEmpty()) {
+                        refMap = null;
                     }
                 }
             }
@@ -276,6 +601,54 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             channel.shutdown(duration);
         }
 
+        /**
+         *   Migrate current channel to the target poller if it's idle, which means no partial frame, no pending tagged msg and no pending write
+         *   The socket would be removed from current mux with the mutex held, so the writer would register its interest to the target poller after that
+         */
+        boolean migrate(Poller target) {
+            if(readChain != null || refMap != null || seqRef != null || !(channel instanceof Channel.ChannelImpl channelImpl)) {
+                return false;
+            }
+            Poller current = channel.poller();
+            int state = mutex.pLock();
+            boolean idle = (state & (Constants.NET_PC | Constants.NET_WC)) == 0 && (state & Constants.NET_RW) == Constants.NET_R;
+            try{
+                if(idle) {
+                    osNetworkLibrary.ctlMux(current.mux(), channel.socket(), Constants.NET_R, Constants.NET_NONE, memApi);
+                    state -= Constants.NET_R - Constants.NET_NONE;
+                    channelImpl.migrate(target);
+                }
+            }finally {
+                mutex.pUnlock(state);
+            }
+            if(idle) {
+                nodeMap.remove(channel.socket().intValue(), this);
+                cancelTimers();
+                current.load().decreaseConnections();
+                target.load().increaseConnections();
+                mutex.transferPoller(target.pollerThread());
+                target.submit(new PollerTask(PollerTaskType.ADOPT, channel, new ProtocolWithMutex(protocol, mutex)));
+            }
+            return idle;
+        }
+
+        /**
+         *   Register the migrated channel to current poller, the writer might have already registered its writable interest
+         */
+        void adopt() {
+            int state = mutex.pLock();
+            try{
+                int current = state & Constants.NET_RW;
+                int expected = withoutSuspendedRead(state, current | Constants.NET_R);
+                if(current != expected) {
+                    osNetworkLibrary.ctlMux(channel.poller().mux(), channel.socket(), current, expected, memApi);
+                    state += expected - current;
+                }
+            }finally {
+                mutex.pUnlock(state);
+            }
+        }
+
         private void handleEvent(int r) {
             switch (r) {
                 case Constants.NET_R, Constants.NET_W, Constants.NET_RW -> ctl(r);
@@ -284,11 +657,25 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             }
         }
 
-        private void ctl(int expected) {
+        /**
+         *   Remove the read interest from expected if reading has been suspended by the writer for backpressure
+         */
+        private static int withoutSuspendedRead(int state, int expected) {
+            if((state & Constants.NET_RS) != 0 && (expected & Constants.NET_R) == Constants.NET_R) {
+                return expected - (Constants.NET_R - Constants.NET_NONE);
+            }
+            return expected;
+        }
+
+        /**
+         *   For edge-triggered mux, the writable interest would be kept once registered by the writer, it only triggers when the socket becomes writable again
+         */
+        private void ctl(int r) {
             int state = mutex.pLock();
             try {
+                int expected = withoutSuspendedRead(state, r);
                 int current = state & Constants.NET_RW;
-                if(current != expected) {
+                if(current != expected && !(channel.poller().mux().edgeTriggered() && (current & expected) == expected)) {
                     osNetworkLibrary.ctlMux(channel.poller().mux(), channel.socket(), current, expected, memApi);
                     state += expected - current;
                 }
@@ -298,39 +685,48 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         }
 
         private void handleReceived(MemorySegment segment, long len, long received) {
-            if(received == len) {
-                onReceive(segment);
-            }else if(received > 0L) {
-                onReceive(segment.asSlice(0L, received));
+            if(received > 0L) {
+                onReceive(segment, received);
             }else if(received == 0L) {
                 close();
             }
         }
 
-        private void onReceive(MemorySegment memorySegment) {
-            if(tempBuffer == null) {
-                long len = memorySegment.byteSize();
-                long readIndex = process(memorySegment);
+        /**
+         *   Unconsumed bytes would be cached in a chain of pooled chunks, the decoder reads across the cached chunks and the newly received segment without flattening them
+         *   Cached bytes were copied into the chain only once, no matter how many reads a frame spans, but a value or segment spanning two chunks would be copied again when the decoder reads it
+         */
+        private void onReceive(MemorySegment segment, long len) {
+            if(readChain == null) {
+                readBuffer.reset(segment, len);
+                long readIndex = process(readBuffer);
                 if(readIndex >= 0L && readIndex < len) {
-                    // Caching policy could use heap or non-heap, since we could manage it ourselves, let's save the trouble for GC
-                    tempBuffer = WriteBuffer.newNativeWriteBuffer(Poller.localMemApi(), len);
-                    tempBuffer.writeSegment(readIndex == 0L ? memorySegment : memorySegment.asSlice(readIndex, len - readIndex));
+                    readChain = new ReadChain(Poller.localChunkPool());
+                    readChain.append(segment.asSlice(readIndex, len - readIndex));
                 }
             }else {
-                tempBuffer.writeSegment(memorySegment);
-                long len = tempBuffer.writeIndex();
-                long readIndex = process(tempBuffer.asSegment());
-                if(readIndex == len) {
-                    tempBuffer.close();
-                    tempBuffer = null;
-                }else if(readIndex > 0L) {
-                    tempBuffer = tempBuffer.truncate(readIndex);
+                MemorySegment memorySegment = len == segment.byteSize() ? segment : segment.asSlice(0L, len);
+                long cached = readChain.size();
+                ReadBuffer composite = readChain.asReadBuffer(memorySegment);
+                long readIndex = process(composite);
+                composite.release();
+                if(readIndex < 0L) {
+                    return ;
+                }
+                if(readIndex < cached) {
+                    readChain.consume(readIndex);
+                    readChain.append(memorySegment);
+                }else if(readIndex < cached + len) {
+                    readChain.consume(cached);
+                    readChain.append(memorySegment.asSlice(readIndex - cached, cached + len - readIndex));
+                }else {
+                    readChain.close();
+                    readChain = null;
                 }
             }
         }
 
-        private long process(MemorySegment memorySegment) {
-            ReadBuffer readBuffer = new ReadBuffer(memorySegment);
+        private long process(ReadBuffer readBuffer) {
             try{
                 channel.decoder().decode(readBuffer, entityList);
             }catch (RuntimeException e) {
@@ -348,20 +744,9 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
                         close();
                         return -1;
                     }
-                    tm.ifPresent(tagMsg -> {
-                        MemorySegment tag = tagMsg.tag();
-                        if(tag == MemorySegment.NULL) {
-                            if(seqRef != null) {
-                                seqRef.assign(tagMsg.msg());
-                                seqRef = null;
-                            }
-                        } else {
-                            Ref ref = refMap.get(tag);
-                            if(ref != null && refMap.remove(tag, ref)) {
-                                ref.assign(tagMsg.msg());
-                            }
-                        }
-                    });
+                    if(tm.isPresent()) {
+                        onTagMsg(tm.get());
+                    }
                 }
                 if(entityList.size() > MAX_LIST_SIZE) {
                     entityList = new ArrayList<>();
@@ -372,18 +757,46 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             return readBuffer.currentIndex();
         }
 
+        /**
+         *   Assign the response to its pending ref, it's not a lambda so that no capturing instance would be allocated for each entity
+         */
+        private void onTagMsg(TagMsg tagMsg) {
+            MemorySegment tag = tagMsg.tag();
+            if(tag == MemorySegment.NULL) {
+                if(seqRef != null) {
+                    seqRef.assign(tagMsg.msg());
+                    seqRef = null;
+                    seqTimer.cancel();
+                    seqTimer = null;
+                }
+            } else if(refMap != null) {
+                Ref ref = refMap.get(tag);
+                if(ref != null && refMap.remove(tag, ref)) {
+                    ref.assign(tagMsg.msg());
+                    if(refMap.isEmpty()) {
+                        refMap = null;
+                    }
+                }
+            }
+        }
+
         private void close() {
             if(nodeMap.remove(channel.socket().intValue(), this)) {
-                if (tempBuffer != null) {
-                    tempBuffer.close();
-                    tempBuffer = null;
+                channel.poller().load().decreaseConnections();
+                if (readChain != null) {
+                    readChain.close();
+                    readChain = null;
                 }
                 if (refMap != null) {
                     refMap.forEach(ref -> ref.assign(Channel.FAILED));
+                    refMap.cancelTimers();
+                    refMap = null;
                 }
                 if (seqRef != null) {
                     seqRef.assign(Channel.FAILED);
+                    seqRef = null;
                 }
+                cancelTimers();
                 int state = mutex.pLock();
                 try {
                     int current = state & Constants.NET_RW;
@@ -420,6 +833,229 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         }
     }
 
+    /**
+     *   DatagramPollerNode owns a bound UDP socket, datagrams were received in batches with recvmmsg() into the node's own buffers
+     *   Each datagram would be decoded separately, unconsumed bytes would be dropped, and each entity would be delivered to the handler wrapped as a Datagram with the sender's loc
+     *   Since the socket is shared by all the peers, a malformed datagram or an exception thrown in onRecv() would only drop current datagram instead of closing the channel
+     */
+    final class DatagramPollerNode implements PollerNode {
+        private static final Logger log = new Logger(DatagramPollerNode.class);
+        private static final int MAX_LIST_SIZE = 64;
+        private final IntMap<PollerNode> nodeMap;
+        private final Channel channel;
+        private final Mutex mutex;
+        private final MemApi memApi;
+        private final int batchSize;
+        private final Allocator allocator;
+        private final MmsgBatch mmsg;
+        private final MemorySegment[] buffers;
+        /**
+         *   Holding the ip string when parsing the sender's address
+         */
+        private final MemorySegment address;
+        /**
+         *   The last sender's address and its loc, consecutive datagrams from the same peer would share the same loc
+         */
+        private final MemorySegment lastAddr;
+        private Loc lastLoc;
+        private List<Object> entityList = new ArrayList<>(MAX_LIST_SIZE);
+        private final ReadBuffer readBuffer = new ReadBuffer(MemorySegment.NULL);
+
+        public DatagramPollerNode(IntMap<PollerNode> nodeMap, Channel channel, Mutex mutex, MemApi memApi) {
+            this.nodeMap = nodeMap;
+            this.channel = channel;
+            this.mutex = mutex;
+            this.memApi = memApi;
+            SocketConfig socketConfig = channel.socketConfig();
+            this.batchSize = socketConfig.getDatagramBatchSize();
+            int bufferSize = socketConfig.getDatagramBufferSize();
+            boolean ipv6 = channel.loc().ipType() == IpType.IPV6;
+            long addrSize = ipv6 ? osNetworkLibrary.ipv6AddressSize() : osNetworkLibrary.ipv4AddressSize();
+            long addrAlign = ipv6 ? osNetworkLibrary.ipv6AddressAlign() : osNetworkLibrary.ipv4AddressAlign();
+            this.allocator = Allocator.newDirectAllocator(memApi);
+            this.mmsg = new MmsgBatch(memApi, batchSize, batchSize, addrSize, addrAlign);
+            this.buffers = new MemorySegment[batchSize];
+            MemorySegment data = allocator.allocate(ValueLayout.JAVA_BYTE, (long) batchSize * bufferSize);
+            for(int i = 0; i < batchSize; i++) {
+                buffers[i] = data.asSlice((long) i * bufferSize, bufferSize);
+                mmsg.setIov(i, buffers[i]);
+                mmsg.setMsg(i, i, 1);
+            }
+            this.address = allocator.allocate(ValueLayout.JAVA_BYTE, osNetworkLibrary.ipv6AddressLen());
+            this.lastAddr = allocator.allocate(addrSize, addrAlign);
+        }
+
+        /**
+         *   Start receiving datagrams after the handler accepts current channel
+         */
+        void mount() {
+            try{
+                channel.handler().onConnected(channel);
+            }catch (RuntimeException e) {
+                log.error("Err occurred in onConnected()", e);
+                close();
+                return ;
+            }
+            int state = mutex.pLock();
+            try{
+                osNetworkLibrary.ctlMux(channel.poller().mux(), channel.socket(), Constants.NET_NONE, Constants.NET_R, memApi);
+                state += Constants.NET_R - Constants.NET_NONE;
+            }finally {
+                mutex.pUnlock(state);
+            }
+        }
+
+        /**
+         *   For level-triggered mux, only one batch would be received for each event, so that other channels bound to the poller would not be starved
+         */
+        @Override
+        public void onReadableEvent(MemorySegment reserved, long len) {
+            boolean edgeTriggered = channel.poller().mux().edgeTriggered();
+            Counters counters = channel.poller().counters();
+            for( ; ; ) {
+                int r = osNetworkLibrary.recvMmsg(channel.socket(), mmsg.msgsFrom(0), batchSize);
+                counters.increase(PollerStats.RECV_CALLS);
+                if(r < 0) {
+                    int errno = -r;
+                    if(errno == osNetworkLibrary.sendBlockCode()) {
+                        counters.increase(PollerStats.RECV_BLOCKED);
+                    }else {
+                        // errors such as ICMP unreachable would be reported on the socket, they only concern a single peer
+                        log.warn(STR."Failed to perform recvmmsg() on \{channel.loc()}, errno : \{errno}");
+                    }
+                    return ;
+                }
+                for(int i = 0; i < r; i++) {
+                    onDatagram(i, counters);
+                }
+                if(!edgeTriggered || r < batchSize) {
+                    return ;
+                }
+            }
+        }
+
+        private void onDatagram(int index, Counters counters) {
+            int len = mmsg.msgLen(index);
+            Loc loc = senderLoc(mmsg.addr(index));
+            mmsg.resetAddrLen(index);
+            counters.add(PollerStats.BYTES_IN, len);
+            channel.poller().load().onRead(len);
+            if(channel instanceof Channel.ChannelImpl channelImpl) {
+                channelImpl.counters().add(ChannelStats.BYTES_IN, len);
+            }
+            if((mmsg.msgFlags(index) & MmsgBatch.MSG_TRUNC) != 0) {
+                log.warn(STR."Datagram from \{loc} exceeds the buffer size, dropped");
+                return ;
+            }
+            try{
+                readBuffer.reset(buffers[index], len);
+                channel.decoder().decode(readBuffer, entityList);
+            }catch (RuntimeException e) {
+                log.error(STR."Err occurred in decoder, datagram from \{loc} dropped", e);
+                entityList.clear();
+                return ;
+            }
+            if(!entityList.isEmpty()) {
+                for (Object entity : entityList) {
+                    try{
+                        channel.handler().onRecv(channel, new Datagram(loc, entity));
+                    }catch (RuntimeException e) {
+                        log.error("Err occurred in onRecv()", e);
+                    }
+                }
+                if(entityList.size() > MAX_LIST_SIZE) {
+                    entityList = new ArrayList<>();
+                }else {
+                    entityList.clear();
+                }
+            }
+        }
+
+        private Loc senderLoc(MemorySegment addr) {
+            if(lastLoc != null && addr.mismatch(lastAddr) == -1L) {
+                return lastLoc;
+            }
+            Loc loc = osNetworkLibrary.getLoc(channel.loc().ipType(), addr, address);
+            MemorySegment.copy(addr, 0L, lastAddr, 0L, addr.byteSize());
+            lastLoc = loc;
+            return loc;
+        }
+
+        @Override
+        public void onWritableEvent() {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+
+        /**
+         *   Datagram channels have no response matching, tagged msgs would be failed immediately
+         */
+        @Override
+        public void onRegisterTaggedMsg(PollerTask pollerTask) {
+            if(pollerTask.msg() instanceof TagWithRef tr) {
+                tr.ref().assign(Channel.FAILED);
+            }
+        }
+
+        @Override
+        public void onUnregisterTaggedMsg(PollerTask pollerTask) {
+            // No action, tagged msgs were never registered
+        }
+
+        @Override
+        public void onClose(PollerTask pollerTask) {
+            if(pollerTask.channel() == channel) {
+                close();
+            }
+        }
+
+        @Override
+        public void exit(Duration duration) {
+            channel.shutdown(duration);
+        }
+
+        private void close() {
+            if(nodeMap.remove(channel.socket().intValue(), this)) {
+                channel.poller().load().decreaseConnections();
+                int state = mutex.pLock();
+                try {
+                    int current = state & Constants.NET_RW;
+                    if(current != Constants.NET_NONE) {
+                        osNetworkLibrary.ctlMux(channel.poller().mux(), channel.socket(), current, Constants.NET_NONE, memApi);
+                        state -= (current - Constants.NET_NONE);
+                    }
+                    if((state & Constants.NET_WC) == Constants.NET_WC) {
+                        closeSocket(channel);
+                    }else {
+                        channel.writer().submit(new WriterTask(WriterTaskType.CLOSE, channel, null, null));
+                    }
+                    state |= Constants.NET_PC;
+                } finally {
+                    mutex.pUnlock(state);
+                }
+                mmsg.close();
+                allocator.close();
+                try{
+                    channel.handler().onRemoved(channel);
+                }catch (RuntimeException e) {
+                    log.error("Err occurred in onRemoved()", e);
+                }
+                if(nodeMap.isEmpty()) {
+                    channel.poller().submit(new PollerTask(PollerTaskType.POTENTIAL_EXIT, null, null));
+                }
+            }
+        }
+
+        /**
+         *   Close the socket of a datagram channel, invoked by the later closed side of poller and writer
+         */
+        static void closeSocket(Channel channel) {
+            int r = osNetworkLibrary.closeSocket(channel.socket());
+            if(r < 0) {
+                log.error(STR."Failed to close datagram socket, errno : \{Math.abs(r)}");
+            }
+        }
+    }
+
     /**
      *   Segment map is a data structure used in communication between virtual threads and platform threads with memory uniqueness mapping
      *   The design was to sacrifice some performance for more robust error checking mechanism, based on sorted linked list
@@ -446,6 +1082,7 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             int prefix;
             MemorySegment seg;
             Ref ref;
+            TimerWheel.Timer timer;
             Node next;
         }
 
@@ -486,6 +1123,13 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
         }
 
         public void put(MemorySegment segment, Ref ref) {
+            put(segment, ref, null);
+        }
+
+        /**
+         *   Put a ref with its timeout timer, the timer would be cancelled when the ref is removed
+         */
+        public void put(MemorySegment segment, Ref ref, TimerWheel.Timer timer) {
             if(NativeUtil.checkNullPointer(segment) || segment.isNative() || ref == null) {
                 throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
             }
@@ -494,6 +1138,7 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             n.prefix = prefix;
             n.seg = segment;
             n.ref = ref;
+            n.timer = timer;
             int index = prefix & mask;
             Node p = null, cur = nodes[index];
             if(cur == null) {
@@ -534,6 +1179,9 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
                     }else {
                         p.next = cur.next;
                     }
+                    if(cur.timer != null) {
+                        cur.timer.cancel();
+                    }
                     count--;
                     return true;
                 }else if(cur.prefix > prefix) {
@@ -554,6 +1202,22 @@ public sealed interface PollerNode permits PollerNode.SentryPollerNode, PollerNo
             return count;
         }
 
+        /**
+         *   Cancel all the timers of the refs
+         */
+        public void cancelTimers() {
+            if(count > 0) {
+                for (Node n : nodes) {
+                    for(Node ptr = n; ptr != null; ptr = ptr.next) {
+                        if(ptr.timer != null) {
+                            ptr.timer.cancel();
+                            ptr.timer = null;
+                        }
+                    }
+                }
+            }
+        }
+
         public void forEach(Consumer<Ref> refConsumer) {
             if(count > 0) {
                 for (Node n : nodes) {
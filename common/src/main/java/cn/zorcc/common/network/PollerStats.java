@@ -0,0 +1,38 @@
+package cn.zorcc.common.network;
+
+/**
+ *   Snapshot of a poller's counters, all the counters are accumulated since the poller started
+ *   waits is the number of poller loop rounds, events is the total number of events returned by the mux, queueDepth is an estimation of pending tasks
+ */
+public record PollerStats(
+        String name,
+        int connections,
+        long bytesIn,
+        long recvCalls,
+        long recvBlocked,
+        long waits,
+        long events,
+        long tasks,
+        long queueDepth
+) {
+    static final int BYTES_IN = 0;
+    static final int RECV_CALLS = 1;
+    static final int RECV_BLOCKED = 2;
+    static final int WAITS = 3;
+    static final int EVENTS = 4;
+    static final int TASKS = 5;
+    static final int SIZE = 6;
+
+    static PollerStats of(Poller poller) {
+        Counters counters = poller.counters();
+        return new PollerStats(poller.pollerThread().getName(), poller.load().connections(), counters.get(BYTES_IN), counters.get(RECV_CALLS),
+                counters.get(RECV_BLOCKED), counters.get(WAITS), counters.get(EVENTS), counters.get(TASKS), poller.pollerQueue().size());
+    }
+
+    /**
+     *   Return the average events returned by each mux wait
+     */
+    public double eventsPerWait() {
+        return waits == 0L ? 0d : (double) events / waits;
+    }
+}
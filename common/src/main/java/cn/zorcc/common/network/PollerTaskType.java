@@ -5,13 +5,13 @@ package cn.zorcc.common.network;
  */
 public enum PollerTaskType {
     /**
-     *   Bind a SentryPollerNode to current poller instance
+     *   Bind a SentryPollerNode to current poller instance, client-side channels would be bound with a connect timeout
      */
     BIND,
     /**
-     *   Unbind a SentryPollerNode on timeout, used for client-side application
+     *   Mount a SO_REUSEPORT listening socket to current poller instance, used for server-side application
      */
-    UNBIND,
+    LISTEN,
     /**
      *   Register a message tag
      */
@@ -24,6 +24,18 @@ public enum PollerTaskType {
      *   Force close an underlying channel
      */
     CLOSE,
+    /**
+     *   Migrate idle channels of current poller instance to another poller, used by the rebalancer
+     */
+    MIGRATE,
+    /**
+     *   Adopt a channel migrated from another poller instance
+     */
+    ADOPT,
+    /**
+     *   Post the result of an offloaded TLS handshake step back to the poller instance owning the sentry
+     */
+    HANDSHAKE,
     /**
      *   Indicates that current writer instance has no channel bound to it, it might be a potential exit for the whole application
      */
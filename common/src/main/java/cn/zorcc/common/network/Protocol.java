@@ -36,6 +36,28 @@ public interface Protocol {
      */
     long doWrite(MemorySegment data, long len);
 
+    /**
+     *   Perform the actual gather write operation for multiple data segments, this function will always be invoked on writer thread
+     *   the parameter len will always be the total length of the first count segments
+     *   return a positive number to indicate actual bytes written, or a flag to indicate a state change
+     */
+    long doWritev(MemorySegment[] segments, int count, long len);
+
+    /**
+     *   Return if current protocol could transfer file data directly from the kernel, protocols processing data in user-space should return false
+     */
+    default boolean supportSendFile() {
+        return false;
+    }
+
+    /**
+     *   Perform the actual file transfer operation, this function will always be invoked on writer thread, and only if supportSendFile() returns true
+     *   return a positive number to indicate actual bytes written, 0 if the file has reached its end, or a flag to indicate a state change
+     */
+    default long doSendFile(int fd, long offset, long len) {
+        throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+    }
+
     /**
      *   Perform the actual shutdown operation, this function will always be invoked on writer thread
      *   It can be guaranteed that this function will be only invoked once, no external synchronization needed
@@ -62,7 +84,12 @@ public interface Protocol {
         public long onReadableEvent(MemorySegment reserved, long len) {
             long r = osNetworkLibrary.recv(channel.socket(), reserved, len);
             if(r < 0L) {
-                throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to perform recv(), errno : \{Math.abs(r)}");
+                int errno = Math.toIntExact(-r);
+                if(errno == osNetworkLibrary.sendBlockCode()) {
+                    // socket has been drained, only reachable with edge-triggered mux
+                    return -Constants.NET_IGNORED;
+                }
+                throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to perform recv(), errno : \{errno}");
             }else {
                 return r;
             }
@@ -90,6 +117,41 @@ public interface Protocol {
             }
         }
 
+        @Override
+        public long doWritev(MemorySegment[] segments, int count, long len) {
+            long r = osNetworkLibrary.sendv(channel.socket(), segments, count, Writer.localMemApi());
+            if(r < 0L) {
+                int errno = Math.toIntExact(-r);
+                if(errno == osNetworkLibrary.sendBlockCode()) {
+                    return -Constants.NET_PW;
+                }else {
+                    throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to perform sendv(), errno : \{errno}");
+                }
+            }else {
+                return r;
+            }
+        }
+
+        @Override
+        public boolean supportSendFile() {
+            return true;
+        }
+
+        @Override
+        public long doSendFile(int fd, long offset, long len) {
+            long r = osNetworkLibrary.sendFile(channel.socket(), fd, offset, len);
+            if(r < 0L) {
+                int errno = Math.toIntExact(-r);
+                if(errno == osNetworkLibrary.sendBlockCode()) {
+                    return -Constants.NET_PW;
+                }else {
+                    throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to perform sendfile(), errno : \{errno}");
+                }
+            }else {
+                return r;
+            }
+        }
+
         @Override
         public void doShutdown() {
             int r = osNetworkLibrary.shutdownWrite(channel.socket());
@@ -109,14 +171,30 @@ public interface Protocol {
 
     }
 
+    /**
+     *   Create a ssl protocol after handshake, if the keys have been installed into the kernel, data would be directly written to the socket
+     */
     static Protocol newSslProtocol(Channel channel, MemorySegment ssl, IntHolder sslState) {
-        return new SslProtocol(channel, ssl, sslState);
+        return newSslProtocol(channel, ssl, sslState, null);
     }
 
+    /**
+     *   If sessionCache is not null, the session would be stored after the first successful read, or before the ssl was freed
+     */
+    static Protocol newSslProtocol(Channel channel, MemorySegment ssl, IntHolder sslState, SslSessionCache sessionCache) {
+        return new SslProtocol(channel, ssl, sslState, SslUtil.isKtlsSendEnabled(ssl), sessionCache);
+    }
+
+    /**
+     *   If ktls is true, the encryption of sending has been offloaded to the kernel, so plaintext would be written with send(), sendv() and sendfile() directly
+     *   Reading would always go through SSL_read(), since control records like alerts and post-handshake messages still need to be processed by the SSL library
+     */
     record SslProtocol(
             Channel channel,
             MemorySegment ssl,
-            IntHolder sslState
+            IntHolder sslState,
+            boolean ktls,
+            SslSessionCache sessionCache
     ) implements Protocol {
 
         /**
@@ -129,6 +207,10 @@ public interface Protocol {
         private static final int SEND_WANT_WRITE = 1 << 8;
         private static final int LOCAL_INITIATED_SHUTDOWN = 1 << 12;
         private static final int REMOTE_INITIATED_SHUTDOWN = 1 << 16;
+        /**
+         *   TLS 1.3 session tickets are sent after handshake, they would be processed by the first SSL_read(), so the session is stored after that
+         */
+        private static final int SESSION_STORED = 1 << 20;
 
         @Override
         public long onReadableEvent(MemorySegment reserved, long len) {
@@ -156,6 +238,10 @@ public interface Protocol {
                         return SslUtil.throwException(err, "SSL_read()", Poller.localMemApi());
                     }
                 }else {
+                    if(sessionCache != null && (state & SESSION_STORED) == 0) {
+                        state |= SESSION_STORED;
+                        sessionCache.store(channel.loc(), ssl);
+                    }
                     return received;
                 }
             }finally {
@@ -181,6 +267,9 @@ public interface Protocol {
         public long doWrite(MemorySegment data, long len) {
             int state = sslState.lock(Thread::yield);
             try{
+                if(ktls) {
+                    return kernelSent(osNetworkLibrary.send(channel.socket(), data, len), "send()");
+                }
                 int written = SslBinding.sslWrite(ssl, data, Math.toIntExact(len));
                 if(written <= 0) {
                     int err = SslBinding.sslGetErr(ssl, written);
@@ -201,6 +290,66 @@ public interface Protocol {
             }
         }
 
+        /**
+         *   SSL_write() has no gather form, so segments were written one by one until blocked, bytes already written would be returned first
+         */
+        @Override
+        public long doWritev(MemorySegment[] segments, int count, long len) {
+            if(ktls) {
+                int state = sslState.lock(Thread::yield);
+                try{
+                    return kernelSent(osNetworkLibrary.sendv(channel.socket(), segments, count, Writer.localMemApi()), "sendv()");
+                }finally {
+                    sslState.unlock(state);
+                }
+            }
+            long written = 0L;
+            for(int i = 0; i < count; i++) {
+                MemorySegment segment = segments[i];
+                long size = segment.byteSize();
+                long r = doWrite(segment, size);
+                if(r < 0L) {
+                    return written > 0L ? written : r;
+                }
+                written += r;
+                if(r < size) {
+                    break;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public boolean supportSendFile() {
+            return ktls;
+        }
+
+        @Override
+        public long doSendFile(int fd, long offset, long len) {
+            int state = sslState.lock(Thread::yield);
+            try{
+                return kernelSent(osNetworkLibrary.sendFile(channel.socket(), fd, offset, len), "sendfile()");
+            }finally {
+                sslState.unlock(state);
+            }
+        }
+
+        /**
+         *   Convert the result of a plain system call on a kernel TLS socket
+         */
+        private static long kernelSent(long r, String operation) {
+            if(r < 0L) {
+                int errno = Math.toIntExact(-r);
+                if(errno == osNetworkLibrary.sendBlockCode()) {
+                    return -Constants.NET_PW;
+                }else {
+                    throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to perform \{operation}, errno : \{errno}");
+                }
+            }else {
+                return r;
+            }
+        }
+
         @Override
         public void doShutdown() {
             int state = sslState.lock(Thread::yield);
@@ -223,6 +372,10 @@ public interface Protocol {
                     state &= (~REMOTE_INITIATED_SHUTDOWN);
                     SslBinding.sslShutdown(ssl);
                 }
+                if(sessionCache != null && (state & SESSION_STORED) == 0) {
+                    state |= SESSION_STORED;
+                    sessionCache.store(channel.loc(), ssl);
+                }
                 SslBinding.sslFree(ssl);
                 int r = osNetworkLibrary.closeSocket(channel.socket());
                 if(r < 0) {
@@ -11,6 +11,7 @@ import cn.zorcc.common.util.SslUtil;
 
 import java.lang.foreign.MemorySegment;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
 /**
  *   Sentry factory with customized deallocated procedure provided
@@ -41,7 +42,21 @@ public interface Provider {
     }
 
     static SslProvider newSslClientProvider(String caFiles, String caPaths) {
-        MemorySegment ctx = createCtx();
+        return newSslClientProvider(caFiles, caPaths, true);
+    }
+
+    /**
+     *   Create a client-side ssl provider, if ktls is true, the encryption would be offloaded to the kernel after handshake when possible
+     */
+    static SslProvider newSslClientProvider(String caFiles, String caPaths, boolean ktls) {
+        return newSslClientProvider(caFiles, caPaths, ktls, SslProvider.DEFAULT_SESSION_CACHE_SIZE);
+    }
+
+    /**
+     *   Create a client-side ssl provider, sessions would be cached for each Loc so that reconnecting could resume the previous session, 0 sessionCacheSize means disabled
+     */
+    static SslProvider newSslClientProvider(String caFiles, String caPaths, boolean ktls, int sessionCacheSize) {
+        MemorySegment ctx = createCtx(ktls);
         try (Allocator allocator = Allocator.newDirectAllocator(MemApi.DEFAULT)) {
             if(caFiles != null && !caFiles.isBlank()) {
                 for (String caFile : caFiles.split(",")) {
@@ -64,11 +79,27 @@ public interface Provider {
             throw new FrameworkException(ExceptionType.NETWORK, "Can't set default verify path");
         }
         SslBinding.setVerify(ctx, Constants.SSL_VERIFY_PEER, MemorySegment.NULL);
-        return new SslProvider(true, ctx);
+        return new SslProvider(true, ctx, sessionCacheSize > 0 ? new SslSessionCache(sessionCacheSize) : null, null);
     }
 
     static SslProvider newSslServerProvider(String publicKeyFile, String privateKeyFile) {
-        MemorySegment ctx = createCtx();
+        return newSslServerProvider(publicKeyFile, privateKeyFile, true);
+    }
+
+    /**
+     *   Create a server-side ssl provider, if ktls is true, the encryption would be offloaded to the kernel after handshake when possible
+     *   With kernel TLS, files could be sent over the channel with sendfile() instead of being encrypted in user-space
+     */
+    static SslProvider newSslServerProvider(String publicKeyFile, String privateKeyFile, boolean ktls) {
+        return newSslServerProvider(publicKeyFile, privateKeyFile, ktls, null);
+    }
+
+    /**
+     *   Create a server-side ssl provider, the session ticket key would be rotated periodically by the timer wheel, null ticketKeyRotation means using the SSL library's own key forever
+     *   The previous key is kept after a rotation, so tickets would be resumable for at most two rotation intervals, see SslTicketKeys
+     */
+    static SslProvider newSslServerProvider(String publicKeyFile, String privateKeyFile, boolean ktls, Duration ticketKeyRotation) {
+        MemorySegment ctx = createCtx(ktls);
         try(Allocator allocator = Allocator.newDirectAllocator(MemApi.DEFAULT)) {
             MemorySegment publicKey = allocator.allocateFrom(publicKeyFile, StandardCharsets.UTF_8);
             if (SslBinding.setPublicKey(ctx, publicKey, Constants.SSL_FILETYPE_PEM) <= 0) {
@@ -82,31 +113,51 @@ public interface Provider {
                 throw new FrameworkException(ExceptionType.NETWORK, "SSL server private key and public key doesn't match");
             }
         }
-        return new SslProvider(false, ctx);
+        SslUtil.setSessionCacheSize(ctx, SslProvider.DEFAULT_SERVER_SESSION_CACHE_SIZE);
+        SslTicketKeys ticketKeys = ticketKeyRotation == null ? null : SslTicketKeys.install(ctx, ticketKeyRotation);
+        return new SslProvider(false, ctx, null, ticketKeys);
     }
 
-    private static MemorySegment createCtx() {
+    private static MemorySegment createCtx(boolean ktls) {
         MemorySegment ctx = SslBinding.sslCtxNew(SslBinding.tlsMethod());
         if(NativeUtil.checkNullPointer(ctx)) {
             throw new FrameworkException(ExceptionType.NETWORK, "SSL ctx initialization failed");
         }
-        SslUtil.configureCtx(ctx);
+        SslUtil.configureCtx(ctx, ktls);
         return ctx;
     }
 
+    /**
+     *   SslProvider holds a SSL_CTX, sessionCache is only used for client-side, ticketKeys is only used for server-side, both of them could be null
+     */
     record SslProvider(
             boolean clientSide,
-            MemorySegment ctx
+            MemorySegment ctx,
+            SslSessionCache sessionCache,
+            SslTicketKeys ticketKeys
     ) implements Provider {
+        private static final int DEFAULT_SESSION_CACHE_SIZE = 4 * Constants.KB;
+        private static final int DEFAULT_SERVER_SESSION_CACHE_SIZE = 20 * Constants.KB;
 
         @Override
         public Sentry create(Channel channel) {
-            return Sentry.newSslSentry(channel, clientSide, SslBinding.sslNew(ctx));
+            MemorySegment ssl = SslBinding.sslNew(ctx);
+            if(sessionCache != null) {
+                sessionCache.apply(channel.loc(), ssl);
+            }
+            return Sentry.newSslSentry(channel, clientSide, ssl, sessionCache);
         }
 
         @Override
         public void close() {
             SslBinding.sslCtxFree(ctx);
+            if(ticketKeys != null) {
+                // the callback stub must outlive the SSL_CTX
+                ticketKeys.close();
+            }
+            if(sessionCache != null) {
+                sessionCache.close();
+            }
         }
     }
 }
@@ -12,7 +12,10 @@ import java.lang.foreign.MemorySegment;
 
 /**
  *   Sentry determines how a channel could upgrade to its Protocol
- *   All the methods will be executed in poller thread only, so there is no need to add external lock on it
+ *   toProtocol() and doClose() will always be executed in poller thread, so are onReadableEvent() and onWritableEvent() unless offloadable() returns true
+ *   If offloadable() returns true and the poller has a handshake executor, onReadableEvent() and onWritableEvent() could be executed in any handshake executor thread,
+ *   consecutive steps might run in different threads, but never at the same time, and the submission and the posted back result would establish happens-before between them,
+ *   so no external lock is needed, however implementations must not rely on thread-confined state like ThreadLocal, and only Poller.localMemApi() is available in those methods, the poller's timer wheel and chunk pool must not be accessed
  */
 public interface Sentry {
     OsNetworkLibrary osNetworkLibrary = OsNetworkLibrary.CURRENT;
@@ -40,6 +43,14 @@ public interface Sentry {
      */
     void doClose();
 
+    /**
+     *   Return if onReadableEvent() and onWritableEvent() could be performed outside the poller thread, the reserved segment would not be provided in that case
+     *   The poller would guarantee that at most one step is running at the same time, and the results would be handled in the poller thread
+     */
+    default boolean offloadable() {
+        return false;
+    }
+
     static Sentry newTcpSentry(Channel channel) {
         return new TcpSentry(channel);
     }
@@ -78,14 +89,22 @@ public interface Sentry {
     }
 
     static Sentry newSslSentry(Channel channel, boolean clientSide, MemorySegment ssl) {
-        return new SslSentry(channel, clientSide, ssl, new IntHolder(0));
+        return newSslSentry(channel, clientSide, ssl, null);
+    }
+
+    /**
+     *   If sessionCache is not null, the session of current connection would be stored for resumption once it's available
+     */
+    static Sentry newSslSentry(Channel channel, boolean clientSide, MemorySegment ssl, SslSessionCache sessionCache) {
+        return new SslSentry(channel, clientSide, ssl, new IntHolder(0), sessionCache);
     }
 
     record SslSentry (
             Channel channel,
             boolean clientSide,
             MemorySegment ssl,
-            IntHolder sslState
+            IntHolder sslState,
+            SslSessionCache sessionCache
     ) implements Sentry {
         private static final int WANT_READ = 1 << 1;
         private static final int WANT_WRITE = 1 << 2;
@@ -125,7 +144,12 @@ public interface Sentry {
 
         @Override
         public Protocol toProtocol() {
-            return Protocol.newSslProtocol(channel, ssl, sslState);
+            return Protocol.newSslProtocol(channel, ssl, sslState, sessionCache);
+        }
+
+        @Override
+        public boolean offloadable() {
+            return true;
         }
 
         @Override
@@ -0,0 +1,12 @@
+package cn.zorcc.common.network;
+
+import java.time.Duration;
+
+/**
+ *   Used as poller message for binding a client-side channel, the sentry would be closed if the connection is not established within timeout
+ */
+public record SentryWithTimeout(
+        Sentry sentry,
+        Duration timeout
+) {
+}
@@ -1,5 +1,6 @@
 package cn.zorcc.common.network;
 
+import cn.zorcc.common.Constants;
 import cn.zorcc.common.serde.Serde;
 
 @Serde
@@ -21,6 +22,50 @@ public final class SocketConfig {
      *  this option is recommended to be closed, so a dual ipv4-ipv6 stack will co-exist when using IPv6 server socket
      */
     private boolean ipv6Only = false;
+    /**
+     *  When bytes queued in writer for a channel exceed the high water mark, the channel would become unwritable until it drops below the low water mark
+     */
+    private int writeBufferHighWaterMark = 64 * Constants.KB;
+    private int writeBufferLowWaterMark = 32 * Constants.KB;
+    /**
+     *  Whether to stop reading from the channel while it's unwritable, so that a slow peer would not let the application buffer unbounded data
+     */
+    private boolean suspendReadWhenUnwritable = false;
+    /**
+     *  SO_BUSY_POLL option in microseconds, the kernel would busy poll the device queue when there is no data to read, only works on Linux, 0 means disabled
+     *  Normally it needs CAP_NET_ADMIN to increase this value, or the net.core.busy_read sysctl should be configured instead
+     */
+    private int busyPoll = 0;
+    /**
+     *  Idle timeouts in seconds, Handler's onReadIdle() or onWriteIdle() would be invoked if nothing was received or written during the timeout, 0 means disabled
+     *  Idle timeouts are checked by the poller's local timer wheel, so they are not precise, the deviation is at most one tick of the wheel
+     */
+    private int readIdleTimeout = 0;
+    private int writeIdleTimeout = 0;
+    /**
+     *  Max datagrams received by a single recvmmsg() or sent by a single sendmmsg() for datagram channels
+     */
+    private int datagramBatchSize = 32;
+    /**
+     *  Max size of a received datagram for datagram channels, larger datagrams would be truncated by the kernel and dropped
+     */
+    private int datagramBufferSize = 2 * Constants.KB;
+    /**
+     *  UDP_SEGMENT option for datagram channels, only works on Linux, 0 means disabled
+     *  If enabled, consecutive datagrams to the same peer would be sent as a single message and segmented by the kernel or the NIC (UDP GSO)
+     *  Note that datagrams larger than the segment size couldn't be sent when this option is enabled, normally it should be the path MTU payload size
+     */
+    private int udpSegmentSize = 0;
+    /**
+     *  Max bytes coalesced from a writer's batch before sending, msgs sent to the same channel during a writer's drain cycle would be encoded into a single buffer and sent with one system call
+     *  If the encoded bytes reach this threshold, they would be sent before encoding the rest of the batch, 0 means the whole batch would always be sent at once
+     */
+    private int coalesceThreshold = 0;
+    /**
+     *  Whether to cork the socket with TCP_CORK when a batch is sent in several system calls because of coalesceThreshold, only works on Linux TCP channels
+     *  Corking would prevent the kernel from sending partial frames between these system calls, at the cost of two additional setsockopt() for each corked batch
+     */
+    private boolean tcpCork = false;
 
     public SocketConfig setReuseAddr(boolean reuseAddr) {
         this.reuseAddr = reuseAddr;
@@ -42,6 +87,61 @@ public final class SocketConfig {
         return this;
     }
 
+    public SocketConfig setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        return this;
+    }
+
+    public SocketConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        return this;
+    }
+
+    public SocketConfig setSuspendReadWhenUnwritable(boolean suspendReadWhenUnwritable) {
+        this.suspendReadWhenUnwritable = suspendReadWhenUnwritable;
+        return this;
+    }
+
+    public SocketConfig setBusyPoll(int busyPoll) {
+        this.busyPoll = busyPoll;
+        return this;
+    }
+
+    public SocketConfig setReadIdleTimeout(int readIdleTimeout) {
+        this.readIdleTimeout = readIdleTimeout;
+        return this;
+    }
+
+    public SocketConfig setWriteIdleTimeout(int writeIdleTimeout) {
+        this.writeIdleTimeout = writeIdleTimeout;
+        return this;
+    }
+
+    public SocketConfig setDatagramBatchSize(int datagramBatchSize) {
+        this.datagramBatchSize = datagramBatchSize;
+        return this;
+    }
+
+    public SocketConfig setDatagramBufferSize(int datagramBufferSize) {
+        this.datagramBufferSize = datagramBufferSize;
+        return this;
+    }
+
+    public SocketConfig setUdpSegmentSize(int udpSegmentSize) {
+        this.udpSegmentSize = udpSegmentSize;
+        return this;
+    }
+
+    public SocketConfig setCoalesceThreshold(int coalesceThreshold) {
+        this.coalesceThreshold = coalesceThreshold;
+        return this;
+    }
+
+    public SocketConfig setTcpCork(boolean tcpCork) {
+        this.tcpCork = tcpCork;
+        return this;
+    }
+
     public boolean isReuseAddr() {
         return reuseAddr;
     }
@@ -57,4 +157,48 @@ public final class SocketConfig {
     public boolean isIpv6Only() {
         return ipv6Only;
     }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public boolean isSuspendReadWhenUnwritable() {
+        return suspendReadWhenUnwritable;
+    }
+
+    public int getBusyPoll() {
+        return busyPoll;
+    }
+
+    public int getReadIdleTimeout() {
+        return readIdleTimeout;
+    }
+
+    public int getWriteIdleTimeout() {
+        return writeIdleTimeout;
+    }
+
+    public int getDatagramBatchSize() {
+        return datagramBatchSize;
+    }
+
+    public int getDatagramBufferSize() {
+        return datagramBufferSize;
+    }
+
+    public int getUdpSegmentSize() {
+        return udpSegmentSize;
+    }
+
+    public int getCoalesceThreshold() {
+        return coalesceThreshold;
+    }
+
+    public boolean isTcpCork() {
+        return tcpCork;
+    }
 }
@@ -0,0 +1,165 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.bindings.SslBinding;
+import cn.zorcc.common.exception.FrameworkException;
+import cn.zorcc.common.util.NativeUtil;
+
+import java.lang.foreign.MemorySegment;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ *   Bounded client-side TLS session cache keyed by Loc, so that reconnecting to the same server could perform an abbreviated handshake
+ *   Sessions are spread across several shards to reduce the contention between pollers, each shard evicts its least recently used session when full
+ *   The cache owns a reference of each stored SSL_SESSION, which would be released when evicted, replaced or when the cache is closed
+ *   Channels could still be closing after the cache was closed, sessions stored after that would be released directly instead of being cached
+ */
+public final class SslSessionCache {
+    private static final int DEFAULT_SHARDS = 16;
+    private final Shard[] shards;
+    private final int mask;
+    private final Consumer<MemorySegment> sessionFree;
+    /**
+     *   Set before the shards were cleared, and checked with the shard lock held, so a session could never be inserted into a cleared shard
+     */
+    private volatile boolean closed = false;
+
+    private static final class Shard {
+        private final Lock lock = new ReentrantLock();
+        private final Map<Loc, MemorySegment> sessions;
+
+        private Shard(int capacity, Consumer<MemorySegment> sessionFree) {
+            this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Loc, MemorySegment> eldest) {
+                    if(size() > capacity) {
+                        sessionFree.accept(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    public SslSessionCache(int maxSize) {
+        this(maxSize, DEFAULT_SHARDS);
+    }
+
+    public SslSessionCache(int maxSize, int shardCount) {
+        this(maxSize, shardCount, SslBinding::sslSessionFree);
+    }
+
+    /**
+     *   sessionFree releases a reference of SSL_SESSION, it could be replaced for testing the reference handling without a real session
+     */
+    SslSessionCache(int maxSize, int shardCount, Consumer<MemorySegment> sessionFree) {
+        if(maxSize <= 0 || shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new FrameworkException(ExceptionType.NETWORK, "Invalid ssl session cache size");
+        }
+        int capacity = Math.max(Math.ceilDiv(maxSize, shardCount), 1);
+        this.shards = new Shard[shardCount];
+        for(int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(capacity, sessionFree);
+        }
+        this.mask = shardCount - 1;
+        this.sessionFree = sessionFree;
+    }
+
+    private Shard shard(Loc loc) {
+        int h = loc.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     *   Apply the cached session of target loc to a newly created ssl before handshake, return if there is a session to resume
+     *   SSL_set_session() would take its own reference, so the session is safe to be evicted after this call
+     */
+    public boolean apply(Loc loc, MemorySegment ssl) {
+        Shard shard = shard(loc);
+        shard.lock.lock();
+        try{
+            MemorySegment session = shard.sessions.get(loc);
+            return session != null && SslBinding.sslSetSession(ssl, session) == 1;
+        }finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     *   Store the current session of ssl for target loc if it's resumable, return if it's stored
+     *   For TLS 1.3, the session tickets would be received after handshake, so it should be invoked after some data has been read
+     */
+    public boolean store(Loc loc, MemorySegment ssl) {
+        MemorySegment current = SslBinding.sslGetSession(ssl);
+        if(NativeUtil.checkNullPointer(current) || SslBinding.sslSessionIsResumable(current) != 1) {
+            return false;
+        }
+        MemorySegment session = SslBinding.sslGet1Session(ssl);
+        if(NativeUtil.checkNullPointer(session)) {
+            return false;
+        }
+        return put(loc, session);
+    }
+
+    /**
+     *   Put a session into current cache, the caller's reference of the session would always be taken over, return if it's cached
+     *   If the same session was already cached, only one reference would be kept, if current cache has been closed, the reference would be released directly
+     */
+    boolean put(Loc loc, MemorySegment session) {
+        Shard shard = shard(loc);
+        shard.lock.lock();
+        try{
+            if(closed) {
+                sessionFree.accept(session);
+                return false;
+            }
+            MemorySegment old = shard.sessions.put(loc, session);
+            if(old != null && old.address() != session.address()) {
+                sessionFree.accept(old);
+            }else if(old != null) {
+                // the same session was stored again, only one reference is needed
+                sessionFree.accept(session);
+            }
+            return true;
+        }finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     *   Return current cached sessions count
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try{
+                size += shard.sessions.size();
+            }finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     *   Release all the cached sessions, sessions stored after closing would be released directly
+     */
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try{
+                shard.sessions.values().forEach(sessionFree);
+                shard.sessions.clear();
+            }finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.bindings.SslBinding;
+import cn.zorcc.common.exception.FrameworkException;
+import cn.zorcc.common.log.Logger;
+import cn.zorcc.common.structure.Wheel;
+import cn.zorcc.common.util.NativeUtil;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ *   Server-side session ticket keys installed into a SSL_CTX through the ticket key callback, the keys are rotated periodically by the global timer wheel
+ *   Both the current and the previous key are kept, new tickets are always encrypted by the current key, tickets encrypted by the previous key could still be resumed and would be renewed
+ *   The callback would be invoked by poller threads and handshake executor threads concurrently, so the keys are guarded by a read-write lock, rotating only blocks the callbacks while generating a single key
+ */
+public final class SslTicketKeys {
+    private static final Logger log = new Logger(SslTicketKeys.class);
+    /**
+     *   SSL_CTX_set_tlsext_ticket_key_cb is a macro of SSL_CTX_callback_ctrl with this command
+     */
+    private static final int SSL_CTRL_SET_TLSEXT_TICKET_KEY_CB = 72;
+    /**
+     *   Each key consists of 16 bytes key name, 32 bytes hmac secret and 32 bytes aes key
+     */
+    private static final int NAME_LENGTH = 16;
+    private static final int HMAC_LENGTH = 32;
+    private static final int AES_LENGTH = 32;
+    private static final int KEY_LENGTH = NAME_LENGTH + HMAC_LENGTH + AES_LENGTH;
+    /**
+     *   Ticket iv buffer is EVP_MAX_IV_LENGTH bytes, aes-256-cbc uses all of it
+     */
+    private static final int IV_LENGTH = 16;
+    /**
+     *   Return values of the ticket key callback
+     */
+    private static final int TICKET_FAILURE = -1;
+    private static final int TICKET_NOT_FOUND = 0;
+    private static final int TICKET_SUCCESS = 1;
+    private static final int TICKET_RENEW = 2;
+    private static final FunctionDescriptor CALLBACK_DESCRIPTOR = FunctionDescriptor.of(ValueLayout.JAVA_INT,
+            ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT);
+    private static final MethodHandle CALLBACK_HANDLE;
+
+    static {
+        try{
+            CALLBACK_HANDLE = MethodHandles.lookup().findVirtual(SslTicketKeys.class, "onTicketKey",
+                    MethodType.methodType(int.class, MemorySegment.class, MemorySegment.class, MemorySegment.class, MemorySegment.class, MemorySegment.class, int.class));
+        }catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Arena arena = Arena.ofShared();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     *   Two key slots, the slot of current key is indicated by current, the other one holds the previous key if there is one
+     */
+    private final MemorySegment keys = arena.allocate(2L * KEY_LENGTH);
+    private final MemorySegment cipher = SslBinding.evpAes256Cbc();
+    private final MemorySegment md = SslBinding.evpSha256();
+    private int current = 0;
+    private boolean hasPrevious = false;
+    private Runnable rotationCanceller;
+
+    SslTicketKeys() {
+        generate(keys.asSlice(0L, KEY_LENGTH));
+    }
+
+    /**
+     *   Install a ticket key callback into ctx, the key would be rotated every rotation interval
+     *   The returned instance must be closed after ctx has been freed, since the callback stub is owned by it
+     */
+    public static SslTicketKeys install(MemorySegment ctx, Duration rotation) {
+        SslTicketKeys ticketKeys = new SslTicketKeys();
+        MemorySegment callback = NativeUtil.upcallStub(CALLBACK_HANDLE.bindTo(ticketKeys), CALLBACK_DESCRIPTOR, ticketKeys.arena);
+        if(SslBinding.ctxCallbackCtrl(ctx, SSL_CTRL_SET_TLSEXT_TICKET_KEY_CB, callback) != 1L) {
+            ticketKeys.arena.close();
+            throw new FrameworkException(ExceptionType.NETWORK, "Failed to set session ticket key callback");
+        }
+        ticketKeys.rotationCanceller = Wheel.wheel().addPeriodicJob(ticketKeys::rotate, rotation, rotation);
+        return ticketKeys;
+    }
+
+    /**
+     *   Generate a new current key, the current key would become the previous one, and the old previous key would be dropped
+     */
+    public void rotate() {
+        lock.writeLock().lock();
+        try{
+            int next = current ^ 1;
+            generate(slot(next));
+            current = next;
+            hasPrevious = true;
+        }catch (RuntimeException e) {
+            // the slot might be partly overwritten, so it's no longer a valid previous key
+            hasPrevious = false;
+            log.error("Failed to rotate session ticket keys", e);
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     *   Stop rotating and release the callback stub, must be invoked after the SSL_CTX has been freed
+     */
+    public void close() {
+        if(rotationCanceller != null) {
+            rotationCanceller.run();
+        }
+        arena.close();
+    }
+
+    private MemorySegment slot(int index) {
+        return keys.asSlice((long) index * KEY_LENGTH, KEY_LENGTH);
+    }
+
+    private static void generate(MemorySegment key) {
+        if(SslBinding.randBytes(key, KEY_LENGTH) != 1) {
+            throw new FrameworkException(ExceptionType.NETWORK, "Failed to generate session ticket key");
+        }
+    }
+
+    /**
+     *   Ticket key callback invoked by the SSL library, enc is 1 when issuing a ticket and 0 when decrypting one
+     *   Exceptions must never escape from an upcall, so all of them would be reported as a failure
+     */
+    int onTicketKey(MemorySegment ssl, MemorySegment keyName, MemorySegment iv, MemorySegment cipherCtx, MemorySegment hmacCtx, int enc) {
+        MemorySegment name = keyName.reinterpret(NAME_LENGTH);
+        MemorySegment ivSegment = iv.reinterpret(IV_LENGTH);
+        lock.readLock().lock();
+        try{
+            if(enc == 1) {
+                MemorySegment key = slot(current);
+                if(SslBinding.randBytes(ivSegment, IV_LENGTH) != 1) {
+                    return TICKET_FAILURE;
+                }
+                MemorySegment.copy(key, 0L, name, 0L, NAME_LENGTH);
+                if(SslBinding.evpEncryptInit(cipherCtx, cipher, aesKey(key), ivSegment) != 1 || SslBinding.hmacInit(hmacCtx, hmacKey(key), HMAC_LENGTH, md) != 1) {
+                    return TICKET_FAILURE;
+                }
+                return TICKET_SUCCESS;
+            }
+            int count = hasPrevious ? 2 : 1;
+            for(int i = 0; i < count; i++) {
+                MemorySegment key = slot(current ^ i);
+                if(key.asSlice(0L, NAME_LENGTH).mismatch(name) == -1L) {
+                    if(SslBinding.hmacInit(hmacCtx, hmacKey(key), HMAC_LENGTH, md) != 1 || SslBinding.evpDecryptInit(cipherCtx, cipher, aesKey(key), ivSegment) != 1) {
+                        return TICKET_FAILURE;
+                    }
+                    // tickets encrypted by the previous key should be replaced with a new one
+                    return i == 0 ? TICKET_SUCCESS : TICKET_RENEW;
+                }
+            }
+            return TICKET_NOT_FOUND;
+        }catch (Throwable throwable) {
+            log.error("Err occurred in session ticket key callback", throwable);
+            return TICKET_FAILURE;
+        }finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static MemorySegment hmacKey(MemorySegment key) {
+        return key.asSlice(NAME_LENGTH, HMAC_LENGTH);
+    }
+
+    private static MemorySegment aesKey(MemorySegment key) {
+        return key.asSlice(NAME_LENGTH + HMAC_LENGTH, AES_LENGTH);
+    }
+}
@@ -3,12 +3,28 @@ package cn.zorcc.common.network;
 import cn.zorcc.common.Ref;
 
 import java.lang.foreign.MemorySegment;
+import java.time.Duration;
 
+/**
+ *   TagWithRef also serves as the writer callback of its msg, so that sending a tagged msg doesn't need an extra callback instance
+ */
 public record TagWithRef(
         MemorySegment tag,
-        Ref ref
-) {
-    public TagWithRef(MemorySegment tag) {
-        this(tag, new Ref());
+        Ref ref,
+        Duration timeout
+) implements WriterCallback {
+    public TagWithRef(MemorySegment tag, Duration timeout) {
+        this(tag, new Ref(), timeout);
+    }
+
+    @Override
+    public void onSuccess(Channel channel) {
+        // timeout would be handled by the poller
+    }
+
+    @Override
+    public void onFailure(Channel channel) {
+        ref.assign(Channel.FAILED);
+        channel.poller().submit(new PollerTask(PollerTaskType.UNREGISTER, channel, this));
     }
 }
@@ -0,0 +1,13 @@
+package cn.zorcc.common.network;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ *   Used as writer message for collecting the channels with the most pending bytes
+ */
+public record TopChannelsTask(
+        int count,
+        CompletableFuture<List<ChannelStats>> future
+) {
+}
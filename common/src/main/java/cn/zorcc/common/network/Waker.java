@@ -0,0 +1,84 @@
+package cn.zorcc.common.network;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *   Waker is used for interrupting the blocking mux wait of poller thread from other threads
+ *   On Linux, it's an eventfd, readFd and writeFd are the same, on macOS, it's a non-blocking pipe
+ *   For writer threads blocking on their task queue, a parking waker would be used, which unparks the waiting thread instead
+ *   The poller would only be signaled when it's actually waiting, so producers would not invoke a system call for every task submitted
+ */
+public final class Waker {
+    private static final OsNetworkLibrary osNetworkLibrary = OsNetworkLibrary.CURRENT;
+    private static final VarHandle waitingHandle;
+    private static final int AWAKE = 0;
+    private static final int WAITING = 1;
+
+    static {
+        try{
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            waitingHandle = lookup.findVarHandle(Waker.class, "waiting", int.class);
+        }catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int readFd;
+    private final int writeFd;
+    @SuppressWarnings("unused")
+    private volatile int waiting = AWAKE;
+    /**
+     *   The thread waiting on current waker, published by the volatile write of waiting
+     */
+    private Thread owner;
+
+    public Waker(int readFd, int writeFd) {
+        this.readFd = readFd;
+        this.writeFd = writeFd;
+    }
+
+    /**
+     *   Create a waker which unparks the waiting thread, the waiting thread should park itself after sleep()
+     */
+    public static Waker newParkingWaker() {
+        return new Waker(Integer.MIN_VALUE, Integer.MIN_VALUE);
+    }
+
+    public int readFd() {
+        return readFd;
+    }
+
+    public int writeFd() {
+        return writeFd;
+    }
+
+    /**
+     *   Mark the current thread as waiting, the caller must check its queues again after this method, and call awake() if there are pending tasks
+     */
+    void sleep() {
+        owner = Thread.currentThread();
+        waitingHandle.setVolatile(this, WAITING);
+    }
+
+    /**
+     *   Mark the current thread as awake, invoked after the waiting returns
+     */
+    void awake() {
+        waitingHandle.setVolatile(this, AWAKE);
+    }
+
+    /**
+     *   Signal the waiting thread if exists, invoked by producers after a task has been submitted
+     */
+    void wakeup() {
+        if((int) waitingHandle.getVolatile(this) == WAITING && waitingHandle.compareAndSet(this, WAITING, AWAKE)) {
+            if(readFd == Integer.MIN_VALUE) {
+                LockSupport.unpark(owner);
+            }else {
+                osNetworkLibrary.signalWaker(this);
+            }
+        }
+    }
+}
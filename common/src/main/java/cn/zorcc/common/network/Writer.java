@@ -8,31 +8,112 @@ import cn.zorcc.common.log.Logger;
 import cn.zorcc.common.structure.Allocator;
 import cn.zorcc.common.structure.IntMap;
 import cn.zorcc.common.structure.MemApi;
+import cn.zorcc.common.structure.MpscQueue;
+import cn.zorcc.common.structure.Mutex;
+import cn.zorcc.common.structure.ObjectPool;
 
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedTransferQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public record Writer(
-        BlockingQueue<WriterTask> writerQueue,
-        Thread writerThread
+        MpscQueue<WriterTask> writerQueue,
+        Thread writerThread,
+        boolean inline,
+        Waker waker,
+        Counters counters,
+        ObjectPool<WriterTask> taskPool
 ) {
     private static final Logger log = new Logger(Writer.class);
     private static final AtomicInteger counter = new AtomicInteger(0);
     private static final ScopedValue<MemApi> MEM_SCOPE = ScopedValue.newInstance();
+    private static final ScopedValue<WriterContext> CONTEXT_SCOPE = ScopedValue.newInstance();
+    /**
+     *   Max msg tasks grouped in a single batch before flushing
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     *   Writer-local states, only accessed by the thread which processing the writer tasks
+     */
+    private static final class WriterContext {
+        private final IntMap<WriterNode> nodeMap;
+        private final MemorySegment reserved;
+        private final MemApi memApi;
+        private final Counters counters;
+        /**
+         *   WriterNodes which have msg grouped in current batch
+         */
+        private final List<WriterNode> batchNodes = new ArrayList<>();
+        /**
+         *   Msg tasks grouped in current batch, recycled after the batch is flushed
+         */
+        private final List<WriterTask> batchTasks = new ArrayList<>();
+        private int state = Constants.RUNNING;
 
-    public static Writer newWriter(NetConfig config) {
-        BlockingQueue<WriterTask> queue = new LinkedTransferQueue<>();
-        Thread writerThread = createWriterThread(config, queue);
-        return new Writer(queue, writerThread);
+        private WriterContext(IntMap<WriterNode> nodeMap, MemorySegment reserved, MemApi memApi, Counters counters) {
+            this.nodeMap = nodeMap;
+            this.reserved = reserved;
+            this.memApi = memApi;
+            this.counters = counters;
+        }
+    }
+
+    /**
+     *   Create a new writer, cpu is the target cpu for pinning the writer thread, -1 means no pinning
+     */
+    public static Writer newWriter(NetConfig config, int cpu) {
+        MpscQueue<WriterTask> queue = new MpscQueue<>(config.getWriterQueueSize());
+        Waker waker = Waker.newParkingWaker();
+        Counters counters = new Counters(WriterStats.SIZE);
+        Thread writerThread = createWriterThread(config, queue, waker, counters, cpu);
+        return new Writer(queue, writerThread, false, waker, counters, new ObjectPool<>(config.getWriterQueueSize()));
     }
 
+    /**
+     *   Create a writer which shares the poller thread in thread-per-core mode, the poller thread must run its loop through bindPollerThread()
+     */
+    public static Writer newPollerWriter(MpscQueue<WriterTask> queue, Thread pollerThread, Waker waker, Counters counters, ObjectPool<WriterTask> taskPool) {
+        return new Writer(queue, pollerThread, true, waker, counters, taskPool);
+    }
+
+    /**
+     *   Submit a msg task acquired from the task pool, the task would be recycled by the writer once processed, so sending msgs allocates no task in steady state
+     */
+    public void submitMsg(WriterTaskType type, Channel channel, Object msg, WriterCallback writerCallback) {
+        submit(WriterTask.acquire(taskPool, type, channel, msg, writerCallback));
+    }
+
+    /**
+     *   For inline writer, msg submitted from the owner thread would be processed directly without a queue hop
+     *   Close task are always queued, since it could be submitted when the poller is holding the mutex
+     *   The thread draining the queue would be woken up if it's waiting
+     */
     public void submit(WriterTask writerTask) {
-        if(writerTask == null || !writerQueue.offer(writerTask)) {
+        if(writerTask == null) {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
+        if(inline && Thread.currentThread() == writerThread && isInlineTask(writerTask.type())) {
+            processWriterTask(CONTEXT_SCOPE.get(), writerTask);
+            writerTask.recycle();
+        }else {
+            writerQueue.offer(writerTask);
+            if(waker != null) {
+                waker.wakeup();
+            }
+        }
+    }
+
+    private static boolean isInlineTask(WriterTaskType type) {
+        return switch (type) {
+            case INITIATE, SINGLE_MSG, MULTIPLE_MSG, FILE, SHUTDOWN -> true;
+            default -> false;
+        };
     }
 
     /**
@@ -42,55 +123,136 @@ public record Writer(
         return MEM_SCOPE.orElseThrow(() -> new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED));
     }
 
-    private static Thread createWriterThread(NetConfig config, BlockingQueue<WriterTask> queue) {
+    /**
+     *   Bind writer-local states to current poller thread and run the poller loop, only used in thread-per-core mode
+     */
+    static void bindPollerThread(NetConfig config, MemApi memApi, Allocator allocator, Counters counters, Runnable pollerLoop) {
+        IntMap<WriterNode> nodeMap = IntMap.newArrayMap(config.getWriterMapSize());
+        MemorySegment reservedSegment = allocator.allocate(ValueLayout.JAVA_BYTE, config.getWriterBufferSize());
+        ScopedValue.where(MEM_SCOPE, memApi).where(CONTEXT_SCOPE, new WriterContext(nodeMap, reservedSegment, memApi, counters)).run(pollerLoop);
+    }
+
+    /**
+     *   Process all the pending writer tasks without blocking, return if current writer could exit, only used in thread-per-core mode
+     */
+    static boolean drainWriterTasks(MpscQueue<WriterTask> queue) {
+        WriterContext context = CONTEXT_SCOPE.get();
+        drainWriterTasks(context, queue);
+        return context.state == Constants.STOPPED;
+    }
+
+    private static Thread createWriterThread(NetConfig config, MpscQueue<WriterTask> queue, Waker waker, Counters counters, int cpu) {
         int sequence = counter.getAndIncrement();
         return Thread.ofPlatform().name(STR."writer-\{sequence}").unstarted(() -> {
             log.info(STR."Initializing writer thread, sequence : \{sequence}");
+            if(cpu >= 0) {
+                OsNetworkLibrary.CURRENT.check(OsNetworkLibrary.CURRENT.setAffinity(cpu), "set writer affinity");
+            }
             MemApi memApi = config.isEnableRpMalloc() ? TenetBinding.rpMallocThreadInitialize() : MemApi.DEFAULT;
-            ScopedValue.runWhere(MEM_SCOPE, memApi, () -> {
-                try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
-                    IntMap<WriterNode> nodeMap = IntMap.newTreeMap(config.getWriterMapSize());
-                    MemorySegment reservedSegment = allocator.allocate(ValueLayout.JAVA_BYTE, config.getWriterBufferSize());
-                    processWriterTasks(nodeMap, queue, reservedSegment, memApi);
-                }catch (InterruptedException i) {
-                    throw new FrameworkException(ExceptionType.NETWORK, "Writer thread interrupted", i);
-                }finally {
-                    log.info(STR."Exiting writer thread, sequence : \{sequence}");
-                    if(config.isEnableRpMalloc()) {
-                        TenetBinding.rpMallocThreadFinalize();
-                    }
+            try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
+                IntMap<WriterNode> nodeMap = IntMap.newArrayMap(config.getWriterMapSize());
+                MemorySegment reservedSegment = allocator.allocate(ValueLayout.JAVA_BYTE, config.getWriterBufferSize());
+                if(cpu >= 0) {
+                    reservedSegment.fill((byte) 0);
+                }
+                WriterContext context = new WriterContext(nodeMap, reservedSegment, memApi, counters);
+                ScopedValue.where(MEM_SCOPE, memApi).where(CONTEXT_SCOPE, context).run(() -> processWriterTasks(context, queue, waker));
+            }finally {
+                log.info(STR."Exiting writer thread, sequence : \{sequence}");
+                if(config.isEnableRpMalloc()) {
+                    TenetBinding.rpMallocThreadFinalize();
                 }
-            });
+            }
         });
     }
 
-    private static void processWriterTasks(IntMap<WriterNode> nodeMap, BlockingQueue<WriterTask> queue, MemorySegment reserved, MemApi memApi) throws InterruptedException {
-        int state = Constants.RUNNING;
+    /**
+     *   Writer thread would park itself when there is no task left, producers would unpark it through the waker
+     */
+    private static void processWriterTasks(WriterContext context, MpscQueue<WriterTask> queue, Waker waker) {
         for( ; ; ) {
-            WriterTask writerTask = queue.take();
+            drainWriterTasks(context, queue);
+            if(context.state == Constants.STOPPED) {
+                return ;
+            }
+            waker.sleep();
+            if(queue.isEmpty()) {
+                LockSupport.park(waker);
+            }
+            waker.awake();
+        }
+    }
+
+    /**
+     *   Drain all the pending tasks, msg tasks would be grouped by their writerNode, so that each channel could encode its msgs into a single buffer and send them with one system call
+     *   Other tasks would flush current batch first, so the order of tasks for the same channel is preserved
+     */
+    private static void drainWriterTasks(WriterContext context, MpscQueue<WriterTask> queue) {
+        int batchSize = 0;
+        for(WriterTask writerTask = queue.poll(); writerTask != null; writerTask = queue.poll()) {
+            context.counters.increase(WriterStats.TASKS);
             switch (writerTask.type()) {
-                case INITIATE -> handleInitiateMsg(nodeMap, writerTask, memApi);
-                case SINGLE_MSG -> handleSingleMsg(nodeMap, writerTask, reserved);
-                case MULTIPLE_MSG -> handleMultipleMsg(nodeMap, writerTask, reserved);
-                case WRITABLE -> handleWritable(nodeMap, writerTask);
-                case SHUTDOWN -> handleShutdown(nodeMap, writerTask);
-                case CLOSE -> handleClose(nodeMap, writerTask);
-                case EXIT -> {
-                    if(state == Constants.RUNNING) {
-                        if(nodeMap.isEmpty()) {
-                            return ;
-                        }else {
-                            state = Constants.CLOSING;
-                        }
+                case SINGLE_MSG, MULTIPLE_MSG -> {
+                    WriterNode writerNode = context.nodeMap.get(writerTask.channel().socket().intValue());
+                    if(writerNode != null && writerNode.onBatchMsg(writerTask)) {
+                        context.batchNodes.add(writerNode);
                     }
-                }
-                case POTENTIAL_EXIT -> {
-                    if(state == Constants.CLOSING && nodeMap.isEmpty()) {
-                        return ;
+                    context.batchTasks.add(writerTask);
+                    if(++batchSize == MAX_BATCH_SIZE) {
+                        flushBatch(context);
+                        batchSize = 0;
                     }
                 }
-                default -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+                default -> {
+                    flushBatch(context);
+                    batchSize = 0;
+                    processWriterTask(context, writerTask);
+                    writerTask.recycle();
+                }
+            }
+        }
+        flushBatch(context);
+    }
+
+    private static void flushBatch(WriterContext context) {
+        List<WriterNode> batchNodes = context.batchNodes;
+        if(!batchNodes.isEmpty()) {
+            for(int i = 0; i < batchNodes.size(); i++) {
+                batchNodes.get(i).flushBatch(context.reserved);
+            }
+            batchNodes.clear();
+        }
+        List<WriterTask> batchTasks = context.batchTasks;
+        if(!batchTasks.isEmpty()) {
+            for(int i = 0; i < batchTasks.size(); i++) {
+                batchTasks.get(i).recycle();
+            }
+            batchTasks.clear();
+        }
+    }
+
+    private static void processWriterTask(WriterContext context, WriterTask writerTask) {
+        IntMap<WriterNode> nodeMap = context.nodeMap;
+        switch (writerTask.type()) {
+            case INITIATE -> handleInitiateMsg(nodeMap, writerTask, context.memApi);
+            case SINGLE_MSG -> handleSingleMsg(nodeMap, writerTask, context.reserved);
+            case MULTIPLE_MSG -> handleMultipleMsg(nodeMap, writerTask, context.reserved);
+            case FILE -> handleFile(nodeMap, writerTask);
+            case WRITABLE -> handleWritable(nodeMap, writerTask);
+            case SHUTDOWN -> handleShutdown(nodeMap, writerTask);
+            case CLOSE -> handleClose(nodeMap, writerTask);
+            case TOP_CHANNELS -> handleTopChannels(nodeMap, writerTask);
+            case EXIT -> {
+                if(context.state == Constants.RUNNING) {
+                    context.state = nodeMap.isEmpty() ? Constants.STOPPED : Constants.CLOSING;
+                }
             }
+            case POTENTIAL_EXIT -> {
+                if(context.state == Constants.CLOSING && nodeMap.isEmpty()) {
+                    context.state = Constants.STOPPED;
+                }
+            }
+            default -> throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
     }
 
@@ -100,6 +262,9 @@ public record Writer(
             Channel channel = writerTask.channel();
             WriterNode writerNode = new WriterNode.ProtocolWriterNode(nodeMap, channel, protocolWithMutex.protocol(), protocolWithMutex.mutex(), memApi);
             nodeMap.put(channel.socket().intValue(), writerNode);
+        }else if(msg instanceof Mutex mutex) {
+            Channel channel = writerTask.channel();
+            nodeMap.put(channel.socket().intValue(), new WriterNode.DatagramWriterNode(nodeMap, channel, mutex, memApi));
         }else {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
@@ -121,6 +286,23 @@ public record Writer(
         }
     }
 
+    /**
+     *   If the channel has already been closed, the file must still be closed here
+     */
+    private static void handleFile(IntMap<WriterNode> nodeMap, WriterTask writerTask) {
+        Channel channel = writerTask.channel();
+        WriterNode writerNode = nodeMap.get(channel.socket().intValue());
+        if(writerNode != null) {
+            writerNode.onFile(writerTask);
+        }else if(writerTask.msg() instanceof FileRegion fileRegion) {
+            WriterNode.ProtocolWriterNode.closeFile(fileRegion);
+            WriterCallback writerCallback = writerTask.writerCallback();
+            if(writerCallback != null) {
+                writerCallback.invokeOnFailure(channel);
+            }
+        }
+    }
+
     private static void handleWritable(IntMap<WriterNode> nodeMap, WriterTask writerTask) {
         Channel channel = writerTask.channel();
         WriterNode writerNode = nodeMap.get(channel.socket().intValue());
@@ -145,4 +327,16 @@ public record Writer(
         }
     }
 
+    private static void handleTopChannels(IntMap<WriterNode> nodeMap, WriterTask writerTask) {
+        if(writerTask.msg() instanceof TopChannelsTask(int count, CompletableFuture<List<ChannelStats>> future)) {
+            future.complete(nodeMap.asList().stream()
+                    .map(writerNode -> writerNode.channel().stats())
+                    .sorted(Comparator.comparingLong(ChannelStats::pendingBytes).reversed())
+                    .limit(count)
+                    .toList());
+        }else {
+            throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package cn.zorcc.common.network;
 
+import cn.zorcc.common.Clock;
 import cn.zorcc.common.Constants;
 import cn.zorcc.common.ExceptionType;
 import cn.zorcc.common.exception.FrameworkException;
@@ -7,12 +8,17 @@ import cn.zorcc.common.log.Logger;
 import cn.zorcc.common.structure.*;
 
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 
-public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
+public sealed interface WriterNode permits WriterNode.ProtocolWriterNode, WriterNode.DatagramWriterNode {
     OsNetworkLibrary osNetworkLibrary = OsNetworkLibrary.CURRENT;
     /**
      *   This function would be invoked when channel wants to send a msg
@@ -24,6 +30,21 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
      */
     void onMultipleMsg(MemorySegment reserved, WriterTask writerTask);
 
+    /**
+     *   This function would be invoked when writer groups a msg task into current batch, return true if it's the first msg of current batch
+     */
+    boolean onBatchMsg(WriterTask writerTask);
+
+    /**
+     *   This function would be invoked when writer flushes current batch, all the msg grouped would be encoded into a single buffer
+     */
+    void flushBatch(MemorySegment reserved);
+
+    /**
+     *   This function would be invoked when channel wants to send a file region
+     */
+    void onFile(WriterTask writerTask);
+
     /**
      *   This function would be invoked when channel become writable
      */
@@ -39,22 +60,67 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
      */
     void onClose(WriterTask writerTask);
 
+    /**
+     *   Return the channel bound to current writerNode
+     */
+    Channel channel();
+
     /**
      *   Exit current writerNode
      */
     void exit(Duration duration);
 
     /**
-     *   Currently, writerNode has only one implementation, so it's designed as a utility class rather than an interface
+     *   ProtocolWriterNode writes stream data through its protocol, unsent data would be kept in taskQueue until the channel becomes writable
      */
     final class ProtocolWriterNode implements WriterNode {
         private static final Logger log = new Logger(ProtocolWriterNode.class);
+        /**
+         *   IOV_MAX on Linux and macOS, which limits the segments count for a single gather write
+         */
+        private static final int MAX_IOV_COUNT = 1024;
+        /**
+         *   Minimal size for copying unsent data out of the reserved segment
+         */
+        private static final long MIN_COPY_SIZE = 64L;
+        /**
+         *   Chunk size for reading file data into user-space when the protocol couldn't transfer it directly
+         */
+        private static final long FILE_CHUNK_SIZE = 64L * Constants.KB;
+
+        /**
+         *   Task owns its buffer or file, which would be closed after data were fully sent or discarded, file is null for a msg task
+         */
         private record Task(
-                MemorySegment base,
+                WriteBuffer buffer,
                 MemorySegment data,
+                FileRegion file,
                 WriterCallback writerCallback
         ) {
+            Task(WriteBuffer buffer, MemorySegment data, WriterCallback writerCallback) {
+                this(buffer, data, null, writerCallback);
+            }
+
+            Task(FileRegion file, WriterCallback writerCallback) {
+                this(null, MemorySegment.NULL, file, writerCallback);
+            }
+        }
+
+        /**
+         *   Callback for a batch of msgs which were sent together
+         */
+        private record BatchCallback(
+                List<WriterCallback> writerCallbacks
+        ) implements WriterCallback {
+            @Override
+            public void onSuccess(Channel channel) {
+                writerCallbacks.forEach(writerCallback -> writerCallback.invokeOnSuccess(channel));
+            }
 
+            @Override
+            public void onFailure(Channel channel) {
+                writerCallbacks.forEach(writerCallback -> writerCallback.invokeOnFailure(channel));
+            }
         }
 
         private final IntMap<WriterNode> nodeMap;
@@ -70,6 +136,19 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
          *   Whether the sender has been shutdown, normally it's null, could exist when tasks is not null
          */
         private Duration timeout;
+        /**
+         *   Msg tasks grouped in current batch, lazily created and reused
+         */
+        private List<WriterTask> batch;
+        /**
+         *   WriteBuffer over the reserved segment, lazily created and reused for each msg sent when current channel is writable
+         */
+        private WriteBuffer reservedBuffer;
+        /**
+         *   Total bytes pending in taskQueue, used for checking the water marks
+         */
+        private long queuedBytes = 0L;
+        private boolean writable = true;
 
         public ProtocolWriterNode(IntMap<WriterNode> nodeMap, Channel channel, Protocol protocol, Mutex mutex, MemApi memApi) {
             this.nodeMap = nodeMap;
@@ -79,26 +158,26 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
             this.memApi = memApi;
         }
 
+        @Override
+        public Channel channel() {
+            return channel;
+        }
+
         @Override
         public void onMsg(MemorySegment reserved, WriterTask writerTask) {
             if(writerTask.channel() == channel) {
                 Object msg = writerTask.msg();
                 WriterCallback writerCallback = writerTask.writerCallback();
-                try(WriteBuffer writeBuffer = newWriteBuffer(reserved)) {
-                    try{
-                        channel.encoder().encode(writeBuffer, msg);
-                    }catch (RuntimeException e) {
-                        log.error("Err occurred in encoder", e);
-                        close();
-                        return ;
-                    }
-                    if(writeBuffer.writeIndex() > 0L) {
-                        sendMsg(writeBuffer, reserved, writerCallback);
-                    }else if(writerCallback != null) {
-                        // if nothing needs to be written, assume that's a success move
-                        writerCallback.invokeOnSuccess(channel);
-                    }
+                WriteBuffer writeBuffer = newWriteBuffer(reserved);
+                try{
+                    channel.encoder().encode(writeBuffer, msg);
+                }catch (RuntimeException e) {
+                    log.error("Err occurred in encoder", e);
+                    writeBuffer.close();
+                    close();
+                    return ;
                 }
+                onEncoded(writeBuffer, reserved, writerCallback);
             }
         }
 
@@ -106,72 +185,139 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
         public void onMultipleMsg(MemorySegment reserved, WriterTask writerTask) {
             if(writerTask.channel() == channel && writerTask.msg() instanceof Collection<?> msgs) {
                 WriterCallback writerCallback = writerTask.writerCallback();
-                try(WriteBuffer writeBuffer = newWriteBuffer(reserved)) {
-                    try{
-                        for (Object msg : msgs) {
-                            channel.encoder().encode(writeBuffer, msg);
-                        }
-                    }catch (RuntimeException e) {
-                        log.error("Err occurred in encoder", e);
-                        close();
-                        return ;
-                    }
-                    if(writeBuffer.writeIndex() > 0L) {
-                        sendMsg(writeBuffer, reserved, writerCallback);
-                    }else if(writerCallback != null) {
-                        // if nothing needs to be written, assume that's a success move
-                        writerCallback.invokeOnSuccess(channel);
+                WriteBuffer writeBuffer = newWriteBuffer(reserved);
+                try{
+                    for (Object msg : msgs) {
+                        channel.encoder().encode(writeBuffer, msg);
                     }
+                }catch (RuntimeException e) {
+                    log.error("Err occurred in encoder", e);
+                    writeBuffer.close();
+                    close();
+                    return ;
                 }
+                onEncoded(writeBuffer, reserved, writerCallback);
             }
         }
 
         @Override
-        public void onWritable(WriterTask writerTask) {
-            if(writerTask.channel() == channel) {
-                for( ; ; ) {
-                    Task task = taskQueue.pollFirst();
-                    if(task == null) {
-                        taskQueue = null;
-                        if(timeout != null) {
-                            shutdown(timeout);
+        public boolean onBatchMsg(WriterTask writerTask) {
+            if(writerTask.channel() != channel) {
+                return false;
+            }
+            if(batch == null) {
+                batch = new ArrayList<>();
+            }
+            batch.add(writerTask);
+            return batch.size() == 1;
+        }
+
+        /**
+         *   All the msgs grouped in current batch would be encoded into the reserved segment and sent with one system call
+         *   If coalesceThreshold is configured, encoded bytes would be sent whenever they reach the threshold, the socket would be corked until the whole batch is sent if TCP_CORK is enabled
+         */
+        @Override
+        public void flushBatch(MemorySegment reserved) {
+            if(batch == null || batch.isEmpty()) {
+                return ;
+            }
+            if(nodeMap.get(channel.socket().intValue()) != this) {
+                // current node has been removed during the batch, the remaining msgs would be discarded
+                batch.clear();
+                return ;
+            }
+            long threshold = channel.socketConfig().getCoalesceThreshold();
+            boolean corked = false;
+            WriteBuffer writeBuffer = newWriteBuffer(reserved);
+            WriterCallback writerCallback = null;
+            List<WriterCallback> writerCallbacks = null;
+            try{
+                for(int i = 0; i < batch.size(); i++) {
+                    WriterTask writerTask = batch.get(i);
+                    try{
+                        if(writerTask.msg() instanceof Collection<?> msgs && writerTask.type() == WriterTaskType.MULTIPLE_MSG) {
+                            for (Object msg : msgs) {
+                                channel.encoder().encode(writeBuffer, msg);
+                            }
+                        }else {
+                            channel.encoder().encode(writeBuffer, writerTask.msg());
                         }
+                    }catch (RuntimeException e) {
+                        log.error("Err occurred in encoder", e);
+                        writeBuffer.close();
+                        close();
                         return ;
                     }
-                    MemorySegment base = task.base();
-                    MemorySegment data = task.data();
-                    WriterCallback writerCallback = task.writerCallback();
-                    long len = data.byteSize();
-                    long r;
-                    for( ; ; ) {
-                        try{
-                            r = protocol.doWrite(data, len);
-                            if(r > 0L && r < len) {
-                                len = len - r;
-                                data = data.asSlice(r, len);
-                            }else {
-                                break;
+                    WriterCallback c = writerTask.writerCallback();
+                    if(c != null) {
+                        if(writerCallback == null) {
+                            writerCallback = c;
+                        }else {
+                            if(writerCallbacks == null) {
+                                writerCallbacks = new ArrayList<>();
+                                writerCallbacks.add(writerCallback);
                             }
-                        }catch (RuntimeException e) {
-                            log.error("Failed to perform doWrite()", e);
-                            close();
-                            return ;
+                            writerCallbacks.add(c);
                         }
                     }
-                    if(r == len) {
-                        // msg has been successfully transferred
-                        memApi.freeMemory(base);
-                        if(writerCallback != null) {
-                            writerCallback.invokeOnSuccess(channel);
+                    if(threshold > 0L && writeBuffer.writeIndex() >= threshold && i < batch.size() - 1) {
+                        if(!corked && taskQueue == null && channel.socketConfig().isTcpCork() && channel.loc().ipType() != IpType.UNIX) {
+                            corked = cork(true);
                         }
-                    }else {
-                        // partly transferred, waiting for next signal
-                        taskQueue.addFirst(new Task(base, data, writerCallback));
-                        if(r < 0L) {
-                            handleEvent(Math.toIntExact(-r));
+                        onEncoded(writeBuffer, reserved, writerCallbacks == null ? writerCallback : new BatchCallback(writerCallbacks));
+                        if(nodeMap.get(channel.socket().intValue()) != this) {
+                            // current node has been closed while sending, the socket must not be touched
+                            return ;
                         }
+                        writeBuffer = newWriteBuffer(reserved);
+                        writerCallback = null;
+                        writerCallbacks = null;
                     }
                 }
+            }finally {
+                batch.clear();
+            }
+            onEncoded(writeBuffer, reserved, writerCallbacks == null ? writerCallback : new BatchCallback(writerCallbacks));
+            if(corked && nodeMap.get(channel.socket().intValue()) == this) {
+                // uncork would push out the remaining partial frame immediately
+                cork(false);
+            }
+        }
+
+        /**
+         *   Modify the TCP_CORK option of current channel, return whether it succeed
+         */
+        private boolean cork(boolean b) {
+            int r = osNetworkLibrary.setTcpCork(channel.socket(), b);
+            if(r < 0) {
+                log.error(STR."Failed to set TCP_CORK for \{channel.loc()}, err code : \{-r}");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void onFile(WriterTask writerTask) {
+            if(writerTask.msg() instanceof FileRegion fileRegion) {
+                if(writerTask.channel() != channel) {
+                    closeFile(fileRegion);
+                    return ;
+                }
+                touch();
+                if(taskQueue == null) {
+                    transferFile(fileRegion, writerTask.writerCallback());
+                }else {
+                    enqueue(new Task(fileRegion, writerTask.writerCallback()));
+                }
+                checkWritability();
+            }
+        }
+
+        @Override
+        public void onWritable(WriterTask writerTask) {
+            if(writerTask.channel() == channel) {
+                flush();
+                checkWritability();
             }
         }
 
@@ -196,27 +342,54 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
 
         /**
          *   If current channel is not writable, then the message would be written into a new allocated memory, which would save us a memcpy()
+         *   Otherwise the reserved buffer would be reused, it's always reset to the reserved segment when closed or detached
          */
         private WriteBuffer newWriteBuffer(MemorySegment reserved) {
             if(taskQueue == null) {
-                return WriteBuffer.newReservedWriteBuffer(memApi, reserved);
+                if(reservedBuffer == null) {
+                    reservedBuffer = WriteBuffer.newReservedWriteBuffer(memApi, reserved);
+                }
+                return reservedBuffer;
             }else {
                 return WriteBuffer.newNativeWriteBuffer(memApi, reserved.byteSize());
             }
         }
 
         /**
-         *   Send msg over the channel, invoking its callback if successful, otherwise copy the data locally for channel to become writable
+         *   Record the last write time for checking write idle timeout in poller
+         */
+        private void touch() {
+            if(channel.socketConfig().getWriteIdleTimeout() > 0 && channel instanceof Channel.ChannelImpl channelImpl) {
+                channelImpl.lastWrite().setOpaque(Clock.nano());
+            }
+        }
+
+        private void onEncoded(WriteBuffer writeBuffer, MemorySegment reserved, WriterCallback writerCallback) {
+            touch();
+            if(writeBuffer.writeIndex() > 0L) {
+                sendMsg(writeBuffer, reserved, writerCallback);
+            }else {
+                writeBuffer.close();
+                if(writerCallback != null) {
+                    // if nothing needs to be written, assume that's a success move
+                    writerCallback.invokeOnSuccess(channel);
+                }
+            }
+        }
+
+        /**
+         *   Send msg over the channel, invoking its callback if successful, otherwise keep the data locally for channel to become writable
+         *   The writeBuffer would be closed or transferred to the taskQueue by this function
          */
         private void sendMsg(WriteBuffer writeBuffer, MemorySegment reserved, WriterCallback writerCallback) {
-            final MemorySegment base = writeBuffer.asSegment();
-            MemorySegment data = base;
+            MemorySegment data = writeBuffer.content();
             if(taskQueue == null) {
+                boolean inReserved = data.address() == reserved.address();
                 long len = data.byteSize();
                 long r;
                 for( ; ; ) {
                     try{
-                        r = protocol.doWrite(data, len);
+                        r = sent(protocol.doWrite(data, len));
                         if(r > 0 && r < len) {
                             len = len - r;
                             data = data.asSlice(r, len);
@@ -225,26 +398,29 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
                         }
                     }catch (RuntimeException e) {
                         log.error("Failed to perform doWrite()", e);
+                        writeBuffer.close();
                         close();
                         return ;
                     }
                 }
                 if(r == len) {
                     // msg has been successfully transferred
+                    writeBuffer.close();
                     if(writerCallback != null) {
                         writerCallback.invokeOnSuccess(channel);
                     }
                 }else {
                     // store the data locally
                     taskQueue = new ArrayDeque<>();
-                    if(base.address() == reserved.address()) {
-                        // data still in reserved, manually copy it
-                        MemorySegment newData = memApi.allocateMemory(len).reinterpret(len);
-                        MemorySegment.copy(data, 0L, newData, 0L, len);
-                        taskQueue.addLast(new Task(base, newData, writerCallback));
+                    if(inReserved) {
+                        // data still in reserved, manually copy it since reserved would be reused for next msg
+                        WriteBuffer copy = WriteBuffer.newNativeWriteBuffer(memApi, Math.max(len, MIN_COPY_SIZE));
+                        copy.writeSegment(data);
+                        writeBuffer.close();
+                        enqueue(new Task(copy, copy.content(), writerCallback));
                     }else {
                         // data could be reused
-                        taskQueue.addLast(new Task(base, data, writerCallback));
+                        enqueue(new Task(own(writeBuffer), data, writerCallback));
                     }
                     if(r < 0L) {
                         handleEvent(Math.toIntExact(-r));
@@ -252,7 +428,302 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
                 }
             }else {
                 // here we know that data must not be reserved, so we could directly cache it
-                taskQueue.addLast(new Task(base, data, writerCallback));
+                enqueue(new Task(own(writeBuffer), data, writerCallback));
+            }
+            checkWritability();
+        }
+
+        /**
+         *   Return a WriteBuffer which could be owned by a task, the reused reserved buffer must hand its grown memory over to a new one
+         */
+        private WriteBuffer own(WriteBuffer writeBuffer) {
+            return writeBuffer == reservedBuffer ? writeBuffer.detach() : writeBuffer;
+        }
+
+        /**
+         *   Record the result of a send call, a negative result means the socket could not accept more data
+         */
+        private long sent(long r) {
+            Counters counters = channel.writer().counters();
+            counters.increase(WriterStats.SEND_CALLS);
+            if(r > 0L) {
+                counters.add(WriterStats.BYTES_OUT, r);
+                if(channel instanceof Channel.ChannelImpl channelImpl) {
+                    channelImpl.counters().add(ChannelStats.BYTES_OUT, r);
+                }
+            }else if(r < 0L) {
+                counters.increase(WriterStats.SEND_BLOCKED);
+            }
+            return r;
+        }
+
+        private void pending(long delta) {
+            queuedBytes += delta;
+            channel.writer().counters().add(WriterStats.PENDING_BYTES, delta);
+            if(channel instanceof Channel.ChannelImpl channelImpl) {
+                channelImpl.counters().add(ChannelStats.PENDING_BYTES, delta);
+            }
+        }
+
+        private static long sizeOf(Task task) {
+            return task.file() == null ? task.data().byteSize() : task.file().length();
+        }
+
+        private void enqueue(Task task) {
+            taskQueue.addLast(task);
+            pending(sizeOf(task));
+        }
+
+        private Task dequeue() {
+            Task task = taskQueue.pollFirst();
+            pending(-sizeOf(task));
+            return task;
+        }
+
+        /**
+         *   Update the writability of current channel when queued bytes crossing the water marks, the poller would stop reading if configured
+         */
+        private void checkWritability() {
+            SocketConfig socketConfig = channel.socketConfig();
+            boolean next;
+            if(writable && queuedBytes > socketConfig.getWriteBufferHighWaterMark()) {
+                next = false;
+            }else if(!writable && queuedBytes < socketConfig.getWriteBufferLowWaterMark()) {
+                next = true;
+            }else {
+                return ;
+            }
+            if(nodeMap.get(channel.socket().intValue()) != this) {
+                // current node has been removed, no need to notify
+                return ;
+            }
+            writable = next;
+            if(channel instanceof Channel.ChannelImpl channelImpl) {
+                channelImpl.writable().set(next);
+            }
+            if(socketConfig.isSuspendReadWhenUnwritable()) {
+                suspendRead(!next);
+            }
+            try{
+                channel.handler().onWritabilityChanged(channel, next);
+            }catch (RuntimeException e) {
+                log.error("Err occurred in onWritabilityChanged()", e);
+            }
+        }
+
+        /**
+         *   Modify the read interest of current channel, the suspended flag would prevent the poller from registering read interest again
+         */
+        private void suspendRead(boolean suspend) {
+            int state = mutex.wLock();
+            try{
+                if((state & Constants.NET_PC) == 0) {
+                    int from = state & Constants.NET_RW;
+                    int to;
+                    if(suspend) {
+                        state |= Constants.NET_RS;
+                        to = (from & Constants.NET_R) == Constants.NET_R ? from - (Constants.NET_R - Constants.NET_NONE) : from;
+                    }else {
+                        state &= ~Constants.NET_RS;
+                        to = from | Constants.NET_R;
+                    }
+                    if(to != from) {
+                        osNetworkLibrary.ctlMux(channel.poller().mux(), channel.socket(), from, to, memApi);
+                        state += to - from;
+                    }
+                }
+            }finally {
+                mutex.wUnlock(state);
+            }
+        }
+
+        /**
+         *   Transfer the file region until finished or blocked, the unsent part would be put at the head of taskQueue if blocked
+         *   Return false if current channel is blocked or has been closed
+         */
+        private boolean transferFile(FileRegion fileRegion, WriterCallback writerCallback) {
+            FileRegion region = fileRegion;
+            while (region.length() > 0L) {
+                if(protocol.supportSendFile()) {
+                    long r;
+                    try{
+                        r = sent(protocol.doSendFile(region.fd(), region.offset(), region.length()));
+                    }catch (RuntimeException e) {
+                        log.error("Failed to perform doSendFile()", e);
+                        failFile(region, writerCallback);
+                        return false;
+                    }
+                    if(r > 0L) {
+                        region = region.advance(r);
+                    }else if(r == 0L) {
+                        log.error("File reached its end before the whole region was transferred");
+                        failFile(region, writerCallback);
+                        return false;
+                    }else {
+                        pushFront(new Task(region, writerCallback));
+                        handleEvent(Math.toIntExact(-r));
+                        return false;
+                    }
+                }else {
+                    long len = Math.min(region.length(), FILE_CHUNK_SIZE);
+                    WriteBuffer chunk = WriteBuffer.newNativeWriteBuffer(memApi, len);
+                    MemorySegment data = chunk.reserve(len);
+                    long written = 0L;
+                    long r;
+                    try{
+                        readFully(region, data);
+                        for( ; ; ) {
+                            r = sent(protocol.doWrite(written == 0L ? data : data.asSlice(written), len - written));
+                            if(r > 0L) {
+                                written += r;
+                                if(written == len) {
+                                    break;
+                                }
+                            }else {
+                                break;
+                            }
+                        }
+                    }catch (RuntimeException e) {
+                        log.error("Failed to transfer file chunk", e);
+                        chunk.close();
+                        failFile(region, writerCallback);
+                        return false;
+                    }
+                    FileRegion remaining = region.advance(len);
+                    if(written == len) {
+                        chunk.close();
+                        region = remaining;
+                    }else {
+                        // the chunk must be kept since TLS requires retrying with the same data, the callback would be attached to the last part
+                        if(remaining.length() > 0L) {
+                            pushFront(new Task(remaining, writerCallback));
+                            pushFront(new Task(chunk, data.asSlice(written), null));
+                        }else {
+                            closeFile(remaining);
+                            pushFront(new Task(chunk, data.asSlice(written), writerCallback));
+                        }
+                        handleEvent(Math.toIntExact(-r));
+                        return false;
+                    }
+                }
+            }
+            closeFile(region);
+            if(writerCallback != null) {
+                writerCallback.invokeOnSuccess(channel);
+            }
+            return true;
+        }
+
+        private static void readFully(FileRegion region, MemorySegment data) {
+            long len = data.byteSize();
+            long read = 0L;
+            while (read < len) {
+                long r = osNetworkLibrary.readFile(region.fd(), read == 0L ? data : data.asSlice(read), len - read, region.offset() + read);
+                if(r < 0L) {
+                    throw new FrameworkException(ExceptionType.NETWORK, STR."Failed to read file, errno : \{-r}");
+                }else if(r == 0L) {
+                    throw new FrameworkException(ExceptionType.NETWORK, "File reached its end before the whole region was transferred");
+                }
+                read += r;
+            }
+        }
+
+        private void pushFront(Task task) {
+            if(taskQueue == null) {
+                taskQueue = new ArrayDeque<>();
+            }
+            taskQueue.addFirst(task);
+            pending(sizeOf(task));
+        }
+
+        private void failFile(FileRegion region, WriterCallback writerCallback) {
+            closeFile(region);
+            if(writerCallback != null) {
+                writerCallback.invokeOnFailure(channel);
+            }
+            close();
+        }
+
+        /**
+         *   Close the file of target region, failure would only be recorded in log
+         */
+        static void closeFile(FileRegion region) {
+            int r = osNetworkLibrary.closeFile(region.fd());
+            if(r < 0) {
+                log.error(STR."Failed to close file, errno : \{Math.abs(r)}");
+            }
+        }
+
+        /**
+         *   Flush the pending tasks using gather write, so that a slow consumer with many small frames would not cost a system call for each frame
+         *   Msg tasks before the first file task would be gathered together, file tasks would be transferred one by one
+         */
+        private void flush() {
+            for( ; ; ) {
+                Task head = taskQueue.peekFirst();
+                if(head == null) {
+                    taskQueue = null;
+                    if(timeout != null) {
+                        shutdown(timeout);
+                    }
+                    return ;
+                }
+                if(head.file() != null) {
+                    dequeue();
+                    if(transferFile(head.file(), head.writerCallback())) {
+                        continue ;
+                    }
+                    return ;
+                }
+                MemorySegment[] segments = new MemorySegment[Math.min(taskQueue.size(), MAX_IOV_COUNT)];
+                int count = 0;
+                long len = 0L;
+                Iterator<Task> iterator = taskQueue.iterator();
+                while (count < segments.length) {
+                    Task task = iterator.next();
+                    if(task.file() != null) {
+                        break;
+                    }
+                    MemorySegment data = task.data();
+                    segments[count++] = data;
+                    len += data.byteSize();
+                }
+                long r;
+                try{
+                    r = sent(count == 1 ? protocol.doWrite(segments[0], len) : protocol.doWritev(segments, count, len));
+                }catch (RuntimeException e) {
+                    log.error("Failed to perform doWritev()", e);
+                    close();
+                    return ;
+                }
+                if(r < 0L) {
+                    // waiting for next signal
+                    handleEvent(Math.toIntExact(-r));
+                    return ;
+                }
+                consume(r);
+            }
+        }
+
+        /**
+         *   Remove the tasks that have been successfully transferred, the partly transferred one would be kept at the head of taskQueue
+         */
+        private void consume(long written) {
+            while (written > 0L) {
+                Task task = dequeue();
+                MemorySegment data = task.data();
+                long size = data.byteSize();
+                if(written >= size) {
+                    written -= size;
+                    task.buffer().close();
+                    WriterCallback writerCallback = task.writerCallback();
+                    if(writerCallback != null) {
+                        writerCallback.invokeOnSuccess(channel);
+                    }
+                }else {
+                    pushFront(new Task(task.buffer(), data.asSlice(written, size - written), task.writerCallback()));
+                    return ;
+                }
             }
         }
 
@@ -347,13 +818,18 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
         private void clearTaskQueue() {
             if(taskQueue != null) {
                 taskQueue.forEach(task -> {
-                    memApi.freeMemory(task.base());
+                    if(task.file() != null) {
+                        closeFile(task.file());
+                    }else {
+                        task.buffer().close();
+                    }
                     WriterCallback writerCallback = task.writerCallback();
                     if(writerCallback != null) {
                         writerCallback.invokeOnFailure(channel);
                     }
                 });
                 taskQueue = null;
+                pending(-queuedBytes);
             }
         }
 
@@ -371,4 +847,415 @@ public sealed interface WriterNode permits WriterNode.ProtocolWriterNode {
             }
         }
     }
+
+    /**
+     *   DatagramWriterNode sends datagrams of a datagram channel with sendmmsg(), msgs grouped in a batch would be encoded into separate datagrams and sent with a single system call
+     *   If UDP GSO was enabled, consecutive datagrams of the segment size to the same peer would be merged into a single message, the last one could be smaller
+     *   Datagrams are never queued, if the socket buffer is full, the remaining datagrams would be dropped with their callbacks failed, since UDP doesn't guarantee delivery anyway
+     */
+    final class DatagramWriterNode implements WriterNode {
+        private static final Logger log = new Logger(DatagramWriterNode.class);
+        /**
+         *   Max payload of a single UDP message, limited by the total length of an IPV4 packet
+         */
+        private static final int MAX_MSG_SIZE = 65507;
+        /**
+         *   UDP_MAX_SEGMENTS of Linux kernel, which limits the datagrams count of a single GSO message
+         */
+        private static final int MAX_SEGMENTS = 64;
+        /**
+         *   If the remaining reserved segment is smaller than this size, current batch would be flushed first to avoid encoding into a newly allocated buffer
+         */
+        private static final long MIN_RESERVED_SIZE = 2L * Constants.KB;
+
+        /**
+         *   Callback shared by all the datagrams of a multiple msg task, invoked once after all of them were processed
+         */
+        private static final class MultipleCallback implements WriterCallback {
+            private final WriterCallback writerCallback;
+            private int remaining;
+            private boolean failed = false;
+
+            private MultipleCallback(WriterCallback writerCallback, int remaining) {
+                this.writerCallback = writerCallback;
+                this.remaining = remaining;
+            }
+
+            @Override
+            public void onSuccess(Channel channel) {
+                if(--remaining == 0) {
+                    complete(channel);
+                }
+            }
+
+            @Override
+            public void onFailure(Channel channel) {
+                failed = true;
+                if(--remaining == 0) {
+                    complete(channel);
+                }
+            }
+
+            private void complete(Channel channel) {
+                if(failed) {
+                    writerCallback.invokeOnFailure(channel);
+                }else {
+                    writerCallback.invokeOnSuccess(channel);
+                }
+            }
+        }
+
+        private final IntMap<WriterNode> nodeMap;
+        private final Channel channel;
+        private final Mutex mutex;
+        private final MemApi memApi;
+        private final IpType ipType;
+        private final int batchSize;
+        private final int segmentSize;
+        private final Allocator allocator;
+        private final MmsgBatch mmsg;
+        /**
+         *   Holding the ip string when writing the peer's address
+         */
+        private final MemorySegment address;
+        /**
+         *   States of each message in current batch, a message contains several datagrams if merged for GSO
+         */
+        private final Loc[] peers;
+        private final int[] msgStart;
+        private final int[] msgSegments;
+        private final long[] msgBytes;
+        /**
+         *   States of each datagram in current batch
+         */
+        private final WriteBuffer[] buffers;
+        private final WriterCallback[] callbacks;
+        private int msgCount = 0;
+        private int datagramCount = 0;
+        private long reservedIndex = 0L;
+        /**
+         *   Callbacks of the datagrams already processed, they are invoked after the batch has been reset, since a callback could send another msg inline and re-enter flush()
+         */
+        private WriterCallback[] doneCallbacks;
+        private boolean[] doneResults;
+        private int doneCount = 0;
+        private boolean completing = false;
+        /**
+         *   Msg tasks grouped in current batch, lazily created and reused
+         */
+        private List<WriterTask> batch;
+
+        public DatagramWriterNode(IntMap<WriterNode> nodeMap, Channel channel, Mutex mutex, MemApi memApi) {
+            this.nodeMap = nodeMap;
+            this.channel = channel;
+            this.mutex = mutex;
+            this.memApi = memApi;
+            this.ipType = channel.loc().ipType();
+            this.batchSize = channel.socketConfig().getDatagramBatchSize();
+            this.segmentSize = channel.socketConfig().getUdpSegmentSize();
+            int capacity = segmentSize > 0 ? batchSize * MAX_SEGMENTS : batchSize;
+            boolean ipv6 = ipType == IpType.IPV6;
+            long addrSize = ipv6 ? osNetworkLibrary.ipv6AddressSize() : osNetworkLibrary.ipv4AddressSize();
+            long addrAlign = ipv6 ? osNetworkLibrary.ipv6AddressAlign() : osNetworkLibrary.ipv4AddressAlign();
+            this.allocator = Allocator.newDirectAllocator(memApi);
+            this.mmsg = new MmsgBatch(memApi, batchSize, capacity, addrSize, addrAlign);
+            this.address = allocator.allocate(ValueLayout.JAVA_BYTE, osNetworkLibrary.ipv6AddressLen());
+            this.peers = new Loc[batchSize];
+            this.msgStart = new int[batchSize];
+            this.msgSegments = new int[batchSize];
+            this.msgBytes = new long[batchSize];
+            this.buffers = new WriteBuffer[capacity];
+            this.callbacks = new WriterCallback[capacity];
+            this.doneCallbacks = new WriterCallback[capacity];
+            this.doneResults = new boolean[capacity];
+        }
+
+        @Override
+        public Channel channel() {
+            return channel;
+        }
+
+        @Override
+        public void onMsg(MemorySegment reserved, WriterTask writerTask) {
+            if(writerTask.channel() == channel) {
+                add(reserved, writerTask);
+                flush();
+            }
+        }
+
+        @Override
+        public void onMultipleMsg(MemorySegment reserved, WriterTask writerTask) {
+            if(writerTask.channel() == channel) {
+                add(reserved, writerTask);
+                flush();
+            }
+        }
+
+        @Override
+        public boolean onBatchMsg(WriterTask writerTask) {
+            if(writerTask.channel() != channel) {
+                return false;
+            }
+            if(batch == null) {
+                batch = new ArrayList<>();
+            }
+            batch.add(writerTask);
+            return batch.size() == 1;
+        }
+
+        @Override
+        public void flushBatch(MemorySegment reserved) {
+            if(batch == null || batch.isEmpty()) {
+                return ;
+            }
+            if(nodeMap.get(channel.socket().intValue()) != this) {
+                // current node has been removed during the batch, the remaining msgs would be discarded
+                batch.clear();
+                return ;
+            }
+            for (WriterTask writerTask : batch) {
+                add(reserved, writerTask);
+            }
+            batch.clear();
+            flush();
+        }
+
+        /**
+         *   Datagram channel couldn't transfer files, the file would be closed directly
+         */
+        @Override
+        public void onFile(WriterTask writerTask) {
+            if(writerTask.msg() instanceof FileRegion fileRegion) {
+                ProtocolWriterNode.closeFile(fileRegion);
+                log.error("Datagram channel doesn't support sending files");
+                fail(writerTask.writerCallback());
+            }
+        }
+
+        @Override
+        public void onWritable(WriterTask writerTask) {
+            // No action, datagram channel never registers writable interest
+        }
+
+        @Override
+        public void onShutdown(WriterTask writerTask) {
+            if(writerTask.channel() == channel) {
+                close();
+            }
+        }
+
+        @Override
+        public void onClose(WriterTask writerTask) {
+            if(writerTask.channel() == channel) {
+                close();
+            }
+        }
+
+        @Override
+        public void exit(Duration duration) {
+            close();
+        }
+
+        private void add(MemorySegment reserved, WriterTask writerTask) {
+            WriterCallback writerCallback = writerTask.writerCallback();
+            if(writerTask.type() == WriterTaskType.MULTIPLE_MSG && writerTask.msg() instanceof Collection<?> msgs) {
+                WriterCallback c = writerCallback == null ? null : new MultipleCallback(writerCallback, msgs.size());
+                for (Object msg : msgs) {
+                    addDatagram(reserved, msg, c);
+                }
+            }else {
+                addDatagram(reserved, writerTask.msg(), writerCallback);
+            }
+        }
+
+        /**
+         *   Encode the msg into current batch, the batch would be flushed first if it's full
+         */
+        private void addDatagram(MemorySegment reserved, Object msg, WriterCallback writerCallback) {
+            if(!(msg instanceof Datagram(Loc loc, Object m)) || loc == null || m == null) {
+                log.error("Msg sent over datagram channel must be Datagram with target loc");
+                fail(writerCallback);
+                return ;
+            }
+            if(msgCount == batchSize || datagramCount == buffers.length || reserved.byteSize() - reservedIndex < MIN_RESERVED_SIZE) {
+                flush();
+            }
+            WriteBuffer writeBuffer = WriteBuffer.newReservedWriteBuffer(memApi, reserved.asSlice(reservedIndex));
+            try{
+                channel.encoder().encode(writeBuffer, m);
+            }catch (RuntimeException e) {
+                log.error("Err occurred in encoder", e);
+                writeBuffer.close();
+                fail(writerCallback);
+                return ;
+            }
+            long len = writeBuffer.writeIndex();
+            if(len == 0L) {
+                writeBuffer.close();
+                // if nothing needs to be written, assume that's a success move
+                if(writerCallback != null) {
+                    writerCallback.invokeOnSuccess(channel);
+                }
+                return ;
+            }
+            if(len > MAX_MSG_SIZE || (segmentSize > 0 && len > segmentSize)) {
+                log.error(STR."Datagram to \{loc} is too large : \{len}");
+                writeBuffer.close();
+                fail(writerCallback);
+                return ;
+            }
+            int last = msgCount - 1;
+            boolean merged = segmentSize > 0 && last >= 0 && loc.equals(peers[last])
+                    && msgBytes[last] == (long) msgSegments[last] * segmentSize
+                    && msgSegments[last] < MAX_SEGMENTS && msgBytes[last] + len <= MAX_MSG_SIZE;
+            if(!merged) {
+                MemorySegment addr = mmsg.addr(msgCount);
+                if(last >= 0 && loc.equals(peers[last])) {
+                    MemorySegment.copy(mmsg.addr(last), 0L, addr, 0L, addr.byteSize());
+                }else if(!osNetworkLibrary.setSockAddr(ipType, loc, addr, address)) {
+                    log.error(STR."Invalid datagram target : \{loc}");
+                    writeBuffer.close();
+                    fail(writerCallback);
+                    return ;
+                }
+            }
+            MemorySegment data = writeBuffer.content();
+            if(data.address() == reserved.address() + reservedIndex) {
+                reservedIndex += len;
+            }
+            int index = datagramCount++;
+            buffers[index] = writeBuffer;
+            callbacks[index] = writerCallback;
+            mmsg.setIov(index, data);
+            if(merged) {
+                msgSegments[last]++;
+                msgBytes[last] += len;
+            }else {
+                int current = msgCount++;
+                peers[current] = loc;
+                msgStart[current] = index;
+                msgSegments[current] = 1;
+                msgBytes[current] = len;
+            }
+        }
+
+        /**
+         *   Send all the messages in current batch, a message failed with errors other than blocking would be skipped, since it normally only concerns a single peer
+         *   Callbacks are only invoked after current batch has been reset, so a callback sending msgs inline would start a new batch instead of resending the current one
+         */
+        private void flush() {
+            if(msgCount > 0) {
+                for(int i = 0; i < msgCount; i++) {
+                    mmsg.setMsg(i, msgStart[i], msgSegments[i]);
+                }
+                Counters counters = channel.writer().counters();
+                int sent = 0;
+                while (sent < msgCount) {
+                    int r = osNetworkLibrary.sendMmsg(channel.socket(), mmsg.msgsFrom(sent), msgCount - sent);
+                    counters.increase(WriterStats.SEND_CALLS);
+                    if(r > 0) {
+                        for(int i = sent; i < sent + r; i++) {
+                            counters.add(WriterStats.BYTES_OUT, msgBytes[i]);
+                            if(channel instanceof Channel.ChannelImpl channelImpl) {
+                                channelImpl.counters().add(ChannelStats.BYTES_OUT, msgBytes[i]);
+                            }
+                            complete(i, true);
+                        }
+                        sent += r;
+                    }else if(-r == osNetworkLibrary.sendBlockCode()) {
+                        counters.increase(WriterStats.SEND_BLOCKED);
+                        for(int i = sent; i < msgCount; i++) {
+                            complete(i, false);
+                        }
+                        break ;
+                    }else {
+                        log.warn(STR."Failed to send datagram to \{peers[sent]}, errno : \{-r}");
+                        complete(sent++, false);
+                    }
+                }
+            }
+            for(int i = 0; i < datagramCount; i++) {
+                buffers[i].close();
+                buffers[i] = null;
+                callbacks[i] = null;
+            }
+            for(int i = 0; i < msgCount; i++) {
+                peers[i] = null;
+            }
+            msgCount = 0;
+            datagramCount = 0;
+            reservedIndex = 0L;
+            runCallbacks();
+        }
+
+        /**
+         *   Record the result of each datagram in the message, the callbacks would be invoked by runCallbacks()
+         */
+        private void complete(int msgIndex, boolean success) {
+            int start = msgStart[msgIndex];
+            for(int i = start; i < start + msgSegments[msgIndex]; i++) {
+                WriterCallback writerCallback = callbacks[i];
+                if(writerCallback != null) {
+                    if(doneCount == doneCallbacks.length) {
+                        doneCallbacks = Arrays.copyOf(doneCallbacks, doneCount << 1);
+                        doneResults = Arrays.copyOf(doneResults, doneCount << 1);
+                    }
+                    doneCallbacks[doneCount] = writerCallback;
+                    doneResults[doneCount] = success;
+                    doneCount++;
+                }
+            }
+        }
+
+        /**
+         *   Invoke the recorded callbacks, if a callback triggers another flush(), its callbacks would be appended and invoked by the outer loop
+         */
+        private void runCallbacks() {
+            if(completing) {
+                return ;
+            }
+            completing = true;
+            try{
+                for(int i = 0; i < doneCount; i++) {
+                    WriterCallback writerCallback = doneCallbacks[i];
+                    doneCallbacks[i] = null;
+                    if(doneResults[i]) {
+                        writerCallback.invokeOnSuccess(channel);
+                    }else {
+                        writerCallback.invokeOnFailure(channel);
+                    }
+                }
+            }finally {
+                doneCount = 0;
+                completing = false;
+            }
+        }
+
+        private void fail(WriterCallback writerCallback) {
+            if(writerCallback != null) {
+                writerCallback.invokeOnFailure(channel);
+            }
+        }
+
+        private void close() {
+            if(nodeMap.remove(channel.socket().intValue(), this)) {
+                int state = mutex.wLock();
+                try {
+                    if((state & Constants.NET_PC) != 0) {
+                        PollerNode.DatagramPollerNode.closeSocket(channel);
+                    }else {
+                        channel.poller().submit(new PollerTask(PollerTaskType.CLOSE, channel, null));
+                    }
+                    state |= Constants.NET_WC;
+                } finally {
+                    mutex.wUnlock(state);
+                }
+                mmsg.close();
+                allocator.close();
+                if(nodeMap.isEmpty()) {
+                    channel.writer().submit(new WriterTask(WriterTaskType.POTENTIAL_EXIT, null, null, null));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package cn.zorcc.common.network;
+
+/**
+ *   Snapshot of a writer's counters, all the counters are accumulated since the writer started
+ *   sendBlocked is the number of send calls which could not transfer all the data, pendingBytes is the total bytes queued in the writer's channels
+ */
+public record WriterStats(
+        String name,
+        long bytesOut,
+        long sendCalls,
+        long sendBlocked,
+        long tasks,
+        long queueDepth,
+        long pendingBytes
+) {
+    static final int BYTES_OUT = 0;
+    static final int SEND_CALLS = 1;
+    static final int SEND_BLOCKED = 2;
+    static final int TASKS = 3;
+    static final int PENDING_BYTES = 4;
+    static final int SIZE = 5;
+
+    static WriterStats of(Writer writer) {
+        Counters counters = writer.counters();
+        return new WriterStats(writer.writerThread().getName(), counters.get(BYTES_OUT), counters.get(SEND_CALLS), counters.get(SEND_BLOCKED),
+                counters.get(TASKS), writer.writerQueue().size(), counters.get(PENDING_BYTES));
+    }
+}
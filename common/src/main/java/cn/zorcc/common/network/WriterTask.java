@@ -1,13 +1,76 @@
 package cn.zorcc.common.network;
 
+import cn.zorcc.common.structure.ObjectPool;
+
 /**
  *   Used as writer message
+ *   Msg tasks are acquired from the writer's pool and recycled after being processed, so they must not be retained by writer nodes
  */
-public record WriterTask(
-        WriterTaskType type,
-        Channel channel,
-        Object msg,
-        WriterCallback writerCallback
-) {
+public final class WriterTask {
+    private final ObjectPool<WriterTask> pool;
+    private WriterTaskType type;
+    private Channel channel;
+    private Object msg;
+    private WriterCallback writerCallback;
+
+    public WriterTask(WriterTaskType type, Channel channel, Object msg, WriterCallback writerCallback) {
+        this(null, type, channel, msg, writerCallback);
+    }
+
+    private WriterTask(ObjectPool<WriterTask> pool, WriterTaskType type, Channel channel, Object msg, WriterCallback writerCallback) {
+        this.pool = pool;
+        this.type = type;
+        this.channel = channel;
+        this.msg = msg;
+        this.writerCallback = writerCallback;
+    }
+
+    /**
+     *   Acquire a recycled task from the pool, a new pooled task would be created if the pool is empty
+     */
+    static WriterTask acquire(ObjectPool<WriterTask> pool, WriterTaskType type, Channel channel, Object msg, WriterCallback writerCallback) {
+        WriterTask writerTask = pool.acquire();
+        if(writerTask == null) {
+            return new WriterTask(pool, type, channel, msg, writerCallback);
+        }
+        writerTask.type = type;
+        writerTask.channel = channel;
+        writerTask.msg = msg;
+        writerTask.writerCallback = writerCallback;
+        return writerTask;
+    }
+
+    /**
+     *   Return current task to its pool, references are cleared so that msgs could be collected, tasks not created from a pool would be ignored
+     *   Must be invoked by the thread processing the writer tasks, after the task has been fully processed
+     */
+    void recycle() {
+        if(pool != null) {
+            channel = null;
+            msg = null;
+            writerCallback = null;
+            pool.release(this);
+        }
+    }
+
+    public WriterTaskType type() {
+        return type;
+    }
+
+    public Channel channel() {
+        return channel;
+    }
+
+    public Object msg() {
+        return msg;
+    }
+
+    public WriterCallback writerCallback() {
+        return writerCallback;
+    }
 
+    @Override
+    public String toString() {
+        return STR."WriterTask[type=\{type}, channel=\{channel}, msg=\{msg}, writerCallback=\{writerCallback}]";
+    }
 }
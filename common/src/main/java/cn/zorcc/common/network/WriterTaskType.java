@@ -16,6 +16,10 @@ public enum WriterTaskType {
      *   Send multiple msg over the channel
      */
     MULTIPLE_MSG,
+    /**
+     *   Send a file region over the channel
+     */
+    FILE,
     /**
      *   Indicates that channel is writable again
      */
@@ -28,6 +32,10 @@ public enum WriterTaskType {
      *   Tell the channel to force close the channel
      */
     CLOSE,
+    /**
+     *   Collect the channels with the most pending bytes of current writer instance
+     */
+    TOP_CHANNELS,
     /**
      *   Indicates that current writer instance has no channel bound to it, it might be a potential exit for the whole application
      */
@@ -0,0 +1,95 @@
+package cn.zorcc.common.structure;
+
+import cn.zorcc.common.util.NativeUtil;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ *   ChunkPool caches fixed-size native memory chunks for a single thread, not thread-safe
+ *   Chunks released beyond the max cached count would be freed directly
+ *   ReadChains created over current pool were tracked, so that closing the pool would also release the chunks still held by them
+ */
+public final class ChunkPool implements AutoCloseable {
+    private static final int MAX_CACHED = 64;
+    private final MemApi memApi;
+    private final long chunkSize;
+    private final ArrayDeque<MemorySegment> cached = new ArrayDeque<>();
+    private final Set<ReadChain> chains = new HashSet<>();
+    private boolean closed = false;
+
+    public ChunkPool(MemApi memApi, long chunkSize) {
+        this.memApi = memApi;
+        this.chunkSize = chunkSize;
+    }
+
+    public long chunkSize() {
+        return chunkSize;
+    }
+
+    public MemApi memApi() {
+        return memApi;
+    }
+
+    /**
+     *   Track a live ReadChain, invoked when the chain was created
+     */
+    void register(ReadChain chain) {
+        if(!closed) {
+            chains.add(chain);
+        }
+    }
+
+    /**
+     *   Stop tracking a ReadChain, invoked when the chain was closed
+     */
+    void unregister(ReadChain chain) {
+        chains.remove(chain);
+    }
+
+    /**
+     *   Acquire a chunk from current pool, a new chunk would be allocated if there is no cached one
+     */
+    public MemorySegment acquire() {
+        MemorySegment chunk = cached.pollLast();
+        if(chunk != null) {
+            return chunk;
+        }
+        chunk = memApi.allocateMemory(chunkSize).reinterpret(chunkSize);
+        if(NativeUtil.checkNullPointer(chunk)) {
+            throw new OutOfMemoryError();
+        }
+        return chunk;
+    }
+
+    /**
+     *   Return a chunk back to current pool, the chunk must be acquired from current pool
+     */
+    public void release(MemorySegment chunk) {
+        if(!closed && cached.size() < MAX_CACHED) {
+            cached.addLast(chunk);
+        }else {
+            memApi.freeMemory(chunk);
+        }
+    }
+
+    /**
+     *   Close all the live ReadChains, then free the cached chunks, chunks released after closing would be freed directly
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<ReadChain> live = new ArrayList<>(chains);
+        chains.clear();
+        for (ReadChain chain : live) {
+            chain.close();
+        }
+        for(MemorySegment chunk = cached.pollLast(); chunk != null; chunk = cached.pollLast()) {
+            memApi.freeMemory(chunk);
+        }
+    }
+}
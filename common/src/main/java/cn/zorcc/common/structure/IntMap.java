@@ -6,6 +6,7 @@ import cn.zorcc.common.exception.FrameworkException;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 
@@ -13,7 +14,7 @@ import java.util.List;
  *   HashMap with int as key type, fixed size, better performance because of no auto-boxing
  *   TODO after value types got published, this class might be considered to be rewrite
  */
-public sealed interface IntMap<T> permits IntMap.IntLinkedMap, IntMap.IntTreeMap {
+public sealed interface IntMap<T> permits IntMap.IntLinkedMap, IntMap.IntTreeMap, IntMap.IntArrayMap {
 
     /**
      *   Create an IntMap using linked nodes, O(1) insertion, O(n) search
@@ -35,6 +36,17 @@ public sealed interface IntMap<T> permits IntMap.IntLinkedMap, IntMap.IntTreeMap
         return new IntTreeMap<>(size);
     }
 
+    /**
+     *   Create an IntMap using paged arrays indexed by the identifier, O(1) insertion, O(1) search
+     *   It's designed for small and dense identifiers like file descriptors, size is the initial identifier range to be covered
+     */
+    static <T> IntMap<T> newArrayMap(int size) {
+        if(Integer.bitCount(size) != 1) {
+            throw new FrameworkException(ExceptionType.CONTEXT, "Size must be power of 2");
+        }
+        return new IntArrayMap<>(size);
+    }
+
     /**
      *   Get an element from current IntMap, return null if it doesn't exist
      */
@@ -542,4 +554,133 @@ public sealed interface IntMap<T> permits IntMap.IntLinkedMap, IntMap.IntTreeMap
             return result;
         }
     }
+
+    /**
+     *   Identifiers are split into a page index and an offset, pages are allocated on demand and released when they become empty
+     *   So huge identifiers only cost a directory slot and a single page, instead of an array covering the whole range
+     *   The last released page is kept as a spare for the next allocation, so connect and close churn around a page boundary wouldn't allocate a page each time
+     *   Identifiers are treated as unsigned, negative ones still work but would enlarge the directory
+     */
+    final class IntArrayMap<T> implements IntMap<T> {
+        private static final int PAGE_SHIFT = 12;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+        private static final int PAGE_MASK = PAGE_SIZE - 1;
+        private static final int MAX_PAGES = 1 << (Integer.SIZE - PAGE_SHIFT);
+        private Object[][] pages;
+        /**
+         *   Element count of each page, used for releasing empty pages
+         */
+        private int[] counts;
+        /**
+         *   An empty page released most recently, reused before allocating a new one
+         */
+        private Object[] spare;
+        private int size;
+
+        IntArrayMap(int size) {
+            int initialPages = Math.max(size >>> PAGE_SHIFT, 1);
+            this.pages = new Object[initialPages][];
+            this.counts = new int[initialPages];
+            this.size = 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int identifier) {
+            int pageIndex = identifier >>> PAGE_SHIFT;
+            Object[][] p = pages;
+            if(pageIndex < p.length) {
+                Object[] page = p[pageIndex];
+                if(page != null) {
+                    return (T) page[identifier & PAGE_MASK];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void put(int identifier, T value) {
+            if(value == null) {
+                throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED);
+            }
+            int pageIndex = identifier >>> PAGE_SHIFT;
+            if(pageIndex >= pages.length) {
+                int len = Math.min(Math.max(pageIndex + 1, pages.length << 1), MAX_PAGES);
+                pages = Arrays.copyOf(pages, len);
+                counts = Arrays.copyOf(counts, len);
+            }
+            Object[] page = pages[pageIndex];
+            if(page == null) {
+                if(spare != null) {
+                    page = spare;
+                    spare = null;
+                }else {
+                    page = new Object[PAGE_SIZE];
+                }
+                pages[pageIndex] = page;
+            }
+            int offset = identifier & PAGE_MASK;
+            if(page[offset] != null) {
+                // the same as IntTreeMap, an occupied slot means a stale value was never removed
+                throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED);
+            }
+            page[offset] = value;
+            counts[pageIndex]++;
+            size++;
+        }
+
+        @Override
+        public void replace(int identifier, T oldValue, T newValue) {
+            int pageIndex = identifier >>> PAGE_SHIFT;
+            if(pageIndex < pages.length) {
+                Object[] page = pages[pageIndex];
+                int offset = identifier & PAGE_MASK;
+                if(page != null && newValue != null && page[offset] != null && page[offset] == oldValue) {
+                    page[offset] = newValue;
+                    return ;
+                }
+            }
+            throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED);
+        }
+
+        @Override
+        public boolean remove(int identifier, T value) {
+            int pageIndex = identifier >>> PAGE_SHIFT;
+            if(pageIndex < pages.length) {
+                Object[] page = pages[pageIndex];
+                int offset = identifier & PAGE_MASK;
+                if(page != null && page[offset] != null && page[offset] == value) {
+                    page[offset] = null;
+                    size--;
+                    if(--counts[pageIndex] == 0) {
+                        spare = page;
+                        pages[pageIndex] = null;
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int count() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<T> asList() {
+            List<T> result = new ArrayList<>(size);
+            for (Object[] page : pages) {
+                if(page != null) {
+                    for (Object o : page) {
+                        if(o != null) {
+                            result.add((T) o);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package cn.zorcc.common.structure;
+
+import cn.zorcc.common.Constants;
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.exception.FrameworkException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *   MpscQueue is a lock-free queue for multiple producer and single consumer pattern, based on a bounded array ring with sequence numbers
+ *   In steady state, offer() and poll() allocate nothing, producers only retry with CAS and never park, so it works for both platform thread and virtual thread
+ *   When the ring is full, elements would be spilled into a lock protected overflow list, so offer() would never block or fail, the order of elements from the same producer is preserved
+ *   Only the consumer thread could call poll() and isEmpty()
+ */
+public final class MpscQueue<T> {
+    private static final VarHandle tailHandle;
+    private static final VarHandle headHandle;
+    private static final VarHandle overflowingHandle;
+    private static final VarHandle sequenceHandle = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle elementHandle = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try{
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            tailHandle = lookup.findVarHandle(MpscQueue.class, "tail", long.class);
+            headHandle = lookup.findVarHandle(MpscQueue.class, "head", long.class);
+            overflowingHandle = lookup.findVarHandle(MpscQueue.class, "overflowing", boolean.class);
+        }catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] elements;
+    private final long[] sequences;
+    private final int mask;
+    private final Lock lock = new ReentrantLock();
+    /**
+     *   Overflow list, guarded by lock
+     */
+    private List<T> overflow = new ArrayList<>();
+    /**
+     *   Elements spilled from overflow list, only accessed by the consumer
+     */
+    private final ArrayDeque<T> spilled = new ArrayDeque<>();
+    @SuppressWarnings("unused")
+    private volatile long tail;
+    @SuppressWarnings("unused")
+    private volatile boolean overflowing;
+    /**
+     *   Consumer index, only modified by the consumer, published with opaque access for size()
+     */
+    private long head;
+
+    /**
+     *   Capacity would be rounded up to the power of two
+     */
+    public MpscQueue(int capacity) {
+        if(capacity <= 0 || capacity > (1 << 30)) {
+            throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new long[size];
+        for(int i = 0; i < size; i++) {
+            sequences[i] = i;
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     *   Submit an element to current queue, this method could be invoked from any thread
+     */
+    public void offer(T element) {
+        Objects.requireNonNull(element);
+        if(!((boolean) overflowingHandle.getVolatile(this)) && offerRing(element)) {
+            return ;
+        }
+        lock.lock();
+        try{
+            overflow.add(element);
+            overflowingHandle.setVolatile(this, true);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean offerRing(T element) {
+        for( ; ; ) {
+            long pos = (long) tailHandle.getVolatile(this);
+            int index = (int) (pos & mask);
+            long diff = (long) sequenceHandle.getVolatile(sequences, index) - pos;
+            if(diff == 0L) {
+                if(tailHandle.compareAndSet(this, pos, pos + 1)) {
+                    elementHandle.set(elements, index, element);
+                    sequenceHandle.setVolatile(sequences, index, pos + 1);
+                    return true;
+                }
+            }else if(diff < 0L) {
+                // ring is full
+                return false;
+            }else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     *   Poll an element from current queue, return null if there is no element available, only the consumer thread could call this method
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if(!spilled.isEmpty()) {
+            return spilled.pollFirst();
+        }
+        int index = (int) (head & mask);
+        if((long) sequenceHandle.getVolatile(sequences, index) == head + 1) {
+            T element = (T) elementHandle.get(elements, index);
+            elementHandle.set(elements, index, null);
+            sequenceHandle.setVolatile(sequences, index, head + mask + 1);
+            headHandle.setOpaque(this, head + 1);
+            return element;
+        }
+        if((boolean) overflowingHandle.getVolatile(this)) {
+            // elements in the ring are always older than the overflow ones, so overflow list could only be spilled when the ring is drained
+            lock.lock();
+            try{
+                spilled.addAll(overflow);
+                overflow = new ArrayList<>();
+                overflowingHandle.setVolatile(this, false);
+            }finally {
+                lock.unlock();
+            }
+            return spilled.pollFirst();
+        }
+        return null;
+    }
+
+    /**
+     *   Return an estimation of elements in current queue, this method could be invoked from any thread, elements spilled into the overflow list are not included
+     */
+    public long size() {
+        long h = (long) headHandle.getOpaque(this);
+        return Math.max((long) tailHandle.getVolatile(this) - h, 0L);
+    }
+
+    /**
+     *   Return if current queue is empty, elements that are being published would be considered as existing, only the consumer thread could call this method
+     */
+    public boolean isEmpty() {
+        return spilled.isEmpty() && (long) tailHandle.getVolatile(this) == head && !((boolean) overflowingHandle.getVolatile(this));
+    }
+}
@@ -12,8 +12,15 @@ import java.util.concurrent.locks.LockSupport;
  *   Mut is a dedicated Mutex for state manipulation between exactly two threads, comparing to ReentrantLock, this implementation has completely no allocation
  */
 public final class Mutex {
-    private final Thread pT;
+    /**
+     *   Poller thread could be transferred when the channel was migrated to another poller
+     */
+    private volatile Thread pT;
     private final Thread wT;
+    /**
+     *   When poller and writer are the same thread, there is no contention at all, so the state could be accessed with plain read and write
+     */
+    private final boolean merged;
     @SuppressWarnings("FieldMayBeFinal")
     private volatile int state;
     private static final VarHandle stateHandle;
@@ -54,6 +61,22 @@ public final class Mutex {
         }
     }
 
+    private int getPlainState() {
+        try{
+            return (int) stateHandle.get(this);
+        } catch (Throwable e) {
+            throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED, e);
+        }
+    }
+
+    private void setPlainState(int newValue) {
+        try{
+            stateHandle.set(this, newValue);
+        } catch (Throwable e) {
+            throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED, e);
+        }
+    }
+
     private boolean casState(int expectedValue, int newValue) {
         try{
             return stateHandle.compareAndSet(this, expectedValue, newValue);
@@ -68,12 +91,28 @@ public final class Mutex {
         }
         this.pT = pT;
         this.wT = wT;
+        this.merged = pT == wT;
         this.state = state;
     }
 
+    /**
+     *   Transfer the poller side to another thread, must be invoked by current poller thread without holding the lock
+     *   The new poller thread must not access the mutex until this method returns, and it's not allowed when poller and writer are the same thread
+     */
+    public void transferPoller(Thread thread) {
+        checkCallerThread(pT);
+        if(merged || thread == wT) {
+            throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED);
+        }
+        pT = thread;
+    }
+
     @SuppressWarnings("Duplicates")
     public int pLock() {
         checkCallerThread(pT);
+        if(merged) {
+            return getPlainState();
+        }
         for(int i = 0 ; ; ) {
             int current = getVolatileState();
             switch (current) {
@@ -99,6 +138,10 @@ public final class Mutex {
     @SuppressWarnings("Duplicates")
     public void pUnlock(int nextValue) {
         checkCallerThread(pT);
+        if(merged) {
+            setPlainState(nextValue);
+            return ;
+        }
         for( ; ; ) {
             int current = getVolatileState();
             switch (current) {
@@ -121,6 +164,9 @@ public final class Mutex {
     @SuppressWarnings("Duplicates")
     public int wLock() {
         checkCallerThread(wT);
+        if(merged) {
+            return getPlainState();
+        }
         for(int i = 0 ; ; ) {
             int current = getVolatileState();
             switch (current) {
@@ -146,6 +192,10 @@ public final class Mutex {
     @SuppressWarnings("Duplicates")
     public void wUnlock(int nextValue) {
         checkCallerThread(wT);
+        if(merged) {
+            setPlainState(nextValue);
+            return ;
+        }
         for( ; ; ) {
             int current = getVolatileState();
             switch (current) {
@@ -0,0 +1,95 @@
+package cn.zorcc.common.structure;
+
+import cn.zorcc.common.Constants;
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.exception.FrameworkException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ *   ObjectPool is a bounded lock-free pool for recycling objects from a single owner thread to multiple acquiring threads, based on a bounded array ring with sequence numbers
+ *   acquire() returns null when the pool is empty, release() drops the element when the pool is full, so neither of them would block or allocate
+ *   Only the owner thread could call release()
+ */
+public final class ObjectPool<T> {
+    private static final VarHandle headHandle;
+    private static final VarHandle sequenceHandle = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle elementHandle = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try{
+            headHandle = MethodHandles.lookup().findVarHandle(ObjectPool.class, "head", long.class);
+        }catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] elements;
+    private final long[] sequences;
+    private final int mask;
+    @SuppressWarnings("unused")
+    private volatile long head;
+    /**
+     *   Releasing index, only modified by the owner thread
+     */
+    private long tail;
+
+    /**
+     *   Capacity would be rounded up to the power of two
+     */
+    public ObjectPool(int capacity) {
+        if(capacity <= 0 || capacity > (1 << 30)) {
+            throw new FrameworkException(ExceptionType.CONTEXT, Constants.UNREACHED);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new long[size];
+        for(int i = 0; i < size; i++) {
+            sequences[i] = i;
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     *   Take an element from current pool, return null if the pool is empty, this method could be invoked from any thread
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        for( ; ; ) {
+            long pos = (long) headHandle.getVolatile(this);
+            int index = (int) (pos & mask);
+            long diff = (long) sequenceHandle.getVolatile(sequences, index) - (pos + 1);
+            if(diff == 0L) {
+                if(headHandle.compareAndSet(this, pos, pos + 1)) {
+                    T element = (T) elementHandle.get(elements, index);
+                    elementHandle.set(elements, index, null);
+                    sequenceHandle.setVolatile(sequences, index, pos + mask + 1);
+                    return element;
+                }
+            }else if(diff < 0L) {
+                return null;
+            }else {
+                // another thread has taken current slot, retry with the new head
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     *   Return an element to current pool, return false if it's dropped because the pool is full, only the owner thread could invoke this method
+     */
+    public boolean release(T element) {
+        Objects.requireNonNull(element);
+        int index = (int) (tail & mask);
+        if((long) sequenceHandle.getVolatile(sequences, index) != tail) {
+            // the slot is still occupied or being acquired
+            return false;
+        }
+        elementHandle.set(elements, index, element);
+        sequenceHandle.setVolatile(sequences, index, tail + 1);
+        tail = tail + 1;
+        return true;
+    }
+}
@@ -16,20 +16,228 @@ import java.util.List;
 
 /**
  *   Direct memory ReadBuffer, not thread-safe, ReadBuffer is read-only, shouldn't be modified directly
+ *   ReadBuffer could also be composed of multiple chunks, the readIndex is always a logical index across all the chunks
+ *   Values spanning two chunks would be copied into a temporary heap segment, otherwise reading from a composite ReadBuffer is the same as a single one
+ *   Segments returned by readSegment() and swarReadUntil() are always native, those spanning multiple chunks would be copied into native memory owned by the composite ReadBuffer, which would be freed by release()
  *   TODO There could be some vectorized-version searching algorithm implemented by using ByteVector, after Vector-API got finalized
  */
 public final class ReadBuffer {
-
-    private final MemorySegment segment;
-    private final long size;
+    /**
+     *   Chunks and their logical start index, null if current ReadBuffer only contains a single segment
+     */
+    private final MemorySegment[] chunks;
+    private final long[] offsets;
+    /**
+     *   Native copies of returned segments spanning multiple chunks, lazily created, only used by composite ReadBuffer
+     */
+    private final MemApi memApi;
+    private List<MemorySegment> copies;
+    private long size;
+    /**
+     *   Current chunk, with its logical start index and end index
+     */
+    private MemorySegment segment;
+    private long base;
+    private long limit;
+    private int chunkIndex;
     private long readIndex;
 
     public ReadBuffer(MemorySegment segment) {
+        this.chunks = null;
+        this.offsets = null;
+        this.memApi = null;
         this.segment = segment;
         this.size = segment.byteSize();
+        this.base = 0L;
+        this.limit = size;
+        this.readIndex = 0L;
+    }
+
+    private ReadBuffer(MemApi memApi, MemorySegment[] chunks, long[] offsets, long size) {
+        this.chunks = chunks;
+        this.offsets = offsets;
+        this.memApi = memApi;
+        this.segment = chunks[0];
+        this.size = size;
+        this.base = 0L;
+        this.limit = segment.byteSize();
+        this.readIndex = 0L;
+    }
+
+    /**
+     *   Reuse current ReadBuffer for the first size bytes of another segment, so that the poller wouldn't allocate a new ReadBuffer for each read
+     *   Only single segment ReadBuffer could be reset, the segment wouldn't be sliced, bytes after size are not readable
+     */
+    public void reset(MemorySegment segment, long size) {
+        if(chunks != null || size < 0L || size > segment.byteSize()) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED);
+        }
+        this.segment = segment;
+        this.size = size;
+        this.limit = size;
         this.readIndex = 0L;
     }
 
+    /**
+     *   Create a ReadBuffer reading across multiple chunks without flattening them, empty chunks would be skipped
+     */
+    public static ReadBuffer composite(MemorySegment... segments) {
+        return composite(MemApi.DEFAULT, segments);
+    }
+
+    /**
+     *   Create a composite ReadBuffer, native copies of returned segments spanning multiple chunks would be allocated by memApi
+     */
+    public static ReadBuffer composite(MemApi memApi, MemorySegment... segments) {
+        int count = 0;
+        for (MemorySegment s : segments) {
+            if(s.byteSize() > 0L) {
+                count++;
+            }
+        }
+        if(count <= 1) {
+            for (MemorySegment s : segments) {
+                if(s.byteSize() > 0L) {
+                    return new ReadBuffer(s);
+                }
+            }
+            return new ReadBuffer(MemorySegment.NULL);
+        }
+        MemorySegment[] chunks = new MemorySegment[count];
+        long[] offsets = new long[count];
+        long size = 0L;
+        int index = 0;
+        for (MemorySegment s : segments) {
+            if(s.byteSize() > 0L) {
+                chunks[index] = s;
+                offsets[index] = size;
+                size += s.byteSize();
+                index++;
+            }
+        }
+        return new ReadBuffer(memApi, chunks, offsets, size);
+    }
+
+    /**
+     *   Free the native copies made by current ReadBuffer, segments returned by readSegment() and swarReadUntil() are no longer accessible after that
+     *   Only composite ReadBuffer would make copies, the caller creating it should release it once decoding finished
+     */
+    public void release() {
+        if(copies != null) {
+            for (MemorySegment copy : copies) {
+                memApi.freeMemory(copy);
+            }
+            copies = null;
+        }
+    }
+
+    /**
+     *   Switch current chunk to the one containing target index, the last chunk would be used if index equals size
+     */
+    private void seek(long index) {
+        if(chunks == null || (index >= base && index < limit)) {
+            return ;
+        }
+        int i = chunkIndex;
+        while (i > 0 && index < offsets[i]) {
+            i--;
+        }
+        while (i < chunks.length - 1 && index >= offsets[i + 1]) {
+            i++;
+        }
+        chunkIndex = i;
+        segment = chunks[i];
+        base = offsets[i];
+        limit = base + segment.byteSize();
+    }
+
+    /**
+     *   Return count bytes starting from index as a single segment, bytes spanning multiple chunks would be copied into a heap segment
+     *   Only used for values consumed internally, segments returned to the caller should use nativeSlice()
+     */
+    private MemorySegment slice(long index, long count) {
+        if(index < 0L || count < 0L || index + count > size) {
+            throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
+        }
+        seek(index);
+        if(index + count <= limit) {
+            return segment.asSlice(index - base, count);
+        }
+        return copySpanning(index, count, MemorySegment.ofArray(new byte[Math.toIntExact(count)]));
+    }
+
+    /**
+     *   Return count bytes starting from index as a single native segment, bytes spanning multiple chunks would be copied into native memory freed by release()
+     */
+    private MemorySegment nativeSlice(long index, long count) {
+        if(index < 0L || count < 0L || index + count > size) {
+            throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
+        }
+        seek(index);
+        if(index + count <= limit) {
+            return segment.asSlice(index - base, count);
+        }
+        MemorySegment copy = memApi.allocateMemory(count).reinterpret(count);
+        if(NativeUtil.checkNullPointer(copy)) {
+            throw new OutOfMemoryError();
+        }
+        if(copies == null) {
+            copies = new ArrayList<>();
+        }
+        copies.add(copy);
+        return copySpanning(index, count, copy);
+    }
+
+    /**
+     *   Copy count bytes starting from index across the chunks into result, current chunk must contain index
+     */
+    private MemorySegment copySpanning(long index, long count, MemorySegment result) {
+        long copied = 0L;
+        for(int i = chunkIndex; copied < count; i++) {
+            MemorySegment chunk = chunks[i];
+            long start = Math.max(index + copied - offsets[i], 0L);
+            long len = Math.min(chunk.byteSize() - start, count - copied);
+            MemorySegment.copy(chunk, start, result, copied, len);
+            copied += len;
+        }
+        return result;
+    }
+
+    /**
+     *   Search target byte across all the chunks from startIndex, return its logical index, or -1 if not found
+     */
+    private long compositeSearch(long startIndex, long pattern, byte target, ByteOrder byteOrder) {
+        if(startIndex >= size) {
+            return -1L;
+        }
+        seek(startIndex);
+        for(int i = chunkIndex; i < chunks.length; i++) {
+            MemorySegment chunk = chunks[i];
+            long r = swarSearchWithByteOrder(chunk, Math.max(startIndex - offsets[i], 0L), chunk.byteSize(), pattern, target, byteOrder);
+            if(r >= 0L) {
+                return offsets[i] + r;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     *   Search target byte1 and byte2 across all the chunks from startIndex, return the logical index of byte1, or -1 if not found
+     */
+    private long compositeSearch(long startIndex, long pattern, byte target1, byte target2, ByteOrder byteOrder) {
+        long s = startIndex;
+        for( ; ; ) {
+            long index = compositeSearch(s, pattern, target1, byteOrder);
+            if(index < 0L) {
+                return -1L;
+            }else if(index < size - 1 && NativeUtil.getByte(slice(index + 1, Constants.BYTE_SIZE), 0L) == target2) {
+                return index;
+            }else {
+                s = index + 1;
+            }
+        }
+    }
+
     public long currentIndex() {
         return readIndex;
     }
@@ -54,20 +262,20 @@ public final class ReadBuffer {
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        byte b = NativeUtil.getByte(segment, readIndex);
+        byte b = readIndex >= base && nextIndex <= limit ? NativeUtil.getByte(segment, readIndex - base) : NativeUtil.getByte(slice(readIndex, Constants.BYTE_SIZE), 0L);
         readIndex = nextIndex;
         return b;
     }
 
     /**
-     *   The returned segment would have the same scope as current ReadBuffer
+     *   The returned segment would have the same scope as current ReadBuffer, unless it spans multiple chunks, then it would be a native copy valid until release()
      */
     public MemorySegment readSegment(long count) {
         long nextIndex = readIndex + count * Constants.BYTE_SIZE;
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        MemorySegment result = segment.asSlice(readIndex, count);
+        MemorySegment result = chunks == null ? segment.asSlice(readIndex, count) : nativeSlice(readIndex, count);
         readIndex = nextIndex;
         return result;
     }
@@ -88,8 +296,17 @@ public final class ReadBuffer {
         }
     }
 
+    /**
+     *   Bytes spanning multiple chunks would be copied to the array directly, no native copy would be made
+     */
     public byte[] readBytes(long count) {
-        return readSegment(count).toArray(ValueLayout.JAVA_BYTE);
+        long nextIndex = readIndex + count * Constants.BYTE_SIZE;
+        if(nextIndex > size) {
+            throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
+        }
+        byte[] result = (chunks == null ? segment.asSlice(readIndex, count) : slice(readIndex, count)).toArray(ValueLayout.JAVA_BYTE);
+        readIndex = nextIndex;
+        return result;
     }
 
     public short readShort() {
@@ -97,7 +314,7 @@ public final class ReadBuffer {
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        short s = NativeUtil.getShort(segment, readIndex);
+        short s = readIndex >= base && nextIndex <= limit ? NativeUtil.getShort(segment, readIndex - base) : NativeUtil.getShort(slice(readIndex, Constants.SHORT_SIZE), 0L);
         readIndex = nextIndex;
         return s;
     }
@@ -107,7 +324,7 @@ public final class ReadBuffer {
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        int i = NativeUtil.getInt(segment, readIndex);
+        int i = readIndex >= base && nextIndex <= limit ? NativeUtil.getInt(segment, readIndex - base) : NativeUtil.getInt(slice(readIndex, Constants.INT_SIZE), 0L);
         readIndex = nextIndex;
         return i;
     }
@@ -117,7 +334,7 @@ public final class ReadBuffer {
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        long l = NativeUtil.getLong(segment, readIndex);
+        long l = readIndex >= base && nextIndex <= limit ? NativeUtil.getLong(segment, readIndex - base) : NativeUtil.getLong(slice(readIndex, Constants.LONG_SIZE), 0L);
         readIndex = nextIndex;
         return l;
     }
@@ -127,7 +344,7 @@ public final class ReadBuffer {
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        float f = NativeUtil.getFloat(segment, readIndex);
+        float f = readIndex >= base && nextIndex <= limit ? NativeUtil.getFloat(segment, readIndex - base) : NativeUtil.getFloat(slice(readIndex, Constants.FLOAT_SIZE), 0L);
         readIndex = nextIndex;
         return f;
     }
@@ -137,7 +354,7 @@ public final class ReadBuffer {
         if(nextIndex > size) {
             throw new FrameworkException(ExceptionType.NATIVE, "read index overflow");
         }
-        double d = NativeUtil.getDouble(segment, readIndex);
+        double d = readIndex >= base && nextIndex <= limit ? NativeUtil.getDouble(segment, readIndex - base) : NativeUtil.getDouble(slice(readIndex, Constants.DOUBLE_SIZE), 0L);
         readIndex = nextIndex;
         return d;
     }
@@ -146,7 +363,7 @@ public final class ReadBuffer {
      *   Shift current readIndex to the searchIndex with offset, return the searched bytes
      */
     private MemorySegment shiftData(long searchIndex, long shift) {
-        MemorySegment result = searchIndex == readIndex ? MemorySegment.NULL : segment.asSlice(readIndex, searchIndex - readIndex);
+        MemorySegment result = searchIndex == readIndex ? MemorySegment.NULL : chunks == null ? segment.asSlice(readIndex, searchIndex - readIndex) : nativeSlice(readIndex, searchIndex - readIndex);
         readIndex = searchIndex + shift;
         return result;
     }
@@ -199,7 +416,7 @@ public final class ReadBuffer {
      *   Linear search target sep in current readBuffer
      */
     public MemorySegment readUntil(byte sep) {
-        long searchIndex = linearSearch(segment, readIndex, size, sep);
+        long searchIndex = chunks == null ? linearSearch(segment, readIndex, size, sep) : compositeSearch(readIndex, compilePattern(sep), sep, ByteOrder.nativeOrder());
         return searchIndex < 0 ? null : shiftData(searchIndex, 1L);
     }
 
@@ -221,7 +438,7 @@ public final class ReadBuffer {
      *   Linear search target firstSep and secondSep in current readBuffer
      */
     public MemorySegment readUntil(byte firstSep, byte secondSep) {
-        long searchIndex = linearSearch(segment, readIndex, size, firstSep, secondSep);
+        long searchIndex = chunks == null ? linearSearch(segment, readIndex, size, firstSep, secondSep) : compositeSearch(readIndex, compilePattern(firstSep), firstSep, secondSep, ByteOrder.nativeOrder());
         return searchIndex < 0 ? null : shiftData(searchIndex, 2L);
     }
 
@@ -286,7 +503,7 @@ public final class ReadBuffer {
      *   Find target sep using SIMD inside a register algorithm, return null if not found
      */
     public MemorySegment swarReadUntil(long pattern, byte sep, ByteOrder byteOrder) {
-        long searchIndex = swarSearchWithByteOrder(segment, readIndex, size, pattern, sep, byteOrder);
+        long searchIndex = chunks == null ? swarSearchWithByteOrder(segment, readIndex, size, pattern, sep, byteOrder) : compositeSearch(readIndex, pattern, sep, byteOrder);
         return searchIndex < 0L ? null : shiftData(searchIndex, 1L);
     }
 
@@ -298,7 +515,7 @@ public final class ReadBuffer {
      *   Find target firstSep and secondSep using SIMD inside a register algorithm, return null if not found
      */
     public MemorySegment swarReadUntil(long pattern, byte firstSep, byte secondSep, ByteOrder byteOrder) {
-        long searchIndex = swarSearchWithByteOrder(segment, readIndex, size, pattern, firstSep, secondSep, byteOrder);
+        long searchIndex = chunks == null ? swarSearchWithByteOrder(segment, readIndex, size, pattern, firstSep, secondSep, byteOrder) : compositeSearch(readIndex, pattern, firstSep, secondSep, byteOrder);
         return searchIndex < 0L ? null : shiftData(searchIndex, 2L);
     }
 
@@ -310,6 +527,15 @@ public final class ReadBuffer {
      *   Read a C style UTF-8 string from the current readBuffer
      */
     public String readStr(Charset charset) {
+        if(chunks != null) {
+            long searchIndex = compositeSearch(readIndex, 0L, Constants.NUT, ByteOrder.nativeOrder());
+            if(searchIndex < 0L) {
+                return null;
+            }
+            byte[] bytes = slice(readIndex, searchIndex - readIndex).toArray(ValueLayout.JAVA_BYTE);
+            readIndex = searchIndex + 1;
+            return new String(bytes, charset);
+        }
         long available = size - readIndex;
         long r = SystemBinding.strlen(segment.asSlice(readIndex, available), available);
         if(r == available) {
@@ -350,11 +576,12 @@ public final class ReadBuffer {
      *   TODO this is a helper method to avoid loading incubator module for vector API, and could be removed when vector api become preview
      */
     public ReadBufferSnapshot snapshot() {
-        return new ReadBufferSnapshot(segment.asReadOnly(), readIndex);
+        return new ReadBufferSnapshot(chunks == null && size == segment.byteSize() ? segment.asReadOnly() : slice(0L, size).asReadOnly(), readIndex);
     }
 
     @Override
     public String toString() {
-        return new String(segment.toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+        MemorySegment m = chunks == null && size == segment.byteSize() ? segment : slice(0L, size);
+        return new String(m.toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
     }
 }
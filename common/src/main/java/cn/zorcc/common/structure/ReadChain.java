@@ -0,0 +1,113 @@
+package cn.zorcc.common.structure;
+
+import cn.zorcc.common.Constants;
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.exception.FrameworkException;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *   ReadChain stores unconsumed bytes in a chain of pooled chunks, not thread-safe
+ *   Appending would only copy the new data once, and consumed chunks would be released back to the pool, so a large frame spanning many reads wouldn't be reallocated and copied repeatedly
+ */
+public final class ReadChain implements AutoCloseable {
+    private final ChunkPool pool;
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    /**
+     *   Start index of valid data in the first chunk, and end index of valid data in the last chunk
+     */
+    private long headIndex = 0L;
+    private long tailIndex = 0L;
+    private long size = 0L;
+
+    public ReadChain(ChunkPool pool) {
+        this.pool = pool;
+        pool.register(this);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0L;
+    }
+
+    /**
+     *   Copy data to the end of current chain
+     */
+    public void append(MemorySegment data) {
+        long chunkSize = pool.chunkSize();
+        long len = data.byteSize();
+        long copied = 0L;
+        while (copied < len) {
+            if(chunks.isEmpty() || tailIndex == chunkSize) {
+                chunks.add(pool.acquire());
+                tailIndex = 0L;
+            }
+            long n = Math.min(chunkSize - tailIndex, len - copied);
+            MemorySegment.copy(data, copied, chunks.getLast(), tailIndex, n);
+            tailIndex += n;
+            copied += n;
+        }
+        size += len;
+    }
+
+    /**
+     *   Discard count bytes from the start of current chain, chunks fully consumed would be released
+     */
+    public void consume(long count) {
+        if(count < 0L || count > size) {
+            throw new FrameworkException(ExceptionType.NATIVE, Constants.UNREACHED);
+        }
+        long chunkSize = pool.chunkSize();
+        long remaining = count;
+        while (remaining > 0L) {
+            long end = chunks.size() == 1 ? tailIndex : chunkSize;
+            long n = Math.min(end - headIndex, remaining);
+            headIndex += n;
+            remaining -= n;
+            if(headIndex == end) {
+                pool.release(chunks.removeFirst());
+                headIndex = 0L;
+                if(chunks.isEmpty()) {
+                    tailIndex = 0L;
+                }
+            }
+        }
+        size -= count;
+    }
+
+    /**
+     *   Create a composite ReadBuffer over current chain followed by the extra segment, nothing would be copied
+     *   The returned ReadBuffer should be released after decoding, since segments spanning multiple chunks would be copied into native memory allocated from the pool's MemApi
+     */
+    public ReadBuffer asReadBuffer(MemorySegment extra) {
+        int count = chunks.size();
+        MemorySegment[] segments = new MemorySegment[count + 1];
+        for(int i = 0; i < count; i++) {
+            long start = i == 0 ? headIndex : 0L;
+            long end = i == count - 1 ? tailIndex : pool.chunkSize();
+            segments[i] = chunks.get(i).asSlice(start, end - start);
+        }
+        segments[count] = extra;
+        return ReadBuffer.composite(pool.memApi(), segments);
+    }
+
+    /**
+     *   Release all the chunks back to the pool, current chain is no longer tracked by the pool after closing
+     */
+    @Override
+    public void close() {
+        pool.unregister(this);
+        for (MemorySegment chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        headIndex = 0L;
+        tailIndex = 0L;
+        size = 0L;
+    }
+}
@@ -0,0 +1,191 @@
+package cn.zorcc.common.structure;
+
+import cn.zorcc.common.ExceptionType;
+import cn.zorcc.common.exception.FrameworkException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *   TimerWheel is a hashed timer wheel owned by a single thread, there is no synchronization, all the methods must be invoked from the owner thread
+ *   Timers are stored in doubly linked buckets, so scheduling and cancelling are both O(1), timers with a delay longer than a round would stay in their bucket until their tick comes
+ *   The owner thread drives the wheel by calling advance(), normally after each mux wait, and could use nextDelay() to limit its blocking time
+ */
+public final class TimerWheel {
+    private final Timer[] buckets;
+    /**
+     *   Lower bound of the deadlines in each bucket, lowered when scheduling, and recomputed when the bucket was walked by advance()
+     */
+    private final long[] bucketDeadlines;
+    private final int mask;
+    private final long tickNanos;
+    private final long startNanos;
+    /**
+     *   Expired timers collected in current advance(), reused for each call
+     */
+    private final List<Timer> expired = new ArrayList<>();
+    /**
+     *   The last tick that has been processed
+     */
+    private long currentTick = 0L;
+    /**
+     *   Lower bound of all the pending deadlines, cancelled timers might keep it earlier than the actual one until it has been passed by advance()
+     */
+    private long earliestDeadline = Long.MAX_VALUE;
+    private int size = 0;
+
+    public TimerWheel(int slots, long tickNanos, long startNanos) {
+        if(slots <= 0 || Integer.bitCount(slots) != 1) {
+            throw new FrameworkException(ExceptionType.WHEEL, "Slots must be power of two");
+        }
+        if(tickNanos <= 0L) {
+            throw new FrameworkException(ExceptionType.WHEEL, "Tick must be positive");
+        }
+        this.buckets = new Timer[slots];
+        this.bucketDeadlines = new long[slots];
+        Arrays.fill(bucketDeadlines, Long.MAX_VALUE);
+        this.mask = slots - 1;
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     *   Timer represents a scheduled task, it could be cancelled before it's fired
+     */
+    public static final class Timer {
+        private final TimerWheel wheel;
+        private final long deadline;
+        private final Runnable task;
+        private Timer prev;
+        private Timer next;
+        private boolean scheduled = true;
+
+        private Timer(TimerWheel wheel, long deadline, Runnable task) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         *   Cancel current timer, it's safe to cancel a timer multiple times or after it has been fired
+         */
+        public void cancel() {
+            if(scheduled) {
+                scheduled = false;
+                wheel.unlink(this);
+            }
+        }
+    }
+
+    /**
+     *   Schedule a task to be executed after delay, the task would be fired in the first advance() after its deadline
+     */
+    public Timer schedule(Runnable task, long delayNanos, long nowNanos) {
+        if(task == null || delayNanos < 0L) {
+            throw new FrameworkException(ExceptionType.WHEEL, "Invalid timer");
+        }
+        long deadline = Math.max(Math.ceilDiv(nowNanos + delayNanos - startNanos, tickNanos), currentTick + 1);
+        Timer timer = new Timer(this, deadline, task);
+        int index = (int) (deadline & mask);
+        Timer head = buckets[index];
+        if(head != null) {
+            head.prev = timer;
+            timer.next = head;
+        }
+        buckets[index] = timer;
+        bucketDeadlines[index] = Math.min(bucketDeadlines[index], deadline);
+        earliestDeadline = Math.min(earliestDeadline, deadline);
+        size++;
+        return timer;
+    }
+
+    private void unlink(Timer timer) {
+        if(timer.prev == null) {
+            int index = (int) (timer.deadline & mask);
+            if(buckets[index] == timer) {
+                buckets[index] = timer.next;
+            }else {
+                // already detached from its bucket in advance()
+                return ;
+            }
+        }else {
+            timer.prev.next = timer.next;
+        }
+        if(timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        size--;
+    }
+
+    /**
+     *   Fire all the timers whose deadline has been reached, return the number of fired timers
+     *   Tasks could schedule or cancel other timers, timers scheduled by the tasks would never be fired in the same call
+     */
+    public int advance(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        if(targetTick <= currentTick) {
+            return 0;
+        }
+        long steps = Math.min(targetTick - currentTick, buckets.length);
+        for(long i = 1; i <= steps; i++) {
+            int index = (int) ((currentTick + i) & mask);
+            Timer timer = buckets[index];
+            long bucketDeadline = Long.MAX_VALUE;
+            while (timer != null) {
+                Timer next = timer.next;
+                if(timer.deadline <= targetTick) {
+                    unlink(timer);
+                    expired.add(timer);
+                }else {
+                    bucketDeadline = Math.min(bucketDeadline, timer.deadline);
+                }
+                timer = next;
+            }
+            bucketDeadlines[index] = bucketDeadline;
+        }
+        currentTick = targetTick;
+        if(earliestDeadline <= targetTick) {
+            // only the bucket bounds were scanned, the timer chains were already walked above
+            long earliest = Long.MAX_VALUE;
+            for (long bucketDeadline : bucketDeadlines) {
+                earliest = Math.min(earliest, bucketDeadline);
+            }
+            earliestDeadline = earliest;
+        }
+        if(expired.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (Timer timer : expired) {
+            // a timer might be cancelled by the tasks fired before it
+            if(timer.scheduled) {
+                timer.scheduled = false;
+                timer.task.run();
+                count++;
+            }
+        }
+        expired.clear();
+        return count;
+    }
+
+    /**
+     *   Return the nanos until the earliest pending timer's deadline, or -1 if there is none, it's O(1) so it could be invoked before each mux wait
+     *   If the earliest timer was cancelled, the returned delay could be shorter than the actual one until the cancelled deadline has been passed, but it would never be longer
+     */
+    public long nextDelay(long nowNanos) {
+        if(size == 0) {
+            return -1L;
+        }
+        return Math.max(earliestDeadline * tickNanos + startNanos - nowNanos, 0L);
+    }
+
+    /**
+     *   Return current pending timers count
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -165,6 +165,17 @@ public final class WriteBuffer implements AutoCloseable {
         writeIndex = nextIndex;
     }
 
+    /**
+     *   Reserve count bytes at current writeIndex and return them, so that the caller could fill the data directly without an extra copy
+     */
+    public MemorySegment reserve(long count) {
+        long nextIndex = writeIndex + count;
+        resize(nextIndex);
+        MemorySegment result = segment.asSlice(writeIndex, count);
+        writeIndex = nextIndex;
+        return result;
+    }
+
     public void writeSegmentWithPadding(MemorySegment memorySegment, long minWidth, byte padding) {
         long len = memorySegment.byteSize();
         if(minWidth <= len) {
@@ -258,6 +269,21 @@ public final class WriteBuffer implements AutoCloseable {
         return trucatedWriteBuffer;
     }
 
+    /**
+     *   Transfer the memory grown out of the reserved segment to a new WriteBuffer, which would free it when closed
+     *   Current WriteBuffer would be reset to its reserved segment, so it could be reused for next msg
+     */
+    public WriteBuffer detach() {
+        if(!(policy instanceof ReservedWriteBufferPolicy reservedPolicy) || segment.address() == reservedPolicy.initialSegment().address()) {
+            throw new FrameworkException(ExceptionType.NATIVE, "Only grown reserved buffer could be detached");
+        }
+        WriteBuffer detached = new WriteBuffer(segment, policy);
+        detached.writeIndex = writeIndex;
+        segment = reservedPolicy.initialSegment();
+        writeIndex = 0L;
+        return detached;
+    }
+
     @Override
     public void close() {
         policy.close(this);
@@ -329,6 +355,7 @@ public final class WriteBuffer implements AutoCloseable {
 
     /**
      *   Reserved writeBufferPolicy, the initial memorySegment must be native memory, which would be reserved and never released
+     *   Closing would reset the buffer to the initial memorySegment, so a reserved WriteBuffer could be reused after close
      */
     record ReservedWriteBufferPolicy(
             MemApi memApi,
@@ -356,7 +383,9 @@ public final class WriteBuffer implements AutoCloseable {
             final MemorySegment current = writeBufferData.segment;
             if(current.address() != initialSegment.address()) {
                 memApi.freeMemory(current);
+                writeBufferData.segment = initialSegment;
             }
+            writeBufferData.writeIndex = 0L;
         }
     }
 
@@ -147,6 +147,13 @@ public final class NativeUtil {
         return linker.downcallHandle(methodPointer, functionDescriptor, options);
     }
 
+    /**
+     *   Load an optional function from dynamic library, return null if it's absent, so that an older native library could still be loaded without the features relying on it
+     */
+    public static MethodHandle optionalMethodHandle(SymbolLookup lookup, String methodName, FunctionDescriptor functionDescriptor, Linker.Option... options) {
+        return lookup.find(methodName).map(methodPointer -> linker.downcallHandle(methodPointer, functionDescriptor, options)).orElse(null);
+    }
+
     /**
      *   Due to macro issue, there could be multiple implementations from the dynamic library, then this function could be used
      */
@@ -186,6 +193,13 @@ public final class NativeUtil {
         return Objects.requireNonNull(libraryCache.computeIfAbsent(identifier, i -> SymbolLookup.libraryLookup(getDynamicLibraryPath(i), globalArena)));
     }
 
+    /**
+     *  Create a native function pointer which would invoke target method handle, the pointer is valid until the arena is closed
+     */
+    public static MemorySegment upcallStub(MethodHandle target, FunctionDescriptor functionDescriptor, Arena arena) {
+        return linker.upcallStub(target, functionDescriptor, arena);
+    }
+
     /**
      *  Load function from system library, such as strlen()
      *  Note that for methods from system library, there are no cache, every time a new MethodHandle would be created, and it's totally fine by JVM
@@ -23,11 +23,19 @@ public final class SslUtil {
      */
     private static final int SSL_CTRL_MODE = 33;
     private static final int SSL_CTRL_CLEAR_MODE = 78;
+    /**
+     *   SSL_CTX_sess_set_cache_size is also a macro of SSL_CTX_ctrl
+     */
+    private static final int SSL_CTRL_SET_SESS_CACHE_SIZE = 42;
     /**
      *   Some default SSL_CTX options
      */
     private static final long SSL_OP_DISABLE_TLSEXT_CA_NAMES = 1L << 9;
     private static final long SSL_OP_ENABLE_KTLS = 1 << 3;
+    /**
+     *   BIO_get_ktls_send() is a macro of BIO_ctrl() with this command
+     */
+    private static final int BIO_CTRL_GET_KTLS_SEND = 73;
 
 
     private SslUtil() {
@@ -35,9 +43,17 @@ public final class SslUtil {
     }
 
     /**
-     *   configure CTX for non-blocking socket with several preassigned options
+     *   configure CTX for non-blocking socket with several preassigned options, kernel TLS would be enabled
      */
     public static void configureCtx(MemorySegment ctx) {
+        configureCtx(ctx, true);
+    }
+
+    /**
+     *   configure CTX for non-blocking socket with several preassigned options
+     *   If ktls is true, the negotiated keys would be installed into the kernel after handshake with TCP_ULP "tls", if both the SSL library and the kernel support it
+     */
+    public static void configureCtx(MemorySegment ctx, boolean ktls) {
         // overwriting CTX mode
         if((SslBinding.ctxCtrl(ctx, SSL_CTRL_MODE, Constants.SSL_MODE_ENABLE_PARTIAL_WRITE, MemorySegment.NULL) & Constants.SSL_MODE_ENABLE_PARTIAL_WRITE) == 0) {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
@@ -50,12 +66,29 @@ public final class SslUtil {
         }
         // overwriting CTX options
         long currentOptions = SslBinding.ctxGetOptions(ctx);
-        long newOptions = currentOptions | SSL_OP_DISABLE_TLSEXT_CA_NAMES | SSL_OP_ENABLE_KTLS;
+        // kernel TLS is disabled by default in the SSL library, so it's only needed to be set when required
+        long newOptions = currentOptions | SSL_OP_DISABLE_TLSEXT_CA_NAMES | (ktls ? SSL_OP_ENABLE_KTLS : 0L);
         if(currentOptions != newOptions && SslBinding.ctxSetOptions(ctx, newOptions) != newOptions) {
             throw new FrameworkException(ExceptionType.NETWORK, Constants.UNREACHED);
         }
     }
 
+    /**
+     *   Limit the server-side session cache of CTX, the oldest sessions would be removed when the cache is full
+     */
+    public static void setSessionCacheSize(MemorySegment ctx, int size) {
+        SslBinding.ctxCtrl(ctx, SSL_CTRL_SET_SESS_CACHE_SIZE, size, MemorySegment.NULL);
+    }
+
+    /**
+     *   Return if the encryption of sending has been offloaded to the kernel, which means plaintext could be directly written to the socket, must be invoked after handshake
+     *   For SSL libraries without kernel TLS support, the ctrl command would be ignored, so it's always false
+     */
+    public static boolean isKtlsSendEnabled(MemorySegment ssl) {
+        MemorySegment wbio = SslBinding.sslGetWbio(ssl);
+        return !NativeUtil.checkNullPointer(wbio) && SslBinding.bioCtrl(wbio, BIO_CTRL_GET_KTLS_SEND, 0L, MemorySegment.NULL) > 0L;
+    }
+
     private static String getErrDescription(MemApi memApi) {
         try(Allocator allocator = Allocator.newDirectAllocator(memApi)) {
             MemorySegment buf = allocator.allocate(ERR_STRING_LENGTH);
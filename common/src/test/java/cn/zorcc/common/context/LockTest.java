@@ -81,4 +81,22 @@ public class LockTest {
         Assertions.assertEquals(mutex.getVolatileState(), ROUNDS * 2);
     }
 
+    @Test
+    public void testMerged() throws InterruptedException {
+        AtomicReference<Mutex> ref = new AtomicReference<>();
+        Thread t = Thread.ofPlatform().name("Thread").unstarted(() -> {
+            Mutex mutex = ref.get();
+            for(int i = 0; i < ROUNDS; i++) {
+                int current = mutex.pLock();
+                mutex.pUnlock(current + 1);
+                current = mutex.wLock();
+                mutex.wUnlock(current + 1);
+            }
+        });
+        Mutex mutex = new Mutex(t, t, 0);
+        ref.set(mutex);
+        t.start();
+        t.join();
+        Assertions.assertEquals(mutex.getVolatileState(), ROUNDS * 2);
+    }
 }
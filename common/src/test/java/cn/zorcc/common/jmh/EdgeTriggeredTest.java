@@ -0,0 +1,117 @@
+package cn.zorcc.common.jmh;
+
+import cn.zorcc.common.TestConstants;
+import cn.zorcc.common.network.*;
+import cn.zorcc.common.structure.ReadBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ *   Loopback echo round-trip comparison between level-triggered and edge-triggered poller mux, only works on Linux
+ *   Each param combination runs in its own fork, since there could only be one Net instance in a JVM
+ */
+public class EdgeTriggeredTest extends JmhTest {
+    @Param({"false", "true"})
+    private boolean edgeTriggered;
+    @Param({"64", "4096", "262144"})
+    private int size;
+    private Net net;
+    private Socket client;
+    private OutputStream out;
+    private InputStream in;
+    private byte[] payload;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ListenerConfig listenerConfig = new ListenerConfig();
+        listenerConfig.setEncoderSupplier(() -> (writeBuffer, o) -> writeBuffer.writeBytes((byte[]) o));
+        listenerConfig.setDecoderSupplier(() -> EdgeTriggeredTest::decode);
+        listenerConfig.setHandlerSupplier(EchoHandler::new);
+        listenerConfig.setProvider(Net.tcpProvider());
+        listenerConfig.setLoc(TestConstants.SERVER_IPV4_LOC);
+        NetConfig netConfig = new NetConfig();
+        netConfig.setPollerCount(1);
+        netConfig.setWriterCount(1);
+        netConfig.setEnableEdgeTriggered(edgeTriggered);
+        net = new Net(netConfig);
+        net.serve(listenerConfig);
+        net.init();
+        client = new Socket();
+        client.setTcpNoDelay(true);
+        client.connect(new InetSocketAddress("127.0.0.1", TestConstants.PORT));
+        out = client.getOutputStream();
+        in = client.getInputStream();
+        payload = new byte[size];
+        buffer = new byte[size];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        net.exit();
+    }
+
+    @Benchmark
+    public void testEcho(Blackhole bh) throws IOException {
+        out.write(payload);
+        out.flush();
+        int read = 0;
+        while (read < size) {
+            int r = in.read(buffer, read, size - read);
+            if(r < 0) {
+                throw new IOException("Connection closed");
+            }
+            read += r;
+        }
+        bh.consume(buffer);
+    }
+
+    private static void decode(ReadBuffer readBuffer, List<Object> entityList) {
+        long available = readBuffer.available();
+        if(available > 0L) {
+            entityList.add(readBuffer.readBytes(available));
+        }
+    }
+
+    private static class EchoHandler implements Handler {
+        @Override
+        public void onFailed(Channel channel) {
+
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            channel.sendMsg(data);
+            return Optional.empty();
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        runTest(EdgeTriggeredTest.class);
+    }
+}
@@ -13,9 +13,13 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ *   Keys are dense from zero like socket fds, size simulates the connections held by a poller or writer
+ */
 public class IntMapTest extends JmhTest {
     private static final int LENGTH = 64;
-    @Param({"10", "1000", "100000"})
+    private static final int MAX_SIZE = 100000;
+    @Param({"1000", "10000", "100000"})
     private int size;
     private static final Object t = new Object();
     private static final Map<Integer, Object> m1 = new LinkedHashMap<>(LENGTH, Float.MAX_VALUE);
@@ -23,6 +27,7 @@ public class IntMapTest extends JmhTest {
     private static final IntMap<Object> m3 = IntMap.newTreeMap(LENGTH);
     private static final Map<Integer, Object> m4 = new TreeMap<>(Integer::compareTo);
     private static final Map<IntHolder, Object> m5 = new TreeMap<>(IntHolder::compareTo);
+    private static final IntMap<Object> m6 = IntMap.newArrayMap(LENGTH);
 
     record IntHolder(int value) implements Comparable<IntHolder> {
         @Override
@@ -33,13 +38,14 @@ public class IntMapTest extends JmhTest {
 
     static {
         ThreadLocalRandom random = ThreadLocalRandom.current();
-        for(int i = 0; i < 10000; i++) {
+        for(int i = 0; i < MAX_SIZE; i++) {
             int o = random.nextInt();
             m1.put(i, o);
             m2.put(i, o);
             m3.put(i, o);
             m4.put(i, o);
             m5.put(new IntHolder(i), o);
+            m6.put(i, o);
         }
     }
 
@@ -64,6 +70,13 @@ public class IntMapTest extends JmhTest {
         }
     }
 
+    @Benchmark
+    public void testGetIntArrayMap(Blackhole bh) {
+        for(int i = 0; i < size; i++) {
+            bh.consume(m6.get(i));
+        }
+    }
+
     @Benchmark
     public void testGetTreeMap(Blackhole bh) {
         for(int i = 0; i < size; i++) {
@@ -105,6 +118,15 @@ public class IntMapTest extends JmhTest {
         bh.consume(m);
     }
 
+    @Benchmark
+    public void testPutIntArrayMap(Blackhole bh) {
+        IntMap<Object> m = IntMap.newArrayMap(LENGTH);
+        for(int i = 0; i < size; i++) {
+            m.put(i, t);
+        }
+        bh.consume(m);
+    }
+
     @Benchmark
     public void testPutTreeMap(Blackhole bh) {
         TreeMap<Integer, Object> m = new TreeMap<>();
@@ -0,0 +1,185 @@
+package cn.zorcc.common.jmh;
+
+import cn.zorcc.common.Constants;
+import cn.zorcc.common.network.*;
+import cn.zorcc.common.structure.IntMap;
+import cn.zorcc.common.structure.MemApi;
+import cn.zorcc.common.structure.Mutex;
+import cn.zorcc.common.structure.ReadBuffer;
+import cn.zorcc.common.structure.WriteBuffer;
+import cn.zorcc.common.util.NativeUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ *   Steady-state cost of the poller's event dispatch: reading each ready event, looking up its node and decoding a complete frame
+ *   Real ProtocolPollerNodes were mounted in the same kind of node map as the poller, with a stub protocol pretending a complete frame has been received
+ *   The events array is filled in advance with the epoll_event layout, so it only works on Linux, no syscall would be involved
+ *   Running main() would profile with -prof gc and fail if any param combination allocates per event
+ */
+@OperationsPerInvocation(PollerDispatchTest.EVENTS)
+public class PollerDispatchTest extends JmhTest {
+    static final int EVENTS = 64;
+    private static final int FRAME_SIZE = 64;
+    /**
+     *   Allocation per event should be zero, a tiny threshold is kept for the noise of JMH infrastructure
+     */
+    private static final double ALLOCATION_THRESHOLD = 0.1d;
+    private static final Object ENTITY = new Object();
+    private static final OsNetworkLibrary osNetworkLibrary = OsNetworkLibrary.CURRENT;
+    @Param({"16", "1024", "65536"})
+    private int connections;
+    private MemorySegment events;
+    private MemorySegment reserved;
+    private Poller poller;
+    private long received = 0L;
+    private IntMap<PollerNode> nodeMap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MemoryLayout eventLayout = osNetworkLibrary.eventLayout();
+        long eventsOffset = eventLayout.byteOffset(MemoryLayout.PathElement.groupElement("events"));
+        long fdOffset = eventLayout.byteOffset(MemoryLayout.PathElement.groupElement("data"), MemoryLayout.PathElement.groupElement("fd"));
+        events = NativeUtil.globalArena.allocate(MemoryLayout.sequenceLayout(EVENTS, eventLayout), Long.SIZE);
+        reserved = NativeUtil.globalArena.allocate(ValueLayout.JAVA_BYTE, FRAME_SIZE);
+        NetConfig netConfig = new NetConfig();
+        // the poller thread would never be started, the benchmark thread acts as it
+        poller = Poller.newPoller(netConfig, -1, null);
+        nodeMap = IntMap.newArrayMap(netConfig.getPollerMapSize());
+        SocketConfig socketConfig = new SocketConfig();
+        Loc loc = new Loc(IpType.IPV4, 0);
+        for(int i = 0; i < connections; i++) {
+            Channel channel = Channel.newChannel(new Socket.IntSocket(i), PollerDispatchTest::encode, PollerDispatchTest::decode, new NoopHandler(), poller, null, loc, socketConfig);
+            Mutex mutex = new Mutex(Thread.currentThread(), Thread.currentThread(), Constants.NET_R);
+            nodeMap.put(i, new PollerNode.ProtocolPollerNode(nodeMap, channel, new StubProtocol(), mutex, MemApi.DEFAULT));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < EVENTS; i++) {
+            long base = i * eventLayout.byteSize();
+            NativeUtil.setInt(events, base + eventsOffset, Constants.EPOLL_IN);
+            NativeUtil.setInt(events, base + fdOffset, random.nextInt(connections));
+        }
+    }
+
+    @Benchmark
+    public void testDispatch(Blackhole bh) {
+        for(int index = 0; index < EVENTS; index++) {
+            int socket = osNetworkLibrary.accessSocket(events, index);
+            PollerNode pollerNode = nodeMap.get(socket);
+            if(pollerNode != null && osNetworkLibrary.accessEvent(events, index) == Constants.NET_R) {
+                pollerNode.onReadableEvent(reserved, FRAME_SIZE);
+            }
+        }
+        bh.consume(received);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        osNetworkLibrary.exitMux(poller.mux());
+        if(poller.waker() != null) {
+            osNetworkLibrary.closeWaker(poller.waker());
+        }
+    }
+
+    private static void encode(WriteBuffer writeBuffer, Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    private static void decode(ReadBuffer readBuffer, List<Object> entityList) {
+        while (readBuffer.available() >= Constants.INT_SIZE) {
+            readBuffer.readInt();
+            entityList.add(ENTITY);
+        }
+    }
+
+    /**
+     *   Every read returns a complete frame, the reserved segment is left untouched
+     */
+    private static final class StubProtocol implements Protocol {
+        @Override
+        public long onReadableEvent(MemorySegment reserved, long len) {
+            return len;
+        }
+
+        @Override
+        public long onWritableEvent() {
+            return -Constants.NET_R;
+        }
+
+        @Override
+        public long doWrite(MemorySegment data, long len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long doWritev(MemorySegment[] segments, int count, long len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void doShutdown() {
+
+        }
+
+        @Override
+        public void doClose() {
+
+        }
+    }
+
+    private final class NoopHandler implements Handler {
+        @Override
+        public void onFailed(Channel channel) {
+
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            received++;
+            return Optional.empty();
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PollerDispatchTest.class.getSimpleName())
+                .detectJvmArgs()
+                .addProfiler(GCProfiler.class)
+                .build();
+        for (RunResult runResult : new Runner(options).run()) {
+            Result<?> result = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+            if(result == null || result.getScore() > ALLOCATION_THRESHOLD) {
+                throw new IllegalStateException(STR."Poller dispatch allocates \{result == null ? "unknown" : result.getScore()} bytes per event, params : \{runResult.getParams()}");
+            }
+        }
+    }
+}
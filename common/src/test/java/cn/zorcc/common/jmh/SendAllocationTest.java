@@ -0,0 +1,221 @@
+package cn.zorcc.common.jmh;
+
+import cn.zorcc.common.TestConstants;
+import cn.zorcc.common.network.*;
+import cn.zorcc.common.structure.ReadBuffer;
+import cn.zorcc.common.structure.WriteBuffer;
+import cn.zorcc.common.util.NativeUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *   Allocation per send on a loopback channel, covering sendMsg(), sendMultipleMsg() and sendTaggedMsg(), only works on Linux
+ *   The sender is throttled by the frames received on the server side, so the writer queue never spills into its overflow list
+ *   Running main() would profile with -prof gc, sendMsg() and sendMultipleMsg() would fail if they allocate per send, sendTaggedMsg() is only reported by the gc.alloc.rate.norm result of JMH
+ *   since each tagged request still needs its own Ref, registration and timeout timer
+ */
+public class SendAllocationTest extends JmhTest {
+    private static final int FRAME_SIZE = 64;
+    private static final int MULTIPLE_COUNT = 8;
+    /**
+     *   Max frames in flight, far below the default writer queue size
+     */
+    private static final long WINDOW = 256L;
+    private static final double ALLOCATION_THRESHOLD = 0.1d;
+    private static final int PLAIN = 0;
+    private static final int TAGGED = 1;
+    private static final Object ECHO = new Object();
+    private static final Object REPLY = new Object();
+    private static final MemorySegment TAG = MemorySegment.ofArray(new byte[]{1, 2, 3, 4});
+    private static final Optional<TagMsg> RESPONSE = Optional.of(new TagMsg(TAG, REPLY));
+    private static final byte[] PLAIN_FRAME = frame(PLAIN);
+    private static final byte[] TAGGED_FRAME = frame(TAGGED);
+    private static final byte[] REPLY_FRAME = new byte[Integer.BYTES];
+    private static final AtomicLong received = new AtomicLong(0L);
+    private final List<Object> msgs = new ArrayList<>();
+    private Net net;
+    private Channel channel;
+    private long sent = 0L;
+
+    private static byte[] frame(int kind) {
+        byte[] bytes = new byte[FRAME_SIZE];
+        NativeUtil.setInt(MemorySegment.ofArray(bytes), 0L, kind);
+        return bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException, TimeoutException {
+        ListenerConfig listenerConfig = new ListenerConfig();
+        listenerConfig.setEncoderSupplier(() -> SendAllocationTest::encode);
+        listenerConfig.setDecoderSupplier(() -> SendAllocationTest::decodeFrames);
+        listenerConfig.setHandlerSupplier(ServerHandler::new);
+        listenerConfig.setProvider(Net.tcpProvider());
+        listenerConfig.setLoc(TestConstants.SERVER_IPV4_LOC);
+        NetConfig netConfig = new NetConfig();
+        netConfig.setPollerCount(1);
+        netConfig.setWriterCount(1);
+        net = new Net(netConfig);
+        net.serve(listenerConfig);
+        net.init();
+        ClientHandler clientHandler = new ClientHandler();
+        net.connect(TestConstants.CLIENT_IPV4_LOC, SendAllocationTest::encode, SendAllocationTest::decodeReplies, clientHandler, Net.tcpProvider());
+        channel = clientHandler.connected.get(5, TimeUnit.SECONDS);
+        for(int i = 0; i < MULTIPLE_COUNT; i++) {
+            msgs.add(PLAIN_FRAME);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        net.exit();
+    }
+
+    @Benchmark
+    public void testSendMsg() {
+        throttle(1);
+        channel.sendMsg(PLAIN_FRAME);
+    }
+
+    @Benchmark
+    public void testSendMultipleMsg() {
+        throttle(MULTIPLE_COUNT);
+        channel.sendMultipleMsg(msgs);
+    }
+
+    /**
+     *   Ref.fetch() could only be invoked in virtual threads, so benchmark threads are created as virtual threads here
+     */
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Djmh.executor=VIRTUAL_TPE")
+    public void testSendTaggedMsg(Blackhole bh) {
+        bh.consume(channel.sendTaggedMsg(TAGGED_FRAME, TAG));
+    }
+
+    private void throttle(int frames) {
+        sent += frames;
+        while (sent - received.get() > WINDOW) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void encode(WriteBuffer writeBuffer, Object o) {
+        writeBuffer.writeBytes((byte[]) o);
+    }
+
+    /**
+     *   Server side decoding, plain frames are discarded without creating any entity
+     */
+    private static void decodeFrames(ReadBuffer readBuffer, List<Object> entityList) {
+        long frames = 0L;
+        while (readBuffer.available() >= FRAME_SIZE) {
+            long start = readBuffer.currentIndex();
+            if(readBuffer.readInt() == TAGGED) {
+                entityList.add(ECHO);
+            }
+            readBuffer.setReadIndex(start + FRAME_SIZE);
+            frames++;
+        }
+        if(frames > 0L) {
+            received.getAndAdd(frames);
+        }
+    }
+
+    private static void decodeReplies(ReadBuffer readBuffer, List<Object> entityList) {
+        while (readBuffer.available() >= Integer.BYTES) {
+            readBuffer.readInt();
+            entityList.add(REPLY);
+        }
+    }
+
+    private static final class ServerHandler implements Handler {
+        @Override
+        public void onFailed(Channel channel) {
+
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            if(data == ECHO) {
+                channel.sendMsg(REPLY_FRAME);
+            }
+            return Optional.empty();
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+
+        }
+    }
+
+    private static final class ClientHandler implements Handler {
+        private final CompletableFuture<Channel> connected = new CompletableFuture<>();
+
+        @Override
+        public void onFailed(Channel channel) {
+            connected.completeExceptionally(new IllegalStateException("Failed to connect"));
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+            connected.complete(channel);
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            return data == REPLY ? RESPONSE : Optional.empty();
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SendAllocationTest.class.getSimpleName())
+                .detectJvmArgs()
+                .addProfiler(GCProfiler.class)
+                .build();
+        for (RunResult runResult : new Runner(options).run()) {
+            String benchmark = runResult.getParams().getBenchmark();
+            Result<?> result = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+            double score = result == null ? Double.NaN : result.getScore();
+            if(!benchmark.endsWith("testSendTaggedMsg") && !(score <= ALLOCATION_THRESHOLD)) {
+                throw new IllegalStateException(STR."\{benchmark} allocates \{score} bytes per send");
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.Clock;
+import cn.zorcc.common.TestConstants;
+import cn.zorcc.common.exception.FrameworkException;
+import cn.zorcc.common.structure.ReadBuffer;
+import cn.zorcc.common.structure.WriteBuffer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ *   ChannelPool tests against a loopback server, only the pool's bookkeeping is verified, no msg would be exchanged
+ */
+public class ChannelPoolTest {
+    private static final Duration SHORT_TIMEOUT = Duration.ofMillis(300);
+    /**
+     *   No server is listening on this port, so connecting to it would be refused
+     */
+    private static final Loc REFUSED_LOC = new Loc(IpType.IPV4, "127.0.0.1", TestConstants.PORT + 1);
+    private static Net net;
+
+    @BeforeAll
+    public static void setup() {
+        ListenerConfig listenerConfig = new ListenerConfig();
+        listenerConfig.setEncoderSupplier(() -> ChannelPoolTest::encode);
+        listenerConfig.setDecoderSupplier(() -> ChannelPoolTest::decode);
+        listenerConfig.setHandlerSupplier(NoopHandler::new);
+        listenerConfig.setProvider(Net.tcpProvider());
+        listenerConfig.setLoc(TestConstants.SERVER_IPV4_LOC);
+        net = new Net();
+        net.serve(listenerConfig);
+        net.init();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        net.exit();
+    }
+
+    @Test
+    public void testAcquireAndRelease() throws InterruptedException {
+        ChannelPool pool = createPool(2, NoopHandler::new);
+        try{
+            Channel channel = pool.acquire(TestConstants.CLIENT_IPV4_LOC);
+            pool.release(channel);
+            Assertions.assertSame(channel, pool.acquire(TestConstants.CLIENT_IPV4_LOC));
+            pool.release(channel);
+            // releasing twice should be ignored
+            pool.release(channel);
+            Assertions.assertSame(channel, pool.acquire(TestConstants.CLIENT_IPV4_LOC));
+            Channel another = pool.acquire(TestConstants.CLIENT_IPV4_LOC);
+            Assertions.assertNotSame(channel, another);
+        }finally {
+            pool.exit();
+        }
+    }
+
+    @Test
+    public void testMaxSize() throws InterruptedException {
+        ChannelPool pool = createPool(2, NoopHandler::new);
+        try{
+            Channel first = pool.acquire(TestConstants.CLIENT_IPV4_LOC);
+            Channel second = pool.acquire(TestConstants.CLIENT_IPV4_LOC);
+            Assertions.assertNotSame(first, second);
+            Assertions.assertThrows(FrameworkException.class, () -> pool.acquire(TestConstants.CLIENT_IPV4_LOC, Net.tcpProvider(), SHORT_TIMEOUT));
+            pool.release(second);
+            Assertions.assertSame(second, pool.acquire(TestConstants.CLIENT_IPV4_LOC));
+        }finally {
+            pool.exit();
+        }
+    }
+
+    @Test
+    public void testConnectFailure() throws InterruptedException {
+        ChannelPool pool = createPool(1, NoopHandler::new);
+        try{
+            Assertions.assertThrows(FrameworkException.class, () -> pool.acquire(REFUSED_LOC, Net.tcpProvider(), SHORT_TIMEOUT));
+            // failed attempts must not occupy the partition
+            Channel channel = pool.acquire(TestConstants.CLIENT_IPV4_LOC);
+            Assertions.assertNotNull(channel);
+        }finally {
+            pool.exit();
+        }
+    }
+
+    /**
+     *   A failed connect should suspend connecting to the same loc, acquiring during the backoff must fail fast without another attempt
+     */
+    @Test
+    public void testReconnectBackoff() {
+        AtomicInteger created = new AtomicInteger(0);
+        ChannelPool pool = createPool(1, () -> {
+            created.getAndIncrement();
+            return new NoopHandler();
+        }, Duration.ofSeconds(30));
+        try{
+            Assertions.assertThrows(FrameworkException.class, () -> pool.acquire(REFUSED_LOC, Net.tcpProvider(), Duration.ofSeconds(10)));
+            Assertions.assertEquals(1, created.get());
+            long start = Clock.nano();
+            Assertions.assertThrows(FrameworkException.class, () -> pool.acquire(REFUSED_LOC, Net.tcpProvider(), Duration.ofSeconds(10)));
+            Assertions.assertTrue(Clock.elapsed(start) < Duration.ofSeconds(5).toNanos());
+            Assertions.assertEquals(1, created.get());
+        }finally {
+            pool.exit();
+        }
+    }
+
+    /**
+     *   A handler failing in onConnected() must release its connecting slot exactly once, or the pool would exceed maxSize afterwards
+     */
+    @Test
+    public void testOnConnectedFailure() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger(0);
+        ChannelPool pool = createPool(1, () -> created.getAndIncrement() == 0 ? new FailingHandler() : new NoopHandler());
+        try{
+            Channel channel = pool.acquire(TestConstants.CLIENT_IPV4_LOC);
+            Assertions.assertNotNull(channel);
+            Assertions.assertEquals(2, created.get());
+            Assertions.assertThrows(FrameworkException.class, () -> pool.acquire(TestConstants.CLIENT_IPV4_LOC, Net.tcpProvider(), SHORT_TIMEOUT));
+            Assertions.assertEquals(2, created.get());
+        }finally {
+            pool.exit();
+        }
+    }
+
+    private static ChannelPool createPool(int maxSize, Supplier<Handler> handlerSupplier) {
+        return createPool(maxSize, handlerSupplier, new ChannelPoolConfig().getReconnectBackoff());
+    }
+
+    private static ChannelPool createPool(int maxSize, Supplier<Handler> handlerSupplier, Duration reconnectBackoff) {
+        ChannelPoolConfig config = new ChannelPoolConfig();
+        config.setEncoderSupplier(() -> ChannelPoolTest::encode);
+        config.setDecoderSupplier(() -> ChannelPoolTest::decode);
+        config.setHandlerSupplier(handlerSupplier);
+        config.setMinSize(0);
+        config.setMaxSize(maxSize);
+        config.setReconnectBackoff(reconnectBackoff);
+        ChannelPool pool = new ChannelPool(net, config);
+        pool.init();
+        return pool;
+    }
+
+    private static void encode(WriteBuffer writeBuffer, Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    private static void decode(ReadBuffer readBuffer, List<Object> entityList) {
+        readBuffer.setReadIndex(readBuffer.size());
+    }
+
+    private static class NoopHandler implements Handler {
+        @Override
+        public void onFailed(Channel channel) {
+
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+
+        }
+    }
+
+    private static final class FailingHandler extends NoopHandler {
+        @Override
+        public void onConnected(Channel channel) {
+            throw new IllegalStateException("Rejected by handler");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.TestConstants;
+import cn.zorcc.common.structure.MemApi;
+import cn.zorcc.common.structure.ReadBuffer;
+import cn.zorcc.common.structure.WriteBuffer;
+import cn.zorcc.common.util.NativeUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class MmsgBatchTest {
+    /**
+     *   struct mmsghdr layout on 64-bit Linux
+     */
+    private static final long MMSGHDR_SIZE = 64L;
+    private static final long NAME_OFFSET = 0L;
+    private static final long NAME_LEN_OFFSET = 8L;
+    private static final long IOV_OFFSET = 16L;
+    private static final long IOV_LEN_OFFSET = 24L;
+    private static final long MSG_LEN_OFFSET = 56L;
+    private static final long ADDR_SIZE = 28L;
+    private static final int CHAIN_LENGTH = 16;
+    private static final Loc RECEIVER_LOC = new Loc(IpType.IPV4, "127.0.0.1", TestConstants.PORT + 10);
+    private static final Loc SENDER_LOC = new Loc(IpType.IPV4, "127.0.0.1", TestConstants.PORT + 11);
+
+    @Test
+    public void testLayout() {
+        try(MmsgBatch mmsg = new MmsgBatch(MemApi.DEFAULT, 4, 8, ADDR_SIZE, 4L); Arena arena = Arena.ofConfined()) {
+            MemorySegment data = arena.allocate(16L);
+            mmsg.setIov(2, data.asSlice(0L, 10L));
+            mmsg.setIov(3, data.asSlice(10L, 6L));
+            mmsg.setMsg(1, 2, 2);
+            MemorySegment msgs = mmsg.msgsFrom(0).reinterpret(4 * MMSGHDR_SIZE);
+            Assertions.assertEquals(msgs.address() + MMSGHDR_SIZE, mmsg.msgsFrom(1).address());
+            Assertions.assertEquals(mmsg.addr(1).address(), NativeUtil.getAddress(msgs, MMSGHDR_SIZE + NAME_OFFSET).address());
+            Assertions.assertEquals((int) ADDR_SIZE, NativeUtil.getInt(msgs, MMSGHDR_SIZE + NAME_LEN_OFFSET));
+            Assertions.assertEquals(2L, NativeUtil.getLong(msgs, MMSGHDR_SIZE + IOV_LEN_OFFSET));
+            MemorySegment iovs = NativeUtil.getAddress(msgs, MMSGHDR_SIZE + IOV_OFFSET).reinterpret(32L);
+            Assertions.assertEquals(data.address(), NativeUtil.getAddress(iovs, 0L).address());
+            Assertions.assertEquals(10L, NativeUtil.getLong(iovs, 8L));
+            Assertions.assertEquals(data.address() + 10L, NativeUtil.getAddress(iovs, 16L).address());
+            Assertions.assertEquals(6L, NativeUtil.getLong(iovs, 24L));
+            NativeUtil.setInt(msgs, MMSGHDR_SIZE + MSG_LEN_OFFSET, 16);
+            NativeUtil.setInt(msgs, MMSGHDR_SIZE + NAME_LEN_OFFSET, 16);
+            Assertions.assertEquals(16, mmsg.msgLen(1));
+            Assertions.assertEquals(0, mmsg.msgFlags(1));
+            mmsg.resetAddrLen(1);
+            Assertions.assertEquals((int) ADDR_SIZE, NativeUtil.getInt(msgs, MMSGHDR_SIZE + NAME_LEN_OFFSET));
+        }
+    }
+
+    /**
+     *   In thread-per-core mode, a send callback runs in the writer thread, so sending from it would re-enter the datagram writer node inline
+     *   Each datagram should still be sent exactly once, and each callback should be invoked exactly once
+     */
+    @Test
+    public void testInlineSendFromCallback() throws InterruptedException {
+        NetConfig netConfig = new NetConfig();
+        netConfig.setPollerCount(1);
+        netConfig.setEnableThreadPerCore(true);
+        Net net = new Net(netConfig);
+        net.init();
+        try{
+            AtomicIntegerArray received = new AtomicIntegerArray(CHAIN_LENGTH);
+            AtomicIntegerArray completed = new AtomicIntegerArray(CHAIN_LENGTH);
+            CountDownLatch latch = new CountDownLatch(CHAIN_LENGTH);
+            net.datagram(RECEIVER_LOC, MmsgBatchTest::encode, MmsgBatchTest::decode, new ReceiverHandler(received, latch));
+            Channel sender = net.datagram(SENDER_LOC, MmsgBatchTest::encode, MmsgBatchTest::decode, new ReceiverHandler(new AtomicIntegerArray(CHAIN_LENGTH), new CountDownLatch(0)));
+            sender.sendMsg(new Datagram(RECEIVER_LOC, 0), new ChainCallback(0, completed));
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            // waiting for possible duplicated datagrams and callbacks
+            Thread.sleep(200L);
+            for(int i = 0; i < CHAIN_LENGTH; i++) {
+                Assertions.assertEquals(1, received.get(i));
+                Assertions.assertEquals(1, completed.get(i));
+            }
+        }finally {
+            net.exit();
+        }
+    }
+
+    private static void encode(WriteBuffer writeBuffer, Object o) {
+        writeBuffer.writeInt((Integer) o);
+    }
+
+    private static void decode(ReadBuffer readBuffer, List<Object> entityList) {
+        while (readBuffer.available() >= Integer.BYTES) {
+            entityList.add(readBuffer.readInt());
+        }
+    }
+
+    /**
+     *   Send the next datagram of the chain from the callback of the previous one
+     */
+    private record ChainCallback(
+            int index,
+            AtomicIntegerArray completed
+    ) implements WriterCallback {
+        @Override
+        public void onSuccess(Channel channel) {
+            completed.incrementAndGet(index);
+            int next = index + 1;
+            if(next < CHAIN_LENGTH) {
+                channel.sendMsg(new Datagram(RECEIVER_LOC, next), new ChainCallback(next, completed));
+            }
+        }
+
+        @Override
+        public void onFailure(Channel channel) {
+            Assertions.fail(STR."Failed to send datagram : \{index}");
+        }
+    }
+
+    private record ReceiverHandler(
+            AtomicIntegerArray received,
+            CountDownLatch latch
+    ) implements Handler {
+        @Override
+        public void onFailed(Channel channel) {
+
+        }
+
+        @Override
+        public void onConnected(Channel channel) {
+
+        }
+
+        @Override
+        public Optional<TagMsg> onRecv(Channel channel, Object data) {
+            if(data instanceof Datagram(Loc _, Integer index)) {
+                received.incrementAndGet(index);
+                latch.countDown();
+            }
+            return Optional.empty();
+        }
+
+        @Override
+        public void onShutdown(Channel channel) {
+
+        }
+
+        @Override
+        public void onRemoved(Channel channel) {
+
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package cn.zorcc.common.network;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SslSessionCacheTest {
+    private static final Loc LOC1 = new Loc(IpType.IPV4, "127.0.0.1", 8001);
+    private static final Loc LOC2 = new Loc(IpType.IPV4, "127.0.0.1", 8002);
+    private static final Loc LOC3 = new Loc(IpType.IPV4, "127.0.0.1", 8003);
+
+    /**
+     *   Sessions are never dereferenced by the cache, so fake addresses are enough for tracking the released references
+     */
+    private static MemorySegment session(long address) {
+        return MemorySegment.ofAddress(address);
+    }
+
+    private static List<Long> addresses(List<MemorySegment> freed) {
+        return freed.stream().map(MemorySegment::address).toList();
+    }
+
+    @Test
+    public void testPut() {
+        List<MemorySegment> freed = new ArrayList<>();
+        SslSessionCache cache = new SslSessionCache(16, 1, freed::add);
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertTrue(cache.put(LOC2, session(2L)));
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(freed.isEmpty());
+    }
+
+    @Test
+    public void testReplace() {
+        List<MemorySegment> freed = new ArrayList<>();
+        SslSessionCache cache = new SslSessionCache(16, 1, freed::add);
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertTrue(cache.put(LOC1, session(2L)));
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(List.of(1L), addresses(freed));
+        cache.close();
+        Assertions.assertEquals(List.of(1L, 2L), addresses(freed));
+    }
+
+    @Test
+    public void testReplaceSameSession() {
+        List<MemorySegment> freed = new ArrayList<>();
+        SslSessionCache cache = new SslSessionCache(16, 1, freed::add);
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertEquals(1, cache.size());
+        // the extra reference of the same session should be released, the cached one is still owned
+        Assertions.assertEquals(List.of(1L), addresses(freed));
+        cache.close();
+        Assertions.assertEquals(List.of(1L, 1L), addresses(freed));
+    }
+
+    @Test
+    public void testEvict() {
+        List<MemorySegment> freed = new ArrayList<>();
+        SslSessionCache cache = new SslSessionCache(2, 1, freed::add);
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertTrue(cache.put(LOC2, session(2L)));
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertEquals(List.of(1L), addresses(freed));
+        // LOC1 was accessed recently, so LOC2 should be evicted
+        Assertions.assertTrue(cache.put(LOC3, session(3L)));
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(List.of(1L, 2L), addresses(freed));
+    }
+
+    @Test
+    public void testClose() {
+        List<MemorySegment> freed = new ArrayList<>();
+        SslSessionCache cache = new SslSessionCache(16, 4, freed::add);
+        Assertions.assertTrue(cache.put(LOC1, session(1L)));
+        Assertions.assertTrue(cache.put(LOC2, session(2L)));
+        cache.close();
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(2, freed.size());
+        Assertions.assertTrue(addresses(freed).containsAll(List.of(1L, 2L)));
+    }
+
+    @Test
+    public void testPutAfterClose() {
+        List<MemorySegment> freed = new ArrayList<>();
+        SslSessionCache cache = new SslSessionCache(16, 1, freed::add);
+        cache.close();
+        Assertions.assertFalse(cache.put(LOC1, session(1L)));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(List.of(1L), addresses(freed));
+        cache.close();
+        Assertions.assertEquals(1, freed.size());
+    }
+}
@@ -0,0 +1,91 @@
+package cn.zorcc.common.network;
+
+import cn.zorcc.common.Constants;
+import cn.zorcc.common.util.NativeUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.*;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+
+public class SslTicketKeysTest {
+    private static final int TICKET_NOT_FOUND = 0;
+    private static final int TICKET_SUCCESS = 1;
+    private static final int TICKET_RENEW = 2;
+    private static final byte[] TICKET = "session ticket to be encrypted by the ticket key".getBytes(StandardCharsets.UTF_8);
+    private static final MethodHandle cipherCtxNew;
+    private static final MethodHandle cipherCtxFree;
+    private static final MethodHandle hmacCtxNew;
+    private static final MethodHandle hmacCtxFree;
+    private static final MethodHandle encryptUpdate;
+    private static final MethodHandle encryptFinal;
+    private static final MethodHandle decryptUpdate;
+    private static final MethodHandle decryptFinal;
+
+    static {
+        SymbolLookup crypto = NativeUtil.loadLibrary(Constants.CRYPTO);
+        cipherCtxNew = NativeUtil.methodHandle(crypto, "EVP_CIPHER_CTX_new", FunctionDescriptor.of(ValueLayout.ADDRESS));
+        cipherCtxFree = NativeUtil.methodHandle(crypto, "EVP_CIPHER_CTX_free", FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
+        hmacCtxNew = NativeUtil.methodHandle(crypto, "HMAC_CTX_new", FunctionDescriptor.of(ValueLayout.ADDRESS));
+        hmacCtxFree = NativeUtil.methodHandle(crypto, "HMAC_CTX_free", FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
+        FunctionDescriptor update = FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT);
+        FunctionDescriptor fin = FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS);
+        encryptUpdate = NativeUtil.methodHandle(crypto, "EVP_EncryptUpdate", update);
+        encryptFinal = NativeUtil.methodHandle(crypto, "EVP_EncryptFinal_ex", fin);
+        decryptUpdate = NativeUtil.methodHandle(crypto, "EVP_DecryptUpdate", update);
+        decryptFinal = NativeUtil.methodHandle(crypto, "EVP_DecryptFinal_ex", fin);
+    }
+
+    /**
+     *   Simulate a ticket key callback invocation from the SSL library, then run the cipher over input
+     */
+    private static byte[] invoke(SslTicketKeys ticketKeys, MemorySegment name, MemorySegment iv, int enc, int expected, byte[] input) throws Throwable {
+        MemorySegment cipherCtx = (MemorySegment) cipherCtxNew.invokeExact();
+        MemorySegment hmacCtx = (MemorySegment) hmacCtxNew.invokeExact();
+        try(Arena arena = Arena.ofConfined()) {
+            Assertions.assertEquals(expected, ticketKeys.onTicketKey(MemorySegment.NULL, name, iv, cipherCtx, hmacCtx, enc));
+            if(expected == TICKET_NOT_FOUND) {
+                return null;
+            }
+            MemorySegment in = arena.allocateFrom(ValueLayout.JAVA_BYTE, input);
+            MemorySegment out = arena.allocate(input.length + 32L);
+            MemorySegment len = arena.allocate(ValueLayout.JAVA_INT);
+            MethodHandle update = enc == 1 ? encryptUpdate : decryptUpdate;
+            MethodHandle fin = enc == 1 ? encryptFinal : decryptFinal;
+            Assertions.assertEquals(1, (int) update.invokeExact(cipherCtx, out, len, in, input.length));
+            int total = len.get(ValueLayout.JAVA_INT, 0L);
+            Assertions.assertEquals(1, (int) fin.invokeExact(cipherCtx, out.asSlice(total), len));
+            total += len.get(ValueLayout.JAVA_INT, 0L);
+            return out.asSlice(0L, total).toArray(ValueLayout.JAVA_BYTE);
+        }finally {
+            cipherCtxFree.invokeExact(cipherCtx);
+            hmacCtxFree.invokeExact(hmacCtx);
+        }
+    }
+
+    @Test
+    public void testRotate() throws Throwable {
+        SslTicketKeys ticketKeys = new SslTicketKeys();
+        try(Arena arena = Arena.ofConfined()) {
+            MemorySegment name = arena.allocate(16L);
+            MemorySegment iv = arena.allocate(16L);
+            byte[] encrypted = invoke(ticketKeys, name, iv, 1, TICKET_SUCCESS, TICKET);
+            Assertions.assertArrayEquals(TICKET, invoke(ticketKeys, name, iv, 0, TICKET_SUCCESS, encrypted));
+            ticketKeys.rotate();
+            // the ticket encrypted by the previous key should still be decrypted, and be renewed
+            Assertions.assertArrayEquals(TICKET, invoke(ticketKeys, name, iv, 0, TICKET_RENEW, encrypted));
+            MemorySegment newName = arena.allocate(16L);
+            MemorySegment newIv = arena.allocate(16L);
+            byte[] newEncrypted = invoke(ticketKeys, newName, newIv, 1, TICKET_SUCCESS, TICKET);
+            Assertions.assertFalse(newName.mismatch(name) == -1L);
+            Assertions.assertArrayEquals(TICKET, invoke(ticketKeys, newName, newIv, 0, TICKET_SUCCESS, newEncrypted));
+            ticketKeys.rotate();
+            // the key of the first ticket has been dropped after two rotations
+            Assertions.assertNull(invoke(ticketKeys, name, iv, 0, TICKET_NOT_FOUND, encrypted));
+            Assertions.assertArrayEquals(TICKET, invoke(ticketKeys, newName, newIv, 0, TICKET_RENEW, newEncrypted));
+        }finally {
+            ticketKeys.close();
+        }
+    }
+}
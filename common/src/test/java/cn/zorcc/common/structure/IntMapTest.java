@@ -1,5 +1,6 @@
 package cn.zorcc.common.structure;
 
+import cn.zorcc.common.exception.FrameworkException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -8,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
 
 public class IntMapTest {
 
@@ -15,6 +17,10 @@ public class IntMapTest {
     private static final int ROUNDS = 100;
 
     private static void testMap(IntMap<Integer> map) {
+        testMap(map, ThreadLocalRandom.current()::nextInt);
+    }
+
+    private static void testMap(IntMap<Integer> map, IntSupplier keySupplier) {
         Set<Integer> filter = new HashSet<>(COUNT);
         List<Integer> keys = new ArrayList<>(COUNT);
         List<Integer> values = new ArrayList<>(COUNT);
@@ -23,7 +29,7 @@ public class IntMapTest {
         for(int i = 0; i < COUNT; i++) {
             int k;
             do {
-                k = random.nextInt();
+                k = keySupplier.getAsInt();
             } while (!filter.add(k));
             int v = random.nextInt();
             keys.add(k);
@@ -80,4 +86,70 @@ public class IntMapTest {
             testMap(map);
         }
     }
+
+    @Test
+    public void testArrayMap() {
+        for(int i = 0; i < ROUNDS; i++) {
+            IntMap<Integer> map = IntMap.newArrayMap(16);
+            testMap(map, () -> ThreadLocalRandom.current().nextInt(COUNT << 2));
+        }
+    }
+
+    @Test
+    public void testArrayMapWithHugeIdentifier() {
+        IntMap<Integer> map = IntMap.newArrayMap(256);
+        int[] keys = {0, 4095, 4096, 1 << 20, Integer.MAX_VALUE, -1};
+        for (int k : keys) {
+            map.put(k, k);
+        }
+        Assertions.assertEquals(map.count(), keys.length);
+        Assertions.assertEquals(map.asList().size(), keys.length);
+        for (int k : keys) {
+            Assertions.assertEquals(map.get(k), k);
+        }
+        Assertions.assertNull(map.get(4097));
+        Assertions.assertNull(map.get(Integer.MAX_VALUE - 1));
+        Assertions.assertFalse(map.remove(4095, 4095 + 1));
+        for (int k : keys) {
+            Assertions.assertTrue(map.remove(k, map.get(k)));
+            Assertions.assertNull(map.get(k));
+        }
+        Assertions.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testArrayMapRejectsOccupiedSlot() {
+        IntMap<Integer> map = IntMap.newArrayMap(16);
+        Integer value = 1;
+        map.put(3, value);
+        Assertions.assertThrows(FrameworkException.class, () -> map.put(3, 2));
+        Assertions.assertThrows(FrameworkException.class, () -> map.put(4, null));
+        Assertions.assertThrows(FrameworkException.class, () -> map.replace(3, value, null));
+        Assertions.assertEquals(map.count(), 1);
+        Assertions.assertSame(map.get(3), value);
+        Assertions.assertNull(map.get(4));
+    }
+
+    @Test
+    public void testArrayMapPageChurn() {
+        IntMap<Integer> map = IntMap.newArrayMap(16);
+        Integer low = 4095;
+        map.put(low, low);
+        for(int i = 0; i < ROUNDS; i++) {
+            // each round empties the second page and then occupies it again
+            Integer first = 4096 + i;
+            Integer second = 8191 - i;
+            map.put(first, first);
+            map.put(second, second);
+            Assertions.assertEquals(map.count(), 3);
+            Assertions.assertSame(map.get(first), first);
+            Assertions.assertSame(map.get(second), second);
+            Assertions.assertTrue(map.remove(first, first));
+            Assertions.assertTrue(map.remove(second, second));
+            Assertions.assertNull(map.get(first));
+            Assertions.assertNull(map.get(second));
+        }
+        Assertions.assertEquals(map.count(), 1);
+        Assertions.assertSame(map.get(low), low);
+    }
 }
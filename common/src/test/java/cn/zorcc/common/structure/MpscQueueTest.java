@@ -0,0 +1,80 @@
+package cn.zorcc.common.structure;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class MpscQueueTest {
+    private static final int PRODUCERS = 4;
+    private static final int ROUNDS = 100000;
+
+    @Test
+    public void testOverflow() {
+        MpscQueue<Integer> queue = new MpscQueue<>(16);
+        Assertions.assertTrue(queue.isEmpty());
+        for(int i = 0; i < 1000; i++) {
+            queue.offer(i);
+        }
+        Assertions.assertFalse(queue.isEmpty());
+        for(int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(queue.poll(), i);
+        }
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testSize() {
+        MpscQueue<Integer> queue = new MpscQueue<>(16);
+        Assertions.assertEquals(0L, queue.size());
+        for(int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        Assertions.assertEquals(10L, queue.size());
+        for(int i = 0; i < 4; i++) {
+            queue.poll();
+        }
+        Assertions.assertEquals(6L, queue.size());
+    }
+
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        MpscQueue<long[]> queue = new MpscQueue<>(64);
+        CountDownLatch countDownLatch = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for(int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            producers.add(Thread.ofPlatform().start(() -> {
+                try{
+                    countDownLatch.await();
+                    for(int i = 0; i < ROUNDS; i++) {
+                        queue.offer(new long[]{producer, i});
+                    }
+                }catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        countDownLatch.countDown();
+        long[] expected = new long[PRODUCERS];
+        int count = 0;
+        while (count < PRODUCERS * ROUNDS) {
+            long[] element = queue.poll();
+            if(element == null) {
+                Thread.onSpinWait();
+            }else {
+                int producer = (int) element[0];
+                // elements from the same producer must be in order
+                Assertions.assertEquals(expected[producer]++, element[1]);
+                count++;
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assertions.assertNull(queue.poll());
+    }
+}
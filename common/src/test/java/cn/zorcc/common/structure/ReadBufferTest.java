@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class ReadBufferTest {
@@ -196,4 +198,147 @@ public class ReadBufferTest {
             Assertions.assertEquals(Math.min(i, 8), i2);
         }
     }
+
+    /**
+     *   Split the segment into several chunks with random length, so that values would span multiple chunks
+     */
+    private static ReadBuffer split(MemorySegment segment) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<MemorySegment> chunks = new ArrayList<>();
+        long index = 0L;
+        long size = segment.byteSize();
+        while (index < size) {
+            long len = Math.min(random.nextLong(1L, 8L), size - index);
+            chunks.add(segment.asSlice(index, len));
+            index += len;
+        }
+        return ReadBuffer.composite(chunks.toArray(MemorySegment[]::new));
+    }
+
+    @Test
+    public void testCompositeRead() {
+        for(int round = 0; round < BATCH; round++) {
+            MemorySegment segment = Allocator.HEAP.allocate(Constants.BYTE_SIZE + Constants.SHORT_SIZE + Constants.INT_SIZE + Constants.LONG_SIZE + Constants.DOUBLE_SIZE);
+            ReadBuffer expected = new ReadBuffer(segment);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for(long i = 0; i < segment.byteSize(); i++) {
+                NativeUtil.setByte(segment, i, (byte) random.nextInt());
+            }
+            ReadBuffer readBuffer = split(segment);
+            Assertions.assertEquals(expected.size(), readBuffer.size());
+            Assertions.assertEquals(expected.readByte(), readBuffer.readByte());
+            Assertions.assertEquals(expected.readShort(), readBuffer.readShort());
+            Assertions.assertEquals(expected.readInt(), readBuffer.readInt());
+            Assertions.assertEquals(expected.readLong(), readBuffer.readLong());
+            Assertions.assertEquals(Double.doubleToRawLongBits(expected.readDouble()), Double.doubleToRawLongBits(readBuffer.readDouble()));
+            Assertions.assertEquals(0L, readBuffer.available());
+            readBuffer.setReadIndex(Constants.BYTE_SIZE);
+            expected.setReadIndex(Constants.BYTE_SIZE);
+            Assertions.assertArrayEquals(expected.readBytes(Constants.SHORT_SIZE + Constants.INT_SIZE), readBuffer.readBytes(Constants.SHORT_SIZE + Constants.INT_SIZE));
+        }
+    }
+
+    @Test
+    public void testCompositeReadUntil() {
+        byte sep1 = (byte) '\r';
+        byte sep2 = (byte) '\n';
+        for(int size = 0; size < BATCH; size++) {
+            ReadBuffer expected = createReadBufferWithTwoSep(size, sep1, sep2);
+            MemorySegment m1 = expected.readUntil(sep1, sep2);
+            expected.setReadIndex(0L);
+            ReadBuffer readBuffer = split(expected.readSegment(expected.size()));
+            MemorySegment m2 = readBuffer.swarReadUntil(ReadBuffer.compilePattern(sep1), sep1, sep2);
+            Assertions.assertNotNull(m2);
+            Assertions.assertArrayEquals(m1.toArray(ValueLayout.JAVA_BYTE), m2.toArray(ValueLayout.JAVA_BYTE));
+            Assertions.assertEquals(0L, readBuffer.available());
+        }
+    }
+
+    @Test
+    public void testReadChain() {
+        try(ChunkPool chunkPool = new ChunkPool(MemApi.DEFAULT, 64); ReadChain readChain = new ReadChain(chunkPool)) {
+            MemorySegment data = Allocator.HEAP.allocate(1000);
+            for(int i = 0; i < 1000; i++) {
+                NativeUtil.setByte(data, i, (byte) i);
+            }
+            readChain.append(data.asSlice(0L, 300L));
+            readChain.consume(100L);
+            readChain.append(data.asSlice(300L, 500L));
+            Assertions.assertEquals(700L, readChain.size());
+            ReadBuffer readBuffer = readChain.asReadBuffer(data.asSlice(800L, 200L));
+            Assertions.assertEquals(900L, readBuffer.size());
+            Assertions.assertArrayEquals(data.asSlice(100L, 900L).toArray(ValueLayout.JAVA_BYTE), readBuffer.readBytes(900L));
+            readChain.consume(700L);
+            Assertions.assertTrue(readChain.isEmpty());
+        }
+    }
+
+    /**
+     *   Segments spanning multiple chunks should still be native, and their copies should be freed by release()
+     */
+    @Test
+    public void testCompositeNativeSegment() {
+        CountingMemApi memApi = new CountingMemApi();
+        MemorySegment first = Allocator.HEAP.allocate(8);
+        MemorySegment second = Allocator.HEAP.allocate(8);
+        for(int i = 0; i < 8; i++) {
+            NativeUtil.setByte(first, i, (byte) i);
+            NativeUtil.setByte(second, i, (byte) (i + 8));
+        }
+        ReadBuffer readBuffer = ReadBuffer.composite(memApi, first, second);
+        MemorySegment inside = readBuffer.readSegment(4L);
+        Assertions.assertEquals(0, memApi.allocated);
+        MemorySegment spanning = readBuffer.readSegment(8L);
+        Assertions.assertTrue(spanning.isNative());
+        Assertions.assertEquals(1, memApi.allocated);
+        for(int i = 0; i < 8; i++) {
+            Assertions.assertEquals((byte) (i + 4), NativeUtil.getByte(spanning, i));
+        }
+        Assertions.assertEquals(4L, inside.byteSize());
+        readBuffer.release();
+        Assertions.assertEquals(1, memApi.freed);
+    }
+
+    /**
+     *   Closing the pool should release the chunks held by live chains as well as the cached ones
+     */
+    @Test
+    public void testChunkPoolCloseWithLiveChain() {
+        CountingMemApi memApi = new CountingMemApi();
+        ChunkPool chunkPool = new ChunkPool(memApi, 64);
+        ReadChain closedChain = new ReadChain(chunkPool);
+        closedChain.append(Allocator.HEAP.allocate(100));
+        closedChain.close();
+        ReadChain liveChain = new ReadChain(chunkPool);
+        liveChain.append(Allocator.HEAP.allocate(300));
+        Assertions.assertEquals(5, memApi.allocated);
+        chunkPool.close();
+        Assertions.assertEquals(5, memApi.freed);
+        Assertions.assertTrue(liveChain.isEmpty());
+        // closing the chain again after the pool has been closed should be harmless
+        liveChain.close();
+        Assertions.assertEquals(5, memApi.freed);
+    }
+
+    private static final class CountingMemApi implements MemApi {
+        private int allocated = 0;
+        private int freed = 0;
+
+        @Override
+        public MemorySegment allocateMemory(long byteSize) {
+            allocated++;
+            return MemApi.DEFAULT.allocateMemory(byteSize);
+        }
+
+        @Override
+        public MemorySegment reallocateMemory(MemorySegment ptr, long newSize) {
+            return MemApi.DEFAULT.reallocateMemory(ptr, newSize);
+        }
+
+        @Override
+        public void freeMemory(MemorySegment ptr) {
+            freed++;
+            MemApi.DEFAULT.freeMemory(ptr);
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package cn.zorcc.common.structure;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimerWheelTest {
+    private static final long TICK = 10L;
+
+    @Test
+    public void testFire() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        List<Integer> fired = new ArrayList<>();
+        wheel.schedule(() -> fired.add(1), 25L, 0L);
+        wheel.schedule(() -> fired.add(2), 5L, 0L);
+        Assertions.assertEquals(2, wheel.size());
+        Assertions.assertEquals(0, wheel.advance(9L));
+        Assertions.assertEquals(1, wheel.advance(10L));
+        Assertions.assertEquals(List.of(2), fired);
+        Assertions.assertEquals(0, wheel.advance(20L));
+        Assertions.assertEquals(1, wheel.advance(30L));
+        Assertions.assertEquals(List.of(2, 1), fired);
+        Assertions.assertEquals(0, wheel.size());
+        Assertions.assertEquals(-1L, wheel.nextDelay(30L));
+    }
+
+    @Test
+    public void testNextDelay() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        Assertions.assertEquals(-1L, wheel.nextDelay(0L));
+        wheel.schedule(() -> {}, 100L, 0L);
+        Assertions.assertEquals(97L, wheel.nextDelay(3L));
+        Assertions.assertEquals(85L, wheel.nextDelay(15L));
+        wheel.advance(15L);
+        Assertions.assertEquals(85L, wheel.nextDelay(15L));
+        TimerWheel.Timer timer = wheel.schedule(() -> {}, 30L, 15L);
+        Assertions.assertEquals(35L, wheel.nextDelay(15L));
+        timer.cancel();
+        // the cancelled deadline is kept as a lower bound until it has been passed
+        Assertions.assertEquals(35L, wheel.nextDelay(15L));
+        Assertions.assertEquals(0, wheel.advance(50L));
+        Assertions.assertEquals(50L, wheel.nextDelay(50L));
+        Assertions.assertEquals(0L, wheel.nextDelay(120L));
+    }
+
+    /**
+     *   Timers staying in their bucket for more rounds shouldn't make the delay shorter
+     */
+    @Test
+    public void testNextDelayMultipleRounds() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        // tick 100 and tick 36 share the same bucket
+        wheel.schedule(() -> {}, 1000L, 0L);
+        Assertions.assertEquals(1000L, wheel.nextDelay(0L));
+        wheel.schedule(() -> {}, 360L, 0L);
+        Assertions.assertEquals(360L, wheel.nextDelay(0L));
+        wheel.advance(360L);
+        Assertions.assertEquals(640L, wheel.nextDelay(360L));
+    }
+
+    /**
+     *   After the earliest timer fired, the delay should move to the next pending deadline, even if it's rounds away
+     */
+    @Test
+    public void testNextDelayAfterFire() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        for(long delay = 2000L; delay < 3000L; delay += 70L) {
+            wheel.schedule(() -> {}, delay, 0L);
+        }
+        wheel.schedule(() -> {}, 200L, 0L);
+        wheel.schedule(() -> {}, 300L, 0L);
+        Assertions.assertEquals(200L, wheel.nextDelay(0L));
+        Assertions.assertEquals(1, wheel.advance(200L));
+        Assertions.assertEquals(100L, wheel.nextDelay(200L));
+        Assertions.assertEquals(1, wheel.advance(300L));
+        Assertions.assertEquals(1700L, wheel.nextDelay(300L));
+        Assertions.assertEquals(1, wheel.advance(2000L));
+        Assertions.assertEquals(70L, wheel.nextDelay(2000L));
+    }
+
+    @Test
+    public void testMultipleRounds() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        List<Integer> fired = new ArrayList<>();
+        // 100 ticks later, which is more than 6 rounds of the wheel
+        wheel.schedule(() -> fired.add(1), 1000L, 0L);
+        for(long now = 0L; now < 1000L; now += TICK) {
+            Assertions.assertEquals(0, wheel.advance(now));
+        }
+        Assertions.assertEquals(1, wheel.advance(1000L));
+        Assertions.assertEquals(List.of(1), fired);
+    }
+
+    @Test
+    public void testLateAdvance() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        List<Integer> fired = new ArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            int v = i;
+            wheel.schedule(() -> fired.add(v), i * TICK, 0L);
+        }
+        // skipping more than a round would still fire all expired timers
+        Assertions.assertEquals(51, wheel.advance(500L));
+        Assertions.assertEquals(49, wheel.advance(10000L));
+        Assertions.assertEquals(100, fired.size());
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancel() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        List<Integer> fired = new ArrayList<>();
+        TimerWheel.Timer t1 = wheel.schedule(() -> fired.add(1), 10L, 0L);
+        TimerWheel.Timer t2 = wheel.schedule(() -> fired.add(2), 10L, 0L);
+        wheel.schedule(() -> fired.add(3), 10L, 0L);
+        t2.cancel();
+        t2.cancel();
+        Assertions.assertEquals(2, wheel.size());
+        // a fired task could cancel other expired timers in the same tick
+        wheel.schedule(() -> t1.cancel(), 5L, 0L);
+        Assertions.assertEquals(2, wheel.advance(10L));
+        Assertions.assertEquals(List.of(3), fired);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testReschedule() {
+        TimerWheel wheel = new TimerWheel(16, TICK, 0L);
+        List<Long> fired = new ArrayList<>();
+        Runnable[] task = new Runnable[1];
+        long[] now = new long[]{0L};
+        task[0] = () -> {
+            fired.add(now[0]);
+            if(fired.size() < 3) {
+                wheel.schedule(task[0], 20L, now[0]);
+            }
+        };
+        wheel.schedule(task[0], 20L, 0L);
+        for(now[0] = 0L; now[0] <= 100L; now[0] += TICK) {
+            wheel.advance(now[0]);
+        }
+        Assertions.assertEquals(List.of(20L, 40L, 60L), fired);
+    }
+}